@@ -0,0 +1,95 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * A signal that the Kubernetes event an observer method is handling
+ * has been superseded, so that any further work on it is wasted.
+ *
+ * <p>A {@link Cancellation} is created for every Kubernetes event
+ * that is fired.  It is cancelled when a newer change to, or the
+ * deletion of, the same Kubernetes resource arrives while observer
+ * methods are still handling it.  Synchronization events never
+ * cancel anything.</p>
+ *
+ * <p>Observer methods of Kubernetes events may have the {@link
+ * Cancellation} for the event they are handling injected as an
+ * ordinary parameter, and should poll it between expensive steps,
+ * particularly if they are asynchronous:</p>
+ *
+ * <blockquote><pre>private final void onConfigMapModification(&#64;ObservesAsync &#64;AllConfigMapEvents &#64;Modified final ConfigMap configMap, final Cancellation cancellation) {
+ *  for (final String key : configMap.getData().keySet()) {
+ *    cancellation.throwIfCancelled();
+ *    // do something slow with key
+ *  }
+ *}</pre></blockquote>
+ *
+ * <p>Instances of this class are safe for concurrent use by multiple
+ * threads.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see KubernetesControllerExtension
+ */
+public final class Cancellation {
+
+  private volatile boolean cancelled;
+
+  Cancellation() {
+    super();
+  }
+
+  /**
+   * Returns {@code true} if the Kubernetes event being handled has
+   * been superseded.
+   *
+   * @return {@code true} if the Kubernetes event being handled has
+   * been superseded; {@code false} otherwise
+   */
+  public final boolean isCancelled() {
+    return this.cancelled;
+  }
+
+  /**
+   * Throws a {@link CancellationException} if the Kubernetes event
+   * being handled has been superseded.
+   *
+   * @exception CancellationException if the Kubernetes event being
+   * handled has been superseded
+   */
+  public final void throwIfCancelled() {
+    if (this.cancelled) {
+      throw new CancellationException();
+    }
+  }
+
+  final void cancel() {
+    this.cancelled = true;
+  }
+
+  @Override
+  public final String toString() {
+    return new StringBuilder(this.getClass().getSimpleName())
+      .append(" [cancelled=").append(this.cancelled)
+      .append("]")
+      .toString();
+  }
+
+}
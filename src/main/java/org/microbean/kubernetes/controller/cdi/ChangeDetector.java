@@ -0,0 +1,281 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.lang.reflect.Array;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+import io.fabric8.kubernetes.client.utils.Serialization;
+
+import org.microbean.kubernetes.controller.AbstractEvent;
+import org.microbean.kubernetes.controller.SynchronizationEvent;
+
+import org.microbean.kubernetes.controller.cdi.annotation.KubernetesEventSelector; // for javadoc only
+
+/**
+ * A detector of <em>significant</em> changes to Kubernetes resources
+ * that works by comparing cheap structural hashes of certain
+ * configurable paths within them.
+ *
+ * <p>Instances of this class remember the hash of the last
+ * significant state of every Kubernetes resource they have seen,
+ * indexed by {@linkplain AbstractEvent#getKey() key}, so that each
+ * event requires at most one resource to be hashed.</p>
+ *
+ * <p>Each significant path is followed through the Kubernetes model
+ * object itself, using the JSON property names Jackson would use, and
+ * only the value found at its end is converted to JSON and hashed.
+ * The cost of hashing a resource is therefore proportional to the
+ * size of its significant portions, not to its own size; the
+ * frequently large and frequently changing {@code status} and {@code
+ * metadata.managedFields} are never even visited unless they are
+ * significant.  A root path makes the entire resource significant,
+ * and so costs a full serialization per event.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see KubernetesEventSelector#suppressUnchangedModifications()
+ *
+ * @see KubernetesEventSelector#significantPaths()
+ */
+final class ChangeDetector {
+
+  private final ObjectMapper objectMapper;
+
+  private final List<String[]> significantPaths;
+
+  private final ConcurrentMap<Object, Long> hashes;
+
+  private final ConcurrentMap<Class<?>, Properties> properties;
+
+  /**
+   * Creates a new {@link ChangeDetector}.
+   *
+   * @param significantPaths the paths within a Kubernetes resource
+   * whose contents determine whether it has changed; may be {@code
+   * null} in which case the entire resource is significant
+   *
+   * @see JsonPaths#segments(String)
+   */
+  ChangeDetector(final String[] significantPaths) {
+    super();
+    this.objectMapper = Serialization.jsonMapper();
+    this.significantPaths = JsonPaths.segments(significantPaths);
+    if (this.significantPaths.isEmpty()) {
+      this.significantPaths.add(new String[0]);
+    }
+    this.hashes = new ConcurrentHashMap<>();
+    this.properties = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link AbstractEvent}
+   * represents a significant change and hence should be delivered.
+   *
+   * <p>Only non-{@linkplain SynchronizationEvent synchronization}
+   * {@linkplain AbstractEvent.Type#MODIFICATION modification} events
+   * can ever be considered insignificant.</p>
+   *
+   * @param event the {@link AbstractEvent} to test; must not be
+   * {@code null}
+   *
+   * @return {@code true} if the supplied {@link AbstractEvent}
+   * should be delivered; {@code false} if it should be suppressed
+   *
+   * @exception NullPointerException if {@code event} is {@code null}
+   */
+  final boolean isSignificant(final AbstractEvent<? extends HasMetadata> event) {
+    final boolean returnValue;
+    final Object key = event.getKey();
+    if (key == null) {
+      returnValue = true;
+    } else {
+      final AbstractEvent.Type type = event.getType();
+      assert type != null;
+      switch (type) {
+      case ADDITION:
+        if (!(event instanceof SynchronizationEvent)) {
+          this.hashes.put(key, Long.valueOf(this.hash(event.getResource())));
+        }
+        returnValue = true;
+        break;
+      case MODIFICATION:
+        if (event instanceof SynchronizationEvent) {
+          returnValue = true;
+        } else {
+          final long hash = this.hash(event.getResource());
+          Long priorHash = this.hashes.put(key, Long.valueOf(hash));
+          if (priorHash == null) {
+            final HasMetadata priorResource = event.getPriorResource();
+            if (priorResource != null) {
+              priorHash = Long.valueOf(this.hash(priorResource));
+            }
+          }
+          returnValue = priorHash == null || priorHash.longValue() != hash;
+        }
+        break;
+      case DELETION:
+        this.forget(key);
+        returnValue = true;
+        break;
+      default:
+        throw new IllegalStateException();
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Causes this {@link ChangeDetector} to forget anything it knows
+   * about the Kubernetes resource indexed under the supplied key.
+   *
+   * @param key the key; may be {@code null} in which case no action
+   * will be taken
+   */
+  final void forget(final Object key) {
+    if (key != null) {
+      this.hashes.remove(key);
+    }
+  }
+
+  private final long hash(final HasMetadata resource) {
+    long returnValue = 17L;
+    if (resource != null) {
+      for (final String[] significantPath : this.significantPaths) {
+        final Object value = this.navigate(resource, significantPath);
+        final JsonNode node = value == null ? null : this.objectMapper.valueToTree(value);
+        returnValue = returnValue * 31L + JsonPaths.hash(node);
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the part of the supplied Kubernetes model object found
+   * by following the supplied path segments, or {@code null} if
+   * there is no such part.
+   *
+   * <p>This is the model object equivalent of {@link
+   * JsonPaths#navigate(JsonNode, String[])}.</p>
+   *
+   * @param root the model object to start from; may be {@code null}
+   * in which case {@code null} will be returned
+   *
+   * @param segments the path segments to follow; must not be {@code
+   * null}
+   *
+   * @return the part of the model object at the end of the path, or
+   * {@code null}
+   */
+  private final Object navigate(final Object root, final String[] segments) {
+    Object value = root;
+    for (int i = 0; value != null && i < segments.length; i++) {
+      final String segment = segments[i];
+      if (value instanceof Map) {
+        value = ((Map<?, ?>)value).get(segment);
+      } else if (value instanceof List || value.getClass().isArray()) {
+        final int index;
+        try {
+          index = Integer.parseInt(segment);
+        } catch (final NumberFormatException numberFormatException) {
+          return null;
+        }
+        if (value instanceof List) {
+          final List<?> list = (List<?>)value;
+          value = index >= 0 && index < list.size() ? list.get(index) : null;
+        } else {
+          value = index >= 0 && index < Array.getLength(value) ? Array.get(value, index) : null;
+        }
+      } else if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean || value instanceof Enum) {
+        value = null;
+      } else {
+        value = this.properties.computeIfAbsent(value.getClass(), this::introspect).get(value, segment);
+      }
+    }
+    return value;
+  }
+
+  private final Properties introspect(final Class<?> c) {
+    final BeanDescription description = this.objectMapper.getSerializationConfig().introspect(this.objectMapper.constructType(c));
+    assert description != null;
+    final Map<String, AnnotatedMember> accessors = new HashMap<>();
+    for (final BeanPropertyDefinition property : description.findProperties()) {
+      final AnnotatedMember accessor = property.getAccessor();
+      if (accessor != null) {
+        accessors.put(property.getName(), accessor);
+      }
+    }
+    // Kubernetes model classes keep unknown properties in a Map
+    // exposed by a @JsonAnyGetter method.
+    return new Properties(accessors, description.findAnyGetter());
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * The accessors of the JSON properties of a Kubernetes model
+   * class.
+   */
+  private static final class Properties {
+
+    private final Map<String, AnnotatedMember> accessors;
+
+    private final AnnotatedMember anyGetter;
+
+    private Properties(final Map<String, AnnotatedMember> accessors, final AnnotatedMember anyGetter) {
+      super();
+      this.accessors = accessors;
+      this.anyGetter = anyGetter;
+    }
+
+    private final Object get(final Object bean, final String name) {
+      final Object returnValue;
+      final AnnotatedMember accessor = this.accessors.get(name);
+      if (accessor != null) {
+        returnValue = accessor.getValue(bean);
+      } else if (this.anyGetter != null) {
+        final Object any = this.anyGetter.getValue(bean);
+        returnValue = any instanceof Map ? ((Map<?, ?>)any).get(name) : null;
+      } else {
+        returnValue = null;
+      }
+      return returnValue;
+    }
+
+  }
+
+}
@@ -0,0 +1,165 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+/**
+ * A limit on the number of events in flight that adapts to observed
+ * observer latency by additive increase and multiplicative decrease
+ * (AIMD).
+ *
+ * <p>While observers are keeping up, and the limit is actually
+ * constraining dispatch, the limit grows by roughly one for every
+ * limit's worth of events completed.  When an observer fails, or
+ * takes more than twice as long as the <em>baseline</em> latency, the
+ * limit shrinks by ten percent.  The baseline follows the lowest
+ * latency observed, drifting slowly upwards so that it can recover
+ * if observers become inherently slower.</p>
+ *
+ * <p>As with TCP congestion control, the limit shrinks at most once
+ * per round trip: an event dispatched before the last decrease was
+ * already in flight when the limit shrank, so its failure or
+ * slowness is not held against the limit a second time.  A single
+ * latency spike across many events in flight therefore shrinks the
+ * limit by ten percent, not by ten percent per event.</p>
+ *
+ * <p>Instances of this class are <strong>not</strong> safe for
+ * concurrent use by multiple threads.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+final class ConcurrencyLimit {
+
+  private static final double BACKOFF = 0.9;
+
+  private static final double TOLERANCE = 2.0;
+
+  private static final double DRIFT = 0.01;
+
+  private final int min;
+
+  private final int max;
+
+  private double limit;
+
+  private double baseline;
+
+  private boolean decreased;
+
+  private long lastDecrease;
+
+  /**
+   * Creates a new fixed {@link ConcurrencyLimit}.
+   *
+   * @param limit the limit; must be greater than zero
+   *
+   * @exception IllegalArgumentException if {@code limit} is less than
+   * or equal to zero
+   */
+  ConcurrencyLimit(final int limit) {
+    this(limit, limit, limit);
+  }
+
+  /**
+   * Creates a new {@link ConcurrencyLimit}.
+   *
+   * @param initial the initial limit; must be between {@code min}
+   * and {@code max}, inclusive
+   *
+   * @param min the lowest the limit may fall to; must be greater than
+   * zero
+   *
+   * @param max the highest the limit may rise to; must not be less
+   * than {@code min}
+   *
+   * @exception IllegalArgumentException if any argument is out of
+   * range
+   */
+  ConcurrencyLimit(final int initial, final int min, final int max) {
+    super();
+    if (min <= 0) {
+      throw new IllegalArgumentException("min <= 0: " + min);
+    }
+    if (max < min) {
+      throw new IllegalArgumentException("max < min: " + max);
+    }
+    if (initial < min || initial > max) {
+      throw new IllegalArgumentException("initial < min || initial > max: " + initial);
+    }
+    this.min = min;
+    this.max = max;
+    this.limit = initial;
+  }
+
+  /**
+   * Returns the current limit.
+   *
+   * @return the current limit; always greater than zero
+   */
+  final int get() {
+    return (int)this.limit;
+  }
+
+  /**
+   * Adjusts the limit in light of the completion of an event.
+   *
+   * @param startNanos the {@linkplain System#nanoTime() time}, in
+   * nanoseconds, at which the event was dispatched
+   *
+   * @param endNanos the {@linkplain System#nanoTime() time}, in
+   * nanoseconds, at which observers finished handling the event
+   *
+   * @param failed whether an observer failed
+   *
+   * @param saturated whether the limit was reached while the event
+   * was in flight, so that the limit was actually constraining
+   * dispatch
+   */
+  final void update(final long startNanos, final long endNanos, final boolean failed, final boolean saturated) {
+    if (this.min == this.max) {
+      return;
+    }
+    final double latency = Math.max(1L, endNanos - startNanos);
+    if (this.baseline <= 0.0 || latency < this.baseline) {
+      this.baseline = latency;
+    } else {
+      this.baseline += DRIFT * (latency - this.baseline);
+    }
+    if (failed || latency > TOLERANCE * this.baseline) {
+      // Shrink only if this event was dispatched after the last
+      // decrease, i.e. at most once per round trip.
+      if (!this.decreased || startNanos - this.lastDecrease >= 0L) {
+        this.limit = Math.max(this.min, this.limit * BACKOFF);
+        this.decreased = true;
+        this.lastDecrease = endNanos;
+      }
+    } else if (saturated) {
+      this.limit = Math.min(this.max, this.limit + 1.0 / this.limit);
+    }
+  }
+
+  @Override
+  public final String toString() {
+    return new StringBuilder(this.getClass().getSimpleName())
+      .append(" [limit=").append(this.get())
+      .append(", min=").append(this.min)
+      .append(", max=").append(this.max)
+      .append("]")
+      .toString();
+  }
+
+}
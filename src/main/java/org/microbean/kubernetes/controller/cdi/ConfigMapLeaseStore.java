@@ -0,0 +1,278 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.io.IOException;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import java.util.regex.Pattern;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.ConfigMapList;
+import io.fabric8.kubernetes.api.model.DoneableConfigMap;
+
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+
+import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
+import io.fabric8.kubernetes.client.dsl.Resource;
+
+/**
+ * A {@link LeaseStore} that keeps each of its {@link Lease}s in the
+ * data of a Kubernetes {@link ConfigMap} of its own.
+ *
+ * <p>The {@link ConfigMap}s of a {@link ConfigMapLeaseStore} are
+ * named after the {@link ConfigMapLeaseStore} and the {@link Lease}s
+ * they hold, and are labeled {@value #LEASE_STORE_LABEL} with the
+ * {@link ConfigMapLeaseStore}'s name, so that they can all be listed
+ * at once.  Each {@link Lease} is stored under its name as a data
+ * entry consisting of its {@linkplain Lease#getRenewTime() renew
+ * time} and {@linkplain Lease#getDuration() duration} in
+ * milliseconds followed by its {@linkplain Lease#getHolder()
+ * holder}, separated by commas.  Updates are made conditional on the
+ * {@link ConfigMap}'s resource version.  Since no two {@link Lease}s
+ * share a {@link ConfigMap}, a conflicting update means that the
+ * {@link Lease} in question has itself changed, and replicas
+ * renewing different {@link Lease}s never contend with one another.
+ * {@link ConfigMap}s are created as needed, and a removed {@link
+ * Lease} leaves an empty {@link ConfigMap} behind.</p>
+ *
+ * <p>Kubernetes {@code Lease} resources are not used because the
+ * version of the Kubernetes client this project depends upon does not
+ * support them.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+public final class ConfigMapLeaseStore implements LeaseStore {
+
+  /**
+   * The label borne by every {@link ConfigMap} of a {@link
+   * ConfigMapLeaseStore}, whose value is the {@link
+   * ConfigMapLeaseStore}'s name.
+   */
+  public static final String LEASE_STORE_LABEL = "microbean.org/lease-store";
+
+  private static final Pattern NAME_PATTERN = Pattern.compile("[-._a-zA-Z0-9]+");
+
+  private static final Pattern LABEL_VALUE_PATTERN = Pattern.compile("[a-zA-Z0-9]([-._a-zA-Z0-9]{0,61}[a-zA-Z0-9])?");
+
+  private static final Pattern INVALID_CHARACTERS = Pattern.compile("[^-a-z0-9]");
+
+  private static final int MAX_NAME_LENGTH = 253;
+
+  private static final int CONFLICT = 409;
+
+  private final NonNamespaceOperation<ConfigMap, ConfigMapList, DoneableConfigMap, Resource<ConfigMap, DoneableConfigMap>> configMaps;
+
+  private final String namespace;
+
+  private final String name;
+
+  /**
+   * Creates a new {@link ConfigMapLeaseStore}.
+   *
+   * @param client the {@link KubernetesClient} to use; must not be
+   * {@code null}
+   *
+   * @param namespace the namespace of the {@link ConfigMap}s; may be
+   * {@code null} in which case the {@code client}'s namespace will be
+   * used
+   *
+   * @param name the name of this {@link ConfigMapLeaseStore}, which
+   * prefixes the names of its {@link ConfigMap}s; must not be {@code
+   * null}; must be a valid Kubernetes label value
+   *
+   * @exception NullPointerException if {@code client} or {@code
+   * name} is {@code null}
+   *
+   * @exception IllegalArgumentException if {@code name} is not a
+   * valid Kubernetes label value
+   */
+  public ConfigMapLeaseStore(final KubernetesClient client, final String namespace, final String name) {
+    super();
+    Objects.requireNonNull(client);
+    Objects.requireNonNull(name);
+    if (!LABEL_VALUE_PATTERN.matcher(name).matches()) {
+      throw new IllegalArgumentException("Invalid name: " + name);
+    }
+    this.namespace = namespace == null ? client.getNamespace() : namespace;
+    this.name = name;
+    this.configMaps = client.configMaps().inNamespace(this.namespace);
+  }
+
+  @Override
+  public final Map<String, Lease> getLeases() throws IOException {
+    final ConfigMapList list;
+    try {
+      list = this.configMaps.withLabel(LEASE_STORE_LABEL, this.name).list();
+    } catch (final KubernetesClientException kubernetesClientException) {
+      throw new IOException(kubernetesClientException.getMessage(), kubernetesClientException);
+    }
+    final List<ConfigMap> items = list == null ? null : list.getItems();
+    final Map<String, Lease> returnValue;
+    if (items == null || items.isEmpty()) {
+      returnValue = Collections.emptyMap();
+    } else {
+      final Map<String, Lease> leases = new HashMap<>();
+      for (final ConfigMap configMap : items) {
+        final Map<String, String> data = configMap == null ? null : configMap.getData();
+        if (data != null) {
+          for (final Map.Entry<String, String> entry : data.entrySet()) {
+            final Lease lease = decode(entry.getValue());
+            if (lease != null) {
+              leases.put(entry.getKey(), lease);
+            }
+          }
+        }
+      }
+      returnValue = Collections.unmodifiableMap(leases);
+    }
+    return returnValue;
+  }
+
+  @Override
+  public final boolean compareAndSet(final String name, final Lease expected, final Lease update) throws IOException {
+    Objects.requireNonNull(name);
+    if (!NAME_PATTERN.matcher(name).matches()) {
+      throw new IllegalArgumentException("Invalid lease name: " + name);
+    }
+    final String configMapName = this.getConfigMapName(name);
+    final Resource<ConfigMap, DoneableConfigMap> resource = this.configMaps.withName(configMapName);
+    final ConfigMap configMap;
+    try {
+      configMap = resource.get();
+    } catch (final KubernetesClientException kubernetesClientException) {
+      throw new IOException(kubernetesClientException.getMessage(), kubernetesClientException);
+    }
+    final Map<String, String> data;
+    if (configMap == null || configMap.getData() == null) {
+      data = new HashMap<>();
+    } else {
+      data = new HashMap<>(configMap.getData());
+    }
+    if (!Objects.equals(decode(data.get(name)), expected)) {
+      return false;
+    }
+    if (update == null) {
+      if (configMap == null) {
+        return true;
+      }
+      data.remove(name);
+    } else {
+      data.put(name, encode(update));
+    }
+    try {
+      if (configMap == null) {
+        resource.create(new ConfigMapBuilder()
+                        .withNewMetadata()
+                        .withNamespace(this.namespace)
+                        .withName(configMapName)
+                        .addToLabels(LEASE_STORE_LABEL, this.name)
+                        .endMetadata()
+                        .withData(data)
+                        .build());
+      } else {
+        resource.lockResourceVersion(configMap.getMetadata().getResourceVersion())
+          .replace(new ConfigMapBuilder(configMap).withData(data).build());
+      }
+    } catch (final KubernetesClientException kubernetesClientException) {
+      if (kubernetesClientException.getCode() == CONFLICT) {
+        // Only this Lease is stored in the ConfigMap, so it has been
+        // changed by another replica.
+        return false;
+      }
+      throw new IOException(kubernetesClientException.getMessage(), kubernetesClientException);
+    }
+    return true;
+  }
+
+  /**
+   * Returns the name of the {@link ConfigMap} holding the {@link
+   * Lease} with the supplied name.
+   *
+   * <p>Characters not allowed in {@link ConfigMap} names are replaced
+   * by hyphens.  If anything had to be replaced or truncated, the
+   * {@link String#hashCode() hash code} of the {@link Lease} name is
+   * appended, so that {@link Lease} names differing only in such
+   * characters are still likely to be kept apart; if they are not,
+   * they merely share a {@link ConfigMap}.</p>
+   */
+  private final String getConfigMapName(final String leaseName) {
+    final String suffix = "-" + Integer.toHexString(leaseName.hashCode());
+    String sanitized = INVALID_CHARACTERS.matcher(leaseName.toLowerCase(Locale.ROOT)).replaceAll("-");
+    final boolean changed = !sanitized.equals(leaseName) || sanitized.endsWith("-");
+    final int maxLength = MAX_NAME_LENGTH - this.name.length() - 1 - suffix.length();
+    final StringBuilder sb = new StringBuilder(this.name).append('-');
+    if (changed || sanitized.length() > maxLength) {
+      if (sanitized.length() > maxLength) {
+        sanitized = sanitized.substring(0, maxLength);
+      }
+      sb.append(sanitized).append(suffix);
+    } else {
+      sb.append(sanitized);
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public final String toString() {
+    return new StringBuilder(this.getClass().getSimpleName())
+      .append(" [namespace=").append(this.namespace)
+      .append(", name=").append(this.name)
+      .append("]")
+      .toString();
+  }
+
+  private static final String encode(final Lease lease) {
+    assert lease != null;
+    return new StringBuilder()
+      .append(lease.getRenewTime().toEpochMilli()).append(",")
+      .append(lease.getDuration().toMillis()).append(",")
+      .append(lease.getHolder())
+      .toString();
+  }
+
+  private static final Lease decode(final String value) {
+    Lease returnValue = null;
+    if (value != null) {
+      final String[] fields = value.split(",", 3);
+      if (fields.length == 3) {
+        try {
+          returnValue = new Lease(fields[2],
+                                  Instant.ofEpochMilli(Long.parseLong(fields[0])),
+                                  Duration.ofMillis(Long.parseLong(fields[1])));
+        } catch (final NumberFormatException numberFormatException) {
+          // Not a lease; ignore it.
+          returnValue = null;
+        }
+      }
+    }
+    return returnValue;
+  }
+
+}
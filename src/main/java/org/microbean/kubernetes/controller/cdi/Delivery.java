@@ -0,0 +1,264 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.lang.annotation.Annotation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import java.util.function.BooleanSupplier;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+/**
+ * A record of the delivery of a single Kubernetes resource as a CDI
+ * event to all interested observer methods.
+ *
+ * <p>A {@link Delivery} is created for every Kubernetes event that is
+ * fired, and holds state that is shared by all observer methods,
+ * synchronous and asynchronous, notified of it.</p>
+ *
+ * <p>The same Kubernetes resource may be fired by several event
+ * selectors at once, or fired again before observer methods are done
+ * with it, so a {@link Delivery} is identified not by its Kubernetes
+ * resource alone but also by the {@linkplain #getQualifiers()
+ * qualifiers} with which it was fired.</p>
+ *
+ * @param <T> a type that extends {@link HasMetadata}; e.g. a
+ * Kubernetes resource type
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+final class Delivery<T extends HasMetadata> {
+
+  private final ResourceDiff<T> diff;
+
+  private final Set<Annotation> qualifiers;
+
+  private final BooleanSupplier staleness;
+
+  private volatile Boolean stale;
+
+  private final Cancellation cancellation;
+
+  // Guarded by itself.
+  private final List<CompletableFuture<?>> stages;
+
+  /**
+   * Creates a new {@link Delivery}.
+   *
+   * @param resource the Kubernetes resource being delivered; must not
+   * be {@code null}
+   *
+   * @param prior the {@link Optional} prior state of the Kubernetes
+   * resource; must not be {@code null}
+   *
+   * @exception NullPointerException if either parameter is {@code
+   * null}
+   */
+  Delivery(final T resource, final Optional<T> prior) {
+    this(resource, prior, null, null);
+  }
+
+  /**
+   * Creates a new {@link Delivery}.
+   *
+   * @param resource the Kubernetes resource being delivered; must not
+   * be {@code null}
+   *
+   * @param prior the {@link Optional} prior state of the Kubernetes
+   * resource; must not be {@code null}
+   *
+   * @param qualifiers the qualifiers with which the Kubernetes
+   * resource is fired as a CDI event; may be {@code null}
+   *
+   * @param staleness a {@link BooleanSupplier} that determines
+   * whether the Kubernetes resource being delivered has since been
+   * superseded; invoked at most once; may be {@code null} if the
+   * Kubernetes resource is never superseded
+   *
+   * @exception NullPointerException if {@code resource} or {@code
+   * prior} is {@code null}
+   *
+   * @see #isStale()
+   */
+  Delivery(final T resource, final Optional<T> prior, final Annotation[] qualifiers, final BooleanSupplier staleness) {
+    super();
+    this.diff = new ResourceDiff<>(resource, prior);
+    if (qualifiers == null || qualifiers.length <= 0) {
+      this.qualifiers = Collections.emptySet();
+    } else {
+      this.qualifiers = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(qualifiers)));
+    }
+    this.staleness = staleness;
+    this.cancellation = new Cancellation();
+    this.stages = new ArrayList<>(1);
+  }
+
+  /**
+   * Returns the Kubernetes resource being delivered.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} Kubernetes resource being delivered
+   */
+  final T getResource() {
+    return this.diff.getResource();
+  }
+
+  /**
+   * Returns the qualifiers with which the Kubernetes resource being
+   * delivered is fired as a CDI event.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link Set} of
+   * qualifiers
+   */
+  final Set<Annotation> getQualifiers() {
+    return this.qualifiers;
+  }
+
+  /**
+   * Returns the {@link Optional} prior state of the Kubernetes
+   * resource being delivered.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} {@link Optional} prior state of the
+   * Kubernetes resource being delivered
+   */
+  final Optional<T> getPrior() {
+    return this.diff.getPrior();
+  }
+
+  /**
+   * Returns the {@link ResourceDiff} describing how the Kubernetes
+   * resource being delivered differs from its prior state.
+   *
+   * <p>This method never returns {@code null}.  The {@link
+   * ResourceDiff} returned computes its contents lazily.</p>
+   *
+   * @return a non-{@code null} {@link ResourceDiff}
+   */
+  final ResourceDiff<T> getDiff() {
+    return this.diff;
+  }
+
+  /**
+   * Returns the {@link Cancellation} that signals that this {@link
+   * Delivery} has been superseded.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null} {@link Cancellation}
+   */
+  final Cancellation getCancellation() {
+    return this.cancellation;
+  }
+
+  /**
+   * Records a {@link CompletionStage} returned by an observer method
+   * notified of this {@link Delivery}, which is not complete until
+   * the {@link CompletionStage} is.
+   *
+   * @param stage the {@link CompletionStage}; may be {@code null} in
+   * which case no action will be taken
+   *
+   * @see #whenObserved()
+   */
+  final void addStage(final CompletionStage<?> stage) {
+    if (stage != null) {
+      // CompletionStage#toCompletableFuture() is optional.
+      final CompletableFuture<Object> future = new CompletableFuture<>();
+      stage.whenComplete((result, throwable) -> {
+          if (throwable == null) {
+            future.complete(result);
+          } else {
+            future.completeExceptionally(throwable);
+          }
+        });
+      synchronized (this.stages) {
+        this.stages.add(future);
+      }
+    }
+  }
+
+  /**
+   * Returns a {@link CompletionStage} that completes once every
+   * {@link CompletionStage} {@linkplain #addStage(CompletionStage)
+   * recorded} so far has completed, or {@code null} if none has been
+   * recorded.
+   *
+   * <p>The {@link CompletionStage} returned completes exceptionally
+   * if any recorded {@link CompletionStage} did.</p>
+   *
+   * @return a {@link CompletionStage}, or {@code null}
+   */
+  final CompletionStage<?> whenObserved() {
+    final CompletableFuture<?>[] stages;
+    synchronized (this.stages) {
+      if (this.stages.isEmpty()) {
+        return null;
+      }
+      stages = this.stages.toArray(new CompletableFuture<?>[this.stages.size()]);
+    }
+    return CompletableFuture.allOf(stages);
+  }
+
+  /**
+   * Returns {@code true} if the Kubernetes resource being delivered
+   * has been superseded by a newer state that will itself be
+   * delivered, so that notifying observer methods of it would be
+   * wasted work.
+   *
+   * <p>This is determined once, when this method is first invoked
+   * by the first observer method to be notified, so that all
+   * observer methods notified of this {@link Delivery} are either
+   * notified or skipped together.</p>
+   *
+   * @return {@code true} if the Kubernetes resource being delivered
+   * is stale; {@code false} otherwise
+   */
+  final boolean isStale() {
+    if (this.staleness == null) {
+      return false;
+    }
+    Boolean stale = this.stale;
+    if (stale == null) {
+      synchronized (this) {
+        stale = this.stale;
+        if (stale == null) {
+          stale = Boolean.valueOf(this.staleness.getAsBoolean());
+          this.stale = stale;
+        }
+      }
+    }
+    return stale.booleanValue();
+  }
+
+}
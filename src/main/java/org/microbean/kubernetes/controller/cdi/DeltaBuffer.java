@@ -0,0 +1,175 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.time.Duration;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * A buffer that remembers, for each key, only the most recent element
+ * put under it, and forgets elements older than a given window unless
+ * they must be retained.
+ *
+ * <p>Elements are {@linkplain #drain() drained} in the order in which
+ * they were last put, so the relative order of the latest changes to
+ * different keys is preserved.  Whether any element has been
+ * forgotten since the last drain is reported by {@link
+ * #hasOverflowed()}.</p>
+ *
+ * <p>Instances of this class are <strong>not</strong> safe for
+ * concurrent use by multiple threads.</p>
+ *
+ * @param <E> the type of element buffered
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Leadership
+ */
+final class DeltaBuffer<E> {
+
+  private final long windowNanos;
+
+  private final Predicate<? super E> retained;
+
+  private final LongSupplier nanoTime;
+
+  private final LinkedHashMap<Object, Entry<E>> entries;
+
+  private boolean overflowed;
+
+  /**
+   * Creates a new {@link DeltaBuffer}.
+   *
+   * @param window the {@link Duration} for which elements are
+   * remembered; must not be {@code null}
+   *
+   * @param retained a {@link Predicate} that returns {@code true} for
+   * elements that must be remembered however old they are; must not
+   * be {@code null}
+   *
+   * @exception NullPointerException if either argument is {@code
+   * null}
+   */
+  DeltaBuffer(final Duration window, final Predicate<? super E> retained) {
+    this(window, retained, System::nanoTime);
+  }
+
+  DeltaBuffer(final Duration window, final Predicate<? super E> retained, final LongSupplier nanoTime) {
+    super();
+    this.windowNanos = window.toNanos();
+    this.retained = Objects.requireNonNull(retained);
+    this.nanoTime = Objects.requireNonNull(nanoTime);
+    this.entries = new LinkedHashMap<>();
+  }
+
+  /**
+   * Puts the supplied element under the supplied key, replacing any
+   * element already there.
+   *
+   * @param key the key; may be {@code null}
+   *
+   * @param element the element; may be {@code null}
+   */
+  final void put(final Object key, final E element) {
+    final long now = this.nanoTime.getAsLong();
+    this.entries.remove(key);
+    this.entries.put(key, new Entry<>(element, now));
+    this.prune(now);
+  }
+
+  /**
+   * Returns {@code true} if this {@link DeltaBuffer} holds no
+   * elements.
+   *
+   * @return {@code true} if this {@link DeltaBuffer} is empty; {@code
+   * false} otherwise
+   */
+  final boolean isEmpty() {
+    return this.entries.isEmpty();
+  }
+
+  /**
+   * Returns {@code true} if any element has been forgotten because it
+   * was older than the window since this {@link DeltaBuffer} was last
+   * {@linkplain #drain() drained}.
+   *
+   * @return {@code true} if elements have been forgotten; {@code
+   * false} otherwise
+   */
+  final boolean hasOverflowed() {
+    this.prune(this.nanoTime.getAsLong());
+    return this.overflowed;
+  }
+
+  /**
+   * Removes and returns all elements put within the window, and all
+   * elements that must be retained, in the order in which they were
+   * last put.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null} {@link List} of elements
+   */
+  final List<E> drain() {
+    this.prune(this.nanoTime.getAsLong());
+    final List<E> returnValue = new ArrayList<>(this.entries.size());
+    for (final Entry<E> entry : this.entries.values()) {
+      returnValue.add(entry.element);
+    }
+    this.entries.clear();
+    this.overflowed = false;
+    return returnValue;
+  }
+
+  private final void prune(final long now) {
+    final Iterator<Entry<E>> iterator = this.entries.values().iterator();
+    while (iterator.hasNext()) {
+      final Entry<E> entry = iterator.next();
+      if (now - entry.time <= this.windowNanos) {
+        // Entries are in time order, so the rest are younger.
+        break;
+      } else if (!this.retained.test(entry.element)) {
+        iterator.remove();
+        this.overflowed = true;
+      }
+    }
+  }
+
+  private static final class Entry<E> {
+
+    private final E element;
+
+    private final long time;
+
+    private Entry(final E element, final long time) {
+      super();
+      this.element = element;
+      this.time = time;
+    }
+
+  }
+
+}
@@ -0,0 +1,52 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+/**
+ * A lane of prioritized event dispatch.
+ *
+ * <p>When prioritized dispatch is enabled, events waiting to be fired
+ * are queued in one of these lanes, and events in an earlier lane are
+ * fired before events in a later one, subject to a guard against
+ * starving the later lanes.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see EventSelectorMetrics#getMeanDispatchLatency(DispatchLane)
+ */
+public enum DispatchLane {
+
+  /**
+   * The lane for deletions, and for any events concerning a
+   * Kubernetes resource that are queued together with its deletion.
+   */
+  DELETION,
+
+  /**
+   * The lane for additions and modifications that are not the result
+   * of synchronization.
+   */
+  CHANGE,
+
+  /**
+   * The lane for events that are the result of synchronization,
+   * including the initial listing of Kubernetes resources.
+   */
+  SYNCHRONIZATION;
+
+}
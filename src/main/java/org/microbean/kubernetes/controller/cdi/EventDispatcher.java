@@ -0,0 +1,648 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.io.Closeable;
+
+import java.time.Duration;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+
+import java.util.concurrent.CompletionStage;
+
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A pool of threads that dispatches queued events by priority.
+ *
+ * <p>Each consumer of events {@linkplain #register(Function,
+ * EventSelectorMetrics, boolean, int) registers} a {@link DispatchQueue}
+ * that holds its events in {@linkplain DispatchLane lanes}.  Events
+ * in an earlier lane are dispatched before events in a later one,
+ * unless an event in a later lane has waited longer than the
+ * <em>starvation threshold</em>, in which case the event that has
+ * waited longest is dispatched first.</p>
+ *
+ * <p>{@link DispatchQueue}s with events ready to dispatch are served
+ * by <a href="https://en.wikipedia.org/wiki/Stride_scheduling">stride
+ * scheduling</a>, a form of weighted fair queuing: each dispatch
+ * advances a {@link DispatchQueue}'s <em>virtual time</em> by the
+ * inverse of its weight, and the {@link DispatchQueue} with the
+ * earliest virtual time is served next.  A {@link DispatchQueue} that
+ * becomes ready after being idle starts at the current virtual time,
+ * so idleness earns no credit.</p>
+ *
+ * <p>A {@link DispatchQueue} may have a <em>target latency</em>, in
+ * which case each change submitted to it has a deadline that
+ * long after its arrival.  Ready {@link DispatchQueue}s with pending
+ * deadlines are served earliest deadline first, ahead of those
+ * served by weight.  Synchronization events have no deadline.</p>
+ *
+ * <p>Each {@link DispatchQueue} may have a certain number of events in
+ * flight at once.  If the maximum concurrency exceeds the initial
+ * concurrency, that number is a {@link ConcurrencyLimit} that adapts
+ * to the time its consumer takes to handle events.</p>
+ *
+ * <p>Events concerning the same Kubernetes resource are dispatched in
+ * the order they were submitted, and never concurrently.  A queued
+ * synchronization event is discarded when a change to the same
+ * Kubernetes resource is submitted, and changes queued ahead of a
+ * deletion are moved into the {@linkplain DispatchLane#DELETION
+ * deletion lane} with it.</p>
+ *
+ * <p>Instances of this class are safe for concurrent use by multiple
+ * threads.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see DispatchLane
+ */
+final class EventDispatcher implements Closeable {
+
+  private static final long NO_DEADLINE = Long.MIN_VALUE;
+
+  private static final Comparator<DispatchQueue<?>> READY_ORDER =
+    Comparator.<DispatchQueue<?>>comparingDouble(q -> q.virtualTime).thenComparingLong(q -> q.sequence);
+
+  private final int concurrency;
+
+  private final int maxConcurrency;
+
+  private final long starvationNanos;
+
+  private final LongSupplier nanoTime;
+
+  private final Logger logger;
+
+  // Also the monitor guarding all DispatchQueue state.
+  private final Queue<DispatchQueue<?>> ready;
+
+  private final Collection<Thread> workers;
+
+  // DispatchQueues with target latencies.  Guarded by this.ready.
+  private final Collection<DispatchQueue<?>> deadlineQueues;
+
+  // Guarded by this.ready.
+  private boolean closed;
+
+  // The virtual time of the DispatchQueue most recently served.
+  // Guarded by this.ready.
+  private double virtualTime;
+
+  // Guarded by this.ready.
+  private long sequence;
+
+  /**
+   * Creates a new {@link EventDispatcher}.
+   *
+   * @param concurrency the number of events from any one {@link
+   * DispatchQueue} that may initially be in flight at once, unless it
+   * was registered as serial; must be greater than zero
+   *
+   * @param maxConcurrency the number of events from any one {@link
+   * DispatchQueue} that may ever be in flight at once; if it is
+   * greater than {@code concurrency}, the number adapts between one
+   * and this value; must not be less than {@code concurrency}
+   *
+   * @param starvationThreshold the {@link Duration} after which an
+   * event in a later {@link DispatchLane} is dispatched ahead of
+   * events in earlier ones; must not be {@code null}
+   *
+   * @exception NullPointerException if {@code starvationThreshold} is
+   * {@code null}
+   *
+   * @exception IllegalArgumentException if {@code concurrency} is
+   * less than or equal to zero, or if {@code maxConcurrency} is less
+   * than {@code concurrency}
+   */
+  EventDispatcher(final int concurrency, final int maxConcurrency, final Duration starvationThreshold) {
+    this(concurrency, maxConcurrency, starvationThreshold, System::nanoTime);
+  }
+
+  EventDispatcher(final int concurrency, final int maxConcurrency, final Duration starvationThreshold, final LongSupplier nanoTime) {
+    super();
+    if (concurrency <= 0) {
+      throw new IllegalArgumentException("concurrency <= 0: " + concurrency);
+    }
+    if (maxConcurrency < concurrency) {
+      throw new IllegalArgumentException("maxConcurrency < concurrency: " + maxConcurrency);
+    }
+    this.logger = Logger.getLogger(this.getClass().getName());
+    this.concurrency = concurrency;
+    this.maxConcurrency = maxConcurrency;
+    this.starvationNanos = starvationThreshold.toNanos();
+    this.nanoTime = Objects.requireNonNull(nanoTime);
+    this.ready = new PriorityQueue<>(READY_ORDER);
+    this.workers = new ArrayList<>();
+    this.deadlineQueues = new ArrayList<>();
+  }
+
+  /**
+   * Starts the supplied number of daemon threads, each of which
+   * dispatches events until this {@link EventDispatcher} is
+   * {@linkplain #close() closed}.
+   *
+   * @param threads the number of threads to start; must be greater
+   * than zero
+   *
+   * @exception IllegalArgumentException if {@code threads} is less
+   * than or equal to zero
+   *
+   * @exception IllegalStateException if this {@link EventDispatcher}
+   * is closed
+   */
+  final void start(final int threads) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("threads <= 0: " + threads);
+    }
+    synchronized (this.ready) {
+      if (this.closed) {
+        throw new IllegalStateException("closed");
+      }
+      for (int i = 0; i < threads; i++) {
+        final Thread worker = new Thread(this::work, "kubernetes-event-dispatcher-" + this.workers.size());
+        worker.setDaemon(true);
+        this.workers.add(worker);
+        worker.start();
+      }
+    }
+  }
+
+  /**
+   * Registers a consumer of events and returns a new {@link
+   * DispatchQueue} to which events for it may be {@linkplain
+   * DispatchQueue#submit(Object, Object, DispatchLane) submitted}.
+   *
+   * @param <E> the type of event
+   *
+   * @param consumer the {@link Function} to which events are
+   * dispatched; it may return a {@link CompletionStage} that
+   * completes when the event has been fully handled, or {@code null}
+   * if it was handled before the {@link Function} returned; must not
+   * be {@code null}
+   *
+   * @param metrics the {@link EventSelectorMetrics} recording dispatch
+   * latencies and concurrency limits; must not be {@code null}
+   *
+   * @param serial whether at most one event from the new {@link
+   * DispatchQueue} may be in flight at a time
+   *
+   * @param weight the share of dispatch capacity the new {@link
+   * DispatchQueue} receives relative to others; must be greater than
+   * zero
+   *
+   * @param targetLatency the time after its arrival by which each
+   * change should have been handled; may be {@code null} if there is
+   * no such target
+   *
+   * @return a new {@link DispatchQueue}; never {@code null}
+   *
+   * @exception NullPointerException if {@code consumer} or {@code
+   * metrics} is {@code null}
+   *
+   * @exception IllegalArgumentException if {@code weight} is less
+   * than or equal to zero
+   */
+  final <E> DispatchQueue<E> register(final Function<? super E, ? extends CompletionStage<?>> consumer,
+                                      final EventSelectorMetrics metrics,
+                                      final boolean serial,
+                                      final int weight,
+                                      final Duration targetLatency) {
+    if (weight <= 0) {
+      throw new IllegalArgumentException("weight <= 0: " + weight);
+    }
+    final ConcurrencyLimit limit;
+    if (serial) {
+      limit = new ConcurrencyLimit(1);
+    } else if (this.maxConcurrency > this.concurrency) {
+      limit = new ConcurrencyLimit(this.concurrency, 1, this.maxConcurrency);
+    } else {
+      limit = new ConcurrencyLimit(this.concurrency);
+    }
+    final DispatchQueue<E> returnValue =
+      new DispatchQueue<>(consumer, metrics, limit, weight, targetLatency == null ? -1L : targetLatency.toNanos());
+    if (targetLatency != null) {
+      synchronized (this.ready) {
+        this.deadlineQueues.add(returnValue);
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Stops dispatching events.  Events already being dispatched are
+   * unaffected; events still queued are discarded.
+   */
+  @Override
+  public final void close() {
+    synchronized (this.ready) {
+      this.closed = true;
+      this.ready.clear();
+      this.ready.notifyAll();
+    }
+  }
+
+  private final void work() {
+    while (true) {
+      final Runnable dispatch;
+      synchronized (this.ready) {
+        Runnable next = null;
+        while (!this.closed && (next = this.poll()) == null) {
+          try {
+            this.ready.wait();
+          } catch (final InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+        if (this.closed) {
+          return;
+        }
+        dispatch = next;
+      }
+      dispatch.run();
+    }
+  }
+
+  /**
+   * Removes the next event due to be dispatched from its {@link
+   * DispatchQueue} and returns a {@link Runnable} that will dispatch
+   * it, or returns {@code null} if no event can be dispatched right
+   * now.
+   *
+   * @return a {@link Runnable} dispatching an event, or {@code null}
+   */
+  final Runnable poll() {
+    synchronized (this.ready) {
+      final long now = this.nanoTime.getAsLong();
+      while (true) {
+        DispatchQueue<?> queue = this.earliestDeadline();
+        if (queue == null) {
+          queue = this.ready.poll();
+          if (queue == null) {
+            return null;
+          }
+          this.virtualTime = queue.virtualTime;
+        } else {
+          this.ready.remove(queue);
+        }
+        queue.scheduled = false;
+        final Runnable returnValue = queue.take(now);
+        if (returnValue != null) {
+          queue.virtualTime += 1.0 / queue.weight;
+          queue.schedule();
+          return returnValue;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the ready {@link DispatchQueue} with the earliest pending
+   * deadline, or {@code null} if there is none.
+   */
+  private final DispatchQueue<?> earliestDeadline() {
+    assert Thread.holdsLock(this.ready);
+    DispatchQueue<?> returnValue = null;
+    long earliest = 0L;
+    for (final DispatchQueue<?> queue : this.deadlineQueues) {
+      if (queue.scheduled) {
+        final Long deadline = queue.earliestDeadline();
+        if (deadline != null && (returnValue == null || deadline.longValue() - earliest < 0L)) {
+          returnValue = queue;
+          earliest = deadline.longValue();
+        }
+      }
+    }
+    return returnValue;
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * A queue of events awaiting dispatch to a particular consumer.
+   *
+   * @param <E> the type of event
+   *
+   * @see EventDispatcher#register(Function, EventSelectorMetrics,
+   * boolean, int)
+   */
+  final class DispatchQueue<E> {
+
+    private final Function<? super E, ? extends CompletionStage<?>> consumer;
+
+    private final EventSelectorMetrics metrics;
+
+    private final Map<DispatchLane, Deque<Entry<E>>> lanes;
+
+    private final Map<Object, Deque<Entry<E>>> entriesByKey;
+
+    private final Set<Object> inFlightKeys;
+
+    private final int weight;
+
+    private final long targetLatency;
+
+    // All remaining fields are guarded by EventDispatcher.this.ready.
+
+    private final ConcurrencyLimit limit;
+
+    private boolean scheduled;
+
+    private int inFlight;
+
+    private double virtualTime;
+
+    private long sequence;
+
+    private DispatchQueue(final Function<? super E, ? extends CompletionStage<?>> consumer,
+                          final EventSelectorMetrics metrics,
+                          final ConcurrencyLimit limit,
+                          final int weight,
+                          final long targetLatency) {
+      super();
+      this.weight = weight;
+      this.targetLatency = targetLatency;
+      this.consumer = Objects.requireNonNull(consumer);
+      this.metrics = Objects.requireNonNull(metrics);
+      this.limit = Objects.requireNonNull(limit);
+      metrics.setDispatchConcurrencyLimit(limit.get());
+      this.lanes = new EnumMap<>(DispatchLane.class);
+      for (final DispatchLane lane : DispatchLane.values()) {
+        this.lanes.put(lane, new ArrayDeque<>());
+      }
+      this.entriesByKey = new HashMap<>();
+      this.inFlightKeys = new HashSet<>();
+    }
+
+    /**
+     * Queues the supplied event for dispatch.
+     *
+     * @param key the key of the Kubernetes resource the event
+     * concerns; may be {@code null}
+     *
+     * @param event the event; may be {@code null}
+     *
+     * @param lane the {@link DispatchLane} the event belongs to; must
+     * not be {@code null}
+     *
+     * @param arrival the time, in nanoseconds on the clock of the
+     * enclosing {@link EventDispatcher}, at which the event arrived
+     *
+     * @exception NullPointerException if {@code lane} is {@code null}
+     */
+    final void submit(final Object key, final E event, final DispatchLane lane, final long arrival) {
+      Objects.requireNonNull(lane);
+      synchronized (EventDispatcher.this.ready) {
+        if (EventDispatcher.this.closed) {
+          return;
+        }
+        final Deque<Entry<E>> queued = this.entriesByKey.computeIfAbsent(key, k -> new ArrayDeque<>());
+        final Entry<E> last = queued.peekLast();
+        DispatchLane target = lane;
+        if (lane == DispatchLane.SYNCHRONIZATION) {
+          if (last != null) {
+            if (last.lane == DispatchLane.SYNCHRONIZATION) {
+              // A newer synchronization event simply replaces an
+              // older one.
+              last.event = event;
+            }
+            // Otherwise a change to the same Kubernetes resource is
+            // already queued and the synchronization event is
+            // redundant.
+            return;
+          }
+        } else if (last != null) {
+          final Iterator<Entry<E>> iterator = queued.iterator();
+          final Collection<Entry<E>> moved = new ArrayList<>();
+          while (iterator.hasNext()) {
+            final Entry<E> entry = iterator.next();
+            if (entry.lane == DispatchLane.SYNCHRONIZATION) {
+              // A queued synchronization event is stale now.
+              entry.cancelled = true;
+              iterator.remove();
+            } else if (entry.lane == DispatchLane.DELETION) {
+              target = DispatchLane.DELETION;
+            } else if (lane == DispatchLane.DELETION) {
+              // Earlier changes accompany the deletion so that they
+              // are not overtaken by it.
+              entry.cancelled = true;
+              iterator.remove();
+              moved.add(entry);
+            }
+          }
+          for (final Entry<E> entry : moved) {
+            this.enqueue(new Entry<>(key, entry.event, DispatchLane.DELETION, entry.arrival, entry.deadline), queued);
+          }
+        }
+        final long deadline;
+        if (this.targetLatency < 0L || target == DispatchLane.SYNCHRONIZATION) {
+          deadline = NO_DEADLINE;
+        } else {
+          deadline = arrival + this.targetLatency;
+        }
+        this.enqueue(new Entry<>(key, event, target, arrival, deadline), queued);
+        this.schedule();
+      }
+    }
+
+    private final void enqueue(final Entry<E> entry, final Deque<Entry<E>> queued) {
+      assert Thread.holdsLock(EventDispatcher.this.ready);
+      this.lanes.get(entry.lane).add(entry);
+      queued.add(entry);
+    }
+
+    /**
+     * Makes this {@link DispatchQueue} eligible to be served, if it
+     * is not already and it may have events to dispatch.
+     */
+    private final void schedule() {
+      assert Thread.holdsLock(EventDispatcher.this.ready);
+      if (!this.scheduled && this.inFlight < this.limit.get() && !this.entriesByKey.isEmpty()) {
+        this.scheduled = true;
+        this.virtualTime = Math.max(this.virtualTime, EventDispatcher.this.virtualTime);
+        this.sequence = EventDispatcher.this.sequence++;
+        EventDispatcher.this.ready.add(this);
+        EventDispatcher.this.ready.notify();
+      }
+    }
+
+    /**
+     * Removes the event due to be dispatched next and returns a
+     * {@link Runnable} that will dispatch it, or returns {@code null}
+     * if none can be dispatched right now.
+     */
+    private final Runnable take(final long now) {
+      assert Thread.holdsLock(EventDispatcher.this.ready);
+      if (this.inFlight >= this.limit.get()) {
+        return null;
+      }
+      Entry<E> next = null;
+      Entry<E> starving = null;
+      for (final DispatchLane lane : DispatchLane.values()) {
+        final Entry<E> candidate = this.candidate(this.lanes.get(lane));
+        if (candidate != null) {
+          if (next == null) {
+            next = candidate;
+          }
+          if (now - candidate.arrival > EventDispatcher.this.starvationNanos &&
+              (starving == null || candidate.arrival < starving.arrival)) {
+            starving = candidate;
+          }
+        }
+      }
+      final Entry<E> entry = starving == null ? next : starving;
+      if (entry == null) {
+        return null;
+      }
+      entry.cancelled = true;
+      final Deque<Entry<E>> queued = this.entriesByKey.get(entry.key);
+      assert queued != null;
+      queued.remove(entry);
+      if (queued.isEmpty()) {
+        this.entriesByKey.remove(entry.key);
+      }
+      this.inFlightKeys.add(entry.key);
+      this.inFlight++;
+      this.metrics.recordDispatchLatency(entry.lane, now - entry.arrival);
+      return () -> this.dispatch(entry);
+    }
+
+    /**
+     * Returns the earliest deadline of any event that could be
+     * dispatched right now, or {@code null} if there is none.
+     */
+    private final Long earliestDeadline() {
+      assert Thread.holdsLock(EventDispatcher.this.ready);
+      Long returnValue = null;
+      for (final DispatchLane lane : DispatchLane.values()) {
+        final Entry<E> candidate = this.candidate(this.lanes.get(lane));
+        if (candidate != null && candidate.deadline != NO_DEADLINE &&
+            (returnValue == null || candidate.deadline - returnValue.longValue() < 0L)) {
+          returnValue = Long.valueOf(candidate.deadline);
+        }
+      }
+      return returnValue;
+    }
+
+    private final Entry<E> candidate(final Deque<Entry<E>> lane) {
+      assert Thread.holdsLock(EventDispatcher.this.ready);
+      Entry<E> head;
+      while ((head = lane.peek()) != null && head.cancelled) {
+        lane.poll();
+      }
+      for (final Entry<E> entry : lane) {
+        if (!entry.cancelled && !this.inFlightKeys.contains(entry.key)) {
+          return entry;
+        }
+      }
+      return null;
+    }
+
+    private final void dispatch(final Entry<E> entry) {
+      final long start = EventDispatcher.this.nanoTime.getAsLong();
+      CompletionStage<?> stage = null;
+      boolean failed = false;
+      try {
+        stage = this.consumer.apply(entry.event);
+      } catch (final RuntimeException runtimeException) {
+        failed = true;
+        final Logger logger = EventDispatcher.this.logger;
+        if (logger.isLoggable(Level.SEVERE)) {
+          logger.logp(Level.SEVERE, this.getClass().getName(), "dispatch", runtimeException.getMessage(), runtimeException);
+        }
+      }
+      if (stage == null) {
+        this.complete(entry, start, failed);
+      } else {
+        stage.whenComplete((result, throwable) -> this.complete(entry, start, throwable != null));
+      }
+    }
+
+    private final void complete(final Entry<E> entry, final long start, final boolean failed) {
+      final long now = EventDispatcher.this.nanoTime.getAsLong();
+      final long latency = now - start;
+      this.metrics.recordObserverLatency(latency);
+      if (entry.deadline != NO_DEADLINE) {
+        this.metrics.recordTargetLatency(now - entry.deadline > 0L);
+      }
+      synchronized (EventDispatcher.this.ready) {
+        // The limit constrained dispatch if it was reached while
+        // events were waiting.
+        final boolean saturated = this.inFlight >= this.limit.get() && !this.entriesByKey.isEmpty();
+        this.limit.update(start, now, failed, saturated);
+        this.metrics.setDispatchConcurrencyLimit(this.limit.get());
+        this.inFlightKeys.remove(entry.key);
+        this.inFlight--;
+        if (!EventDispatcher.this.closed) {
+          this.schedule();
+        }
+      }
+    }
+
+  }
+
+  private static final class Entry<E> {
+
+    private final Object key;
+
+    private E event;
+
+    private final DispatchLane lane;
+
+    private final long arrival;
+
+    private final long deadline;
+
+    // Set once this Entry has been taken or superseded; it is then
+    // lazily removed from its lane.
+    private boolean cancelled;
+
+    private Entry(final Object key, final E event, final DispatchLane lane, final long arrival, final long deadline) {
+      super();
+      this.key = key;
+      this.event = event;
+      this.lane = lane;
+      this.arrival = arrival;
+      this.deadline = deadline;
+    }
+
+  }
+
+}
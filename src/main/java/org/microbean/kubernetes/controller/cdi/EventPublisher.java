@@ -0,0 +1,418 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+import org.microbean.kubernetes.controller.AbstractEvent;
+
+import org.microbean.kubernetes.controller.cdi.annotation.KubernetesEventSelector; // for javadoc only
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * A Reactive Streams {@link Publisher} of the Kubernetes events
+ * selected by a particular <em>event selector</em> to {@linkplain
+ * Subscriber subscribers} that consume them at their own rate,
+ * bypassing the CDI event bus entirely.
+ *
+ * <p>The {@link KubernetesControllerExtension} makes an instance of
+ * this class available in the CDI container for every event selector
+ * it processes, qualified with that event selector's annotations
+ * that are, in turn, annotated with {@link
+ * KubernetesEventSelector @KubernetesEventSelector}.  For example,
+ * given an event selector annotation named {@code
+ * @AllConfigMapEvents}, you may inject:</p>
+ *
+ * <blockquote><pre>&#64;Inject
+ *&#64;AllConfigMapEvents
+ *private EventPublisher&lt;ConfigMap&gt; configMapEvents;</pre></blockquote>
+ *
+ * <p>Every {@link AbstractEvent} that would be fired to observer
+ * methods is also published, once, to every subscriber, in the order
+ * in which it arrived.  Since this class implements the <a
+ * href="http://www.reactive-streams.org/">Reactive Streams</a> {@link
+ * Publisher} interface, it may be handed directly to any Reactive
+ * Streams implementation or, on Java 9 and later, adapted to {@code
+ * java.util.concurrent.Flow} with {@code
+ * org.reactivestreams.FlowAdapters}.  A subscriber receives only as
+ * many events as it has {@linkplain Subscription#request(long)
+ * requested}; events it has not yet requested are buffered on its
+ * behalf.  Since the
+ * Kubernetes controller cannot be made to wait, a subscriber whose
+ * buffer overflows is signaled {@linkplain
+ * Subscriber#onError(Throwable) an error} and unsubscribed.  All
+ * subscribers are {@linkplain Subscriber#onComplete() completed} when
+ * the {@link KubernetesControllerExtension} stops its
+ * controllers.</p>
+ *
+ * <p>Subscribers are signaled on threads of the {@linkplain
+ * ForkJoinPool#commonPool() common pool}, never on the controller's
+ * own thread, and never concurrently.</p>
+ *
+ * <p>Instances of this class are safe for concurrent use by multiple
+ * threads.</p>
+ *
+ * @param <T> the type of Kubernetes resource the events concern
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see KubernetesEventSelector
+ */
+public final class EventPublisher<T extends HasMetadata> implements Publisher<AbstractEvent<? extends T>> {
+
+  /**
+   * The number of events buffered on behalf of a subscriber by
+   * {@link #subscribe(Subscriber)}.
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+  private final Executor executor;
+
+  private final CopyOnWriteArrayList<BufferedSubscription> subscriptions;
+
+  // Guarded by this.subscriptions.
+  private boolean closed;
+
+  private final Logger logger;
+
+  /**
+   * Creates a new {@link EventPublisher} that signals its
+   * subscribers using the {@linkplain ForkJoinPool#commonPool() common
+   * pool}.
+   */
+  EventPublisher() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a new {@link EventPublisher}.
+   *
+   * @param executor the {@link Executor} used to signal subscribers;
+   * must not be {@code null}
+   *
+   * @exception NullPointerException if {@code executor} is {@code
+   * null}
+   */
+  EventPublisher(final Executor executor) {
+    super();
+    this.logger = Logger.getLogger(this.getClass().getName());
+    assert this.logger != null;
+    this.executor = Objects.requireNonNull(executor);
+    this.subscriptions = new CopyOnWriteArrayList<>();
+  }
+
+  /**
+   * Subscribes the supplied {@link Subscriber}, buffering up to
+   * {@link #DEFAULT_BUFFER_SIZE} events on its behalf.
+   *
+   * @param subscriber the {@link Subscriber} to subscribe; must not
+   * be {@code null}
+   *
+   * @exception NullPointerException if {@code subscriber} is {@code
+   * null}
+   *
+   * @see #subscribe(Subscriber, int)
+   */
+  @Override
+  public final void subscribe(final Subscriber<? super AbstractEvent<? extends T>> subscriber) {
+    this.subscribe(subscriber, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Subscribes the supplied {@link Subscriber}, buffering up to the
+   * supplied number of events on its behalf.
+   *
+   * <p>The {@link Subscriber} is first signaled with its {@link
+   * Subscription}, and receives only events published after this
+   * method has been called.  If this {@link EventPublisher} has
+   * already been closed, it is {@linkplain Subscriber#onComplete()
+   * completed} straight away.</p>
+   *
+   * @param subscriber the {@link Subscriber} to subscribe; must not
+   * be {@code null}
+   *
+   * @param bufferSize the maximum number of events that may be
+   * published but not yet requested by the {@link Subscriber}; must
+   * be greater than zero
+   *
+   * @exception NullPointerException if {@code subscriber} is {@code
+   * null}
+   *
+   * @exception IllegalArgumentException if {@code bufferSize} is
+   * less than or equal to zero
+   */
+  public final void subscribe(final Subscriber<? super AbstractEvent<? extends T>> subscriber, final int bufferSize) {
+    Objects.requireNonNull(subscriber);
+    if (bufferSize <= 0) {
+      throw new IllegalArgumentException("bufferSize <= 0: " + bufferSize);
+    }
+    final BufferedSubscription subscription = new BufferedSubscription(subscriber, bufferSize);
+    synchronized (this.subscriptions) {
+      if (this.closed) {
+        subscription.complete();
+      } else {
+        this.subscriptions.add(subscription);
+      }
+    }
+    subscription.signal();
+  }
+
+  /**
+   * Returns the number of subscribers currently subscribed.
+   *
+   * @return the number of subscribers; never negative
+   */
+  public final int getSubscriberCount() {
+    return this.subscriptions.size();
+  }
+
+  /**
+   * Returns {@code true} if there is at least one subscriber.
+   *
+   * @return {@code true} if there is at least one subscriber; {@code
+   * false} otherwise
+   */
+  final boolean hasSubscribers() {
+    return !this.subscriptions.isEmpty();
+  }
+
+  /**
+   * Publishes the supplied {@link AbstractEvent} to every current
+   * subscriber.
+   *
+   * <p>This method never blocks.</p>
+   *
+   * @param event the {@link AbstractEvent} to publish; must not be
+   * {@code null}
+   *
+   * @exception NullPointerException if {@code event} is {@code null}
+   */
+  final void publish(final AbstractEvent<? extends T> event) {
+    Objects.requireNonNull(event);
+    for (final BufferedSubscription subscription : this.subscriptions) {
+      subscription.offer(event);
+    }
+  }
+
+  /**
+   * {@linkplain Subscriber#onComplete() Completes} every current
+   * subscriber once it has received the events buffered on its
+   * behalf, and completes all future subscribers straight away.
+   */
+  final void close() {
+    synchronized (this.subscriptions) {
+      this.closed = true;
+      for (final BufferedSubscription subscription : this.subscriptions) {
+        subscription.complete();
+      }
+      this.subscriptions.clear();
+    }
+  }
+
+  @Override
+  public final String toString() {
+    return new StringBuilder(this.getClass().getSimpleName())
+      .append(" [subscribers=").append(this.subscriptions.size())
+      .append("]")
+      .toString();
+  }
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  private final class BufferedSubscription implements Subscription, Runnable {
+
+    private final Subscriber<? super AbstractEvent<? extends T>> subscriber;
+
+    private final int bufferSize;
+
+    // Guarded by this.
+    private final Queue<AbstractEvent<? extends T>> buffer;
+
+    // Guarded by this.
+    private long demand;
+
+    // Guarded by this.
+    private boolean completed;
+
+    // Guarded by this.
+    private Throwable error;
+
+    private volatile boolean cancelled;
+
+    // Only touched while draining.
+    private boolean subscribed;
+
+    private final AtomicInteger signals;
+
+    private BufferedSubscription(final Subscriber<? super AbstractEvent<? extends T>> subscriber, final int bufferSize) {
+      super();
+      this.subscriber = subscriber;
+      this.bufferSize = bufferSize;
+      this.buffer = new ArrayDeque<>();
+      this.signals = new AtomicInteger();
+    }
+
+    private final void offer(final AbstractEvent<? extends T> event) {
+      boolean overflowed = false;
+      synchronized (this) {
+        if (this.cancelled || this.completed || this.error != null) {
+          return;
+        }
+        if (this.buffer.size() < this.bufferSize) {
+          this.buffer.add(event);
+        } else {
+          this.buffer.clear();
+          this.error = new IllegalStateException("More than " + this.bufferSize + " events were published but not requested");
+          overflowed = true;
+        }
+      }
+      if (overflowed) {
+        EventPublisher.this.subscriptions.remove(this);
+      }
+      this.signal();
+    }
+
+    @Override
+    public final void request(final long n) {
+      synchronized (this) {
+        if (n <= 0L) {
+          // Reactive Streams rule 3.9.
+          if (this.error == null) {
+            this.buffer.clear();
+            this.error = new IllegalArgumentException("n <= 0: " + n);
+          }
+        } else {
+          final long demand = this.demand + n;
+          this.demand = demand < 0L ? Long.MAX_VALUE : demand;
+        }
+      }
+      this.signal();
+    }
+
+    @Override
+    public final void cancel() {
+      this.cancelled = true;
+      EventPublisher.this.subscriptions.remove(this);
+      synchronized (this) {
+        this.buffer.clear();
+      }
+    }
+
+    private final void complete() {
+      synchronized (this) {
+        this.completed = true;
+      }
+      this.signal();
+    }
+
+    /**
+     * Arranges for {@link #run()} to be invoked unless it is already
+     * running, in which case it will notice whatever has changed.
+     */
+    private final void signal() {
+      if (this.signals.getAndIncrement() == 0) {
+        try {
+          EventPublisher.this.executor.execute(this);
+        } catch (final RejectedExecutionException rejectedExecutionException) {
+          this.cancel();
+          if (logger.isLoggable(Level.SEVERE)) {
+            logger.logp(Level.SEVERE, this.getClass().getName(), "signal", rejectedExecutionException.getMessage(), rejectedExecutionException);
+          }
+        }
+      }
+    }
+
+    @Override
+    public final void run() {
+      int signals = 1;
+      do {
+        try {
+          this.drain();
+        } catch (final RuntimeException runtimeException) {
+          // The Subscriber violated Reactive Streams rule 2.13.
+          this.cancel();
+          if (logger.isLoggable(Level.WARNING)) {
+            logger.logp(Level.WARNING, this.getClass().getName(), "run", runtimeException.getMessage(), runtimeException);
+          }
+        }
+        signals = this.signals.addAndGet(-signals);
+      } while (signals != 0);
+    }
+
+    private final void drain() {
+      if (!this.subscribed) {
+        this.subscribed = true;
+        this.subscriber.onSubscribe(this);
+      }
+      while (!this.cancelled) {
+        final AbstractEvent<? extends T> event;
+        final Throwable error;
+        synchronized (this) {
+          if (this.error != null) {
+            event = null;
+            error = this.error;
+          } else if (!this.buffer.isEmpty() && this.demand > 0L) {
+            event = this.buffer.remove();
+            error = null;
+            if (this.demand != Long.MAX_VALUE) {
+              this.demand--;
+            }
+          } else if (this.buffer.isEmpty() && this.completed) {
+            event = null;
+            error = null;
+          } else {
+            break;
+          }
+        }
+        if (event != null) {
+          this.subscriber.onNext(event);
+        } else {
+          this.cancel();
+          if (error == null) {
+            this.subscriber.onComplete();
+          } else {
+            this.subscriber.onError(error);
+          }
+        }
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,188 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import java.lang.annotation.Annotation;
+
+import java.net.URL;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.microbean.kubernetes.controller.cdi.annotation.KubernetesEventSelector; // for javadoc only
+
+/**
+ * An index, generated at compile time by the {@link
+ * org.microbean.kubernetes.controller.cdi.processor.EventSelectorIndexProcessor},
+ * of annotation types that are annotated, directly or by way of other
+ * annotations, with {@link KubernetesEventSelector}.
+ *
+ * <p>An index is only ever a positive hint.  If it lists an
+ * annotation type, that annotation type is an event selector and
+ * need not be analyzed reflectively.  If it does not, nothing may be
+ * concluded, and the annotation type must be analyzed reflectively
+ * as usual.</p>
+ *
+ * <p>The index is a UTF-8 text file found at {@link #RESOURCE_NAME}.
+ * Each line consists of tab-separated fields, the first of which
+ * identifies the kind of record.  The only kind of record is {@code
+ * selector} <em>annotationTypeName</em>, where
+ * <em>annotationTypeName</em> is a binary name.  Blank lines, lines
+ * beginning with {@code #} and records of unknown kinds are
+ * ignored.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see KubernetesEventSelector
+ */
+final class EventSelectorIndex {
+
+  /**
+   * The name of the classpath resource holding an index.
+   */
+  static final String RESOURCE_NAME = "META-INF/microbean-kubernetes-controller-cdi.idx";
+
+  /**
+   * The name of the {@linkplain System#getProperty(String) system
+   * property} that, if set to {@code false}, causes any index to be
+   * ignored.
+   */
+  static final String ENABLED_PROPERTY_NAME = "org.microbean.kubernetes.controller.cdi.index.enabled";
+
+  /**
+   * An {@link EventSelectorIndex} that lists nothing.
+   */
+  static final EventSelectorIndex EMPTY = new EventSelectorIndex(Collections.emptySet());
+
+  private final Set<String> selectorAnnotationTypeNames;
+
+  private EventSelectorIndex(final Set<String> selectorAnnotationTypeNames) {
+    super();
+    this.selectorAnnotationTypeNames = selectorAnnotationTypeNames;
+  }
+
+  /**
+   * Returns {@code true} if this index lists the supplied annotation
+   * type as an event selector.
+   *
+   * <p>A return value of {@code false} means only that this index
+   * does not know.</p>
+   *
+   * @param annotationType the annotation type to check; may be
+   * {@code null} in which case {@code false} will be returned
+   *
+   * @return {@code true} if the supplied annotation type is known to
+   * be an event selector; {@code false} otherwise
+   */
+  final boolean isEventSelector(final Class<? extends Annotation> annotationType) {
+    return annotationType != null && this.selectorAnnotationTypeNames.contains(annotationType.getName());
+  }
+
+  @Override
+  public final String toString() {
+    return new StringBuilder(this.getClass().getSimpleName())
+      .append(" ").append(this.selectorAnnotationTypeNames)
+      .toString();
+  }
+
+  /**
+   * Loads and merges all indices found by the supplied {@link
+   * ClassLoader} and returns the result.
+   *
+   * <p>This method never returns {@code null}.  If indices are
+   * {@linkplain #ENABLED_PROPERTY_NAME disabled}, or if none can be
+   * found, {@link #EMPTY} is returned.</p>
+   *
+   * @param classLoader the {@link ClassLoader} to use; may be {@code
+   * null} in which case the system class loader will be used
+   *
+   * @return a non-{@code null} {@link EventSelectorIndex}
+   *
+   * @exception IOException if an index could not be read
+   */
+  static final EventSelectorIndex load(final ClassLoader classLoader) throws IOException {
+    if ("false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY_NAME))) {
+      return EMPTY;
+    }
+    final Enumeration<URL> urls;
+    if (classLoader == null) {
+      urls = ClassLoader.getSystemResources(RESOURCE_NAME);
+    } else {
+      urls = classLoader.getResources(RESOURCE_NAME);
+    }
+    if (urls == null || !urls.hasMoreElements()) {
+      return EMPTY;
+    }
+    final Set<String> selectorAnnotationTypeNames = new HashSet<>();
+    while (urls.hasMoreElements()) {
+      final URL url = urls.nextElement();
+      assert url != null;
+      try (final InputStream inputStream = url.openStream()) {
+        read(new InputStreamReader(inputStream, StandardCharsets.UTF_8), selectorAnnotationTypeNames);
+      }
+    }
+    return new EventSelectorIndex(selectorAnnotationTypeNames);
+  }
+
+  /**
+   * Reads an index from the supplied {@link Reader} and returns the
+   * result.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param reader the {@link Reader} to read from; must not be {@code
+   * null}; will not be closed
+   *
+   * @return a non-{@code null} {@link EventSelectorIndex}
+   *
+   * @exception IOException if the index could not be read
+   *
+   * @exception NullPointerException if {@code reader} is {@code
+   * null}
+   */
+  static final EventSelectorIndex read(final Reader reader) throws IOException {
+    final Set<String> selectorAnnotationTypeNames = new HashSet<>();
+    read(reader, selectorAnnotationTypeNames);
+    return new EventSelectorIndex(selectorAnnotationTypeNames);
+  }
+
+  private static final void read(final Reader reader, final Set<? super String> selectorAnnotationTypeNames) throws IOException {
+    final BufferedReader bufferedReader = reader instanceof BufferedReader ? (BufferedReader)reader : new BufferedReader(reader);
+    String line;
+    while ((line = bufferedReader.readLine()) != null) {
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      final String[] fields = line.split("\t", -1);
+      if ("selector".equals(fields[0]) && fields.length > 1 && !fields[1].isEmpty()) {
+        selectorAnnotationTypeNames.add(fields[1]);
+      }
+    }
+  }
+
+}
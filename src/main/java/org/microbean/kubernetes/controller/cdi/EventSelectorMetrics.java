@@ -0,0 +1,348 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.time.Duration;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.microbean.kubernetes.controller.cdi.annotation.KubernetesEventSelector; // for javadoc only
+
+/**
+ * Counters describing the Kubernetes events selected by a particular
+ * <em>event selector</em>.
+ *
+ * <p>The {@link KubernetesControllerExtension} makes an instance of
+ * this class available in the CDI container for every event selector
+ * it processes, qualified with that event selector's annotations
+ * that are, in turn, annotated with {@link
+ * KubernetesEventSelector @KubernetesEventSelector}.  For example,
+ * given an event selector annotation named {@code
+ * @AllConfigMapEvents}, you may inject:</p>
+ *
+ * <blockquote><pre>&#64;Inject
+ *&#64;AllConfigMapEvents
+ *private EventSelectorMetrics configMapEventMetrics;</pre></blockquote>
+ *
+ * <p>Instances of this class are safe for concurrent use by multiple
+ * threads.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see KubernetesEventSelector
+ */
+public final class EventSelectorMetrics {
+
+  private final LongAdder filteredEventCount;
+
+  private final LongAdder suppressedModificationCount;
+
+  private final LongAdder unownedEventCount;
+
+  private final LongAdder staleEventCount;
+
+  private final LongAdder[] dispatchCounts;
+
+  private final LongAdder[] dispatchLatencies;
+
+  private final LongAccumulator[] maxDispatchLatencies;
+
+  private final LongAdder observerLatencyCount;
+
+  private final LongAdder observerLatencies;
+
+  private final LongAdder targetLatencyEventCount;
+
+  private final LongAdder targetLatencyMissCount;
+
+  private volatile int dispatchConcurrencyLimit;
+
+  private volatile Duration controllerStartDuration;
+
+  EventSelectorMetrics() {
+    super();
+    this.filteredEventCount = new LongAdder();
+    this.suppressedModificationCount = new LongAdder();
+    this.unownedEventCount = new LongAdder();
+    this.staleEventCount = new LongAdder();
+    this.observerLatencyCount = new LongAdder();
+    this.observerLatencies = new LongAdder();
+    this.targetLatencyEventCount = new LongAdder();
+    this.targetLatencyMissCount = new LongAdder();
+    final int lanes = DispatchLane.values().length;
+    this.dispatchCounts = new LongAdder[lanes];
+    this.dispatchLatencies = new LongAdder[lanes];
+    this.maxDispatchLatencies = new LongAccumulator[lanes];
+    for (int i = 0; i < lanes; i++) {
+      this.dispatchCounts[i] = new LongAdder();
+      this.dispatchLatencies[i] = new LongAdder();
+      this.maxDispatchLatencies[i] = new LongAccumulator(Math::max, 0L);
+    }
+  }
+
+  /**
+   * Returns the number of events that were discarded because their
+   * Kubernetes resources did not satisfy a {@link
+   * java.util.function.Predicate} bean qualified with the event
+   * selector's qualifiers.
+   *
+   * @return the number of filtered events; never negative
+   */
+  public final long getFilteredEventCount() {
+    return this.filteredEventCount.sum();
+  }
+
+  final void incrementFilteredEventCount() {
+    this.filteredEventCount.increment();
+  }
+
+  /**
+   * Returns the number of modification events that were suppressed
+   * because nothing {@linkplain
+   * KubernetesEventSelector#significantPaths() significant} about
+   * the Kubernetes resource in question changed.
+   *
+   * @return the number of suppressed modification events; never
+   * negative
+   *
+   * @see KubernetesEventSelector#suppressUnchangedModifications()
+   */
+  public final long getSuppressedModificationCount() {
+    return this.suppressedModificationCount.sum();
+  }
+
+  final void incrementSuppressedModificationCount() {
+    this.suppressedModificationCount.increment();
+  }
+
+  /**
+   * Returns the number of events that were not delivered because
+   * the keys of their Kubernetes resources belong to a different
+   * shard.
+   *
+   * <p>Events discarded before they were cached, because caches are
+   * sharded as well, are not counted.</p>
+   *
+   * @return the number of unowned events; never negative
+   */
+  public final long getUnownedEventCount() {
+    return this.unownedEventCount.sum();
+  }
+
+  final void incrementUnownedEventCount() {
+    this.unownedEventCount.increment();
+  }
+
+  /**
+   * Returns the number of events dispatched from the supplied {@link
+   * DispatchLane}.
+   *
+   * <p>Events are counted only when prioritized dispatch is
+   * enabled.</p>
+   *
+   * @param lane the {@link DispatchLane} in question; must not be
+   * {@code null}
+   *
+   * @return the number of events dispatched from the supplied {@link
+   * DispatchLane}; never negative
+   *
+   * @exception NullPointerException if {@code lane} is {@code null}
+   */
+  public final long getDispatchCount(final DispatchLane lane) {
+    return this.dispatchCounts[lane.ordinal()].sum();
+  }
+
+  /**
+   * Returns the mean time that events dispatched from the supplied
+   * {@link DispatchLane} spent waiting to be dispatched.
+   *
+   * @param lane the {@link DispatchLane} in question; must not be
+   * {@code null}
+   *
+   * @return the mean dispatch latency of the supplied {@link
+   * DispatchLane}; never {@code null}; {@link Duration#ZERO} if no
+   * events have been dispatched from it
+   *
+   * @exception NullPointerException if {@code lane} is {@code null}
+   */
+  public final Duration getMeanDispatchLatency(final DispatchLane lane) {
+    final int i = lane.ordinal();
+    final long count = this.dispatchCounts[i].sum();
+    return count == 0L ? Duration.ZERO : Duration.ofNanos(this.dispatchLatencies[i].sum() / count);
+  }
+
+  /**
+   * Returns the longest time that any event dispatched from the
+   * supplied {@link DispatchLane} spent waiting to be dispatched.
+   *
+   * @param lane the {@link DispatchLane} in question; must not be
+   * {@code null}
+   *
+   * @return the maximum dispatch latency of the supplied {@link
+   * DispatchLane}; never {@code null}
+   *
+   * @exception NullPointerException if {@code lane} is {@code null}
+   */
+  public final Duration getMaxDispatchLatency(final DispatchLane lane) {
+    return Duration.ofNanos(this.maxDispatchLatencies[lane.ordinal()].get());
+  }
+
+  final void recordDispatchLatency(final DispatchLane lane, final long nanos) {
+    final int i = lane.ordinal();
+    this.dispatchCounts[i].increment();
+    this.dispatchLatencies[i].add(nanos);
+    this.maxDispatchLatencies[i].accumulate(nanos);
+  }
+
+  /**
+   * Returns the mean time that observers took to handle a dispatched
+   * event, up to the completion of any asynchronous observers.
+   *
+   * <p>Events are timed only when prioritized dispatch is
+   * enabled.</p>
+   *
+   * @return the mean observer latency; never {@code null}; {@link
+   * Duration#ZERO} if no events have been handled
+   */
+  public final Duration getMeanObserverLatency() {
+    final long count = this.observerLatencyCount.sum();
+    return count == 0L ? Duration.ZERO : Duration.ofNanos(this.observerLatencies.sum() / count);
+  }
+
+  final void recordObserverLatency(final long nanos) {
+    this.observerLatencyCount.increment();
+    this.observerLatencies.add(nanos);
+  }
+
+  /**
+   * Returns the number of dispatched events that had a {@linkplain
+   * KubernetesEventSelector#targetLatency() target latency}.
+   *
+   * @return the number of events with a target latency; never
+   * negative
+   *
+   * @see #getTargetLatencyMissCount()
+   */
+  public final long getTargetLatencyEventCount() {
+    return this.targetLatencyEventCount.sum();
+  }
+
+  /**
+   * Returns the number of dispatched events whose observers finished
+   * handling them later than their {@linkplain
+   * KubernetesEventSelector#targetLatency() target latency} after
+   * they arrived.
+   *
+   * @return the number of events that missed their target latency;
+   * never negative
+   *
+   * @see #getTargetLatencyEventCount()
+   */
+  public final long getTargetLatencyMissCount() {
+    return this.targetLatencyMissCount.sum();
+  }
+
+  final void recordTargetLatency(final boolean missed) {
+    this.targetLatencyEventCount.increment();
+    if (missed) {
+      this.targetLatencyMissCount.increment();
+    }
+  }
+
+  /**
+   * Returns the number of events that may currently be in flight at
+   * once, or {@code 0} if prioritized dispatch is not enabled.
+   *
+   * <p>If dispatch concurrency is adaptive, this number changes in
+   * response to observer latency.</p>
+   *
+   * @return the current dispatch concurrency limit; never negative
+   */
+  public final int getDispatchConcurrencyLimit() {
+    return this.dispatchConcurrencyLimit;
+  }
+
+  final void setDispatchConcurrencyLimit(final int dispatchConcurrencyLimit) {
+    this.dispatchConcurrencyLimit = dispatchConcurrencyLimit;
+  }
+
+  /**
+   * Returns the number of Kubernetes events of which no observer
+   * method was notified because, by the time the first of them would
+   * have been, a newer state of the Kubernetes resource in question
+   * had already been cached.
+   *
+   * <p>Events are skipped only if the {@code skipStaleEvents}
+   * configuration property is {@code true}.</p>
+   *
+   * @return the number of skipped stale events; never negative
+   */
+  public final long getStaleEventCount() {
+    return this.staleEventCount.sum();
+  }
+
+  final void incrementStaleEventCount() {
+    this.staleEventCount.increment();
+  }
+
+  /**
+   * Returns the {@link Duration} it took to start the Kubernetes
+   * controller serving the event selector, including its initial
+   * listing of Kubernetes resources, or {@code null} if it has not
+   * yet started.
+   *
+   * @return the {@link Duration} it took to start the Kubernetes
+   * controller serving the event selector, or {@code null}
+   */
+  public final Duration getControllerStartDuration() {
+    return this.controllerStartDuration;
+  }
+
+  final void setControllerStartDuration(final Duration controllerStartDuration) {
+    this.controllerStartDuration = controllerStartDuration;
+  }
+
+  private final Map<DispatchLane, Duration> getMeanDispatchLatencies() {
+    final Map<DispatchLane, Duration> returnValue = new EnumMap<>(DispatchLane.class);
+    for (final DispatchLane lane : DispatchLane.values()) {
+      returnValue.put(lane, this.getMeanDispatchLatency(lane));
+    }
+    return returnValue;
+  }
+
+  @Override
+  public final String toString() {
+    return new StringBuilder(this.getClass().getSimpleName())
+      .append(" [filteredEventCount=").append(this.getFilteredEventCount())
+      .append(", suppressedModificationCount=").append(this.getSuppressedModificationCount())
+      .append(", unownedEventCount=").append(this.getUnownedEventCount())
+      .append(", staleEventCount=").append(this.getStaleEventCount())
+      .append(", meanDispatchLatencies=").append(this.getMeanDispatchLatencies())
+      .append(", meanObserverLatency=").append(this.getMeanObserverLatency())
+      .append(", targetLatencyMissCount=").append(this.getTargetLatencyMissCount())
+      .append(", dispatchConcurrencyLimit=").append(this.getDispatchConcurrencyLimit())
+      .append(", controllerStartDuration=").append(this.getControllerStartDuration())
+      .append("]")
+      .toString();
+  }
+
+}
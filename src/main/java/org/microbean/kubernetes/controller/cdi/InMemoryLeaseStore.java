@@ -0,0 +1,69 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A {@link LeaseStore} that keeps {@link Lease}s in memory.
+ *
+ * <p>A single {@link InMemoryLeaseStore} may be shared by several
+ * {@link KubernetesControllerExtension} instances running in the
+ * same Java virtual machine, which is chiefly useful in tests.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+public final class InMemoryLeaseStore implements LeaseStore {
+
+  private final Map<String, Lease> leases;
+
+  /**
+   * Creates a new, empty {@link InMemoryLeaseStore}.
+   */
+  public InMemoryLeaseStore() {
+    super();
+    this.leases = new HashMap<>();
+  }
+
+  @Override
+  public final Map<String, Lease> getLeases() {
+    synchronized (this.leases) {
+      return Collections.unmodifiableMap(new HashMap<>(this.leases));
+    }
+  }
+
+  @Override
+  public final boolean compareAndSet(final String name, final Lease expected, final Lease update) {
+    Objects.requireNonNull(name);
+    synchronized (this.leases) {
+      if (!Objects.equals(this.leases.get(name), expected)) {
+        return false;
+      }
+      if (update == null) {
+        this.leases.remove(name);
+      } else {
+        this.leases.put(name, update);
+      }
+      return true;
+    }
+  }
+
+}
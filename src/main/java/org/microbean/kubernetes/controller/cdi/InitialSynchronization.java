@@ -0,0 +1,162 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.microbean.kubernetes.controller.cdi.annotation.KubernetesEventSelector; // for javadoc only
+
+/**
+ * A handle on the initial synchronization of the Kubernetes
+ * controller serving a particular <em>event selector</em>.
+ *
+ * <p>The initial synchronization of a Kubernetes controller is
+ * complete once the controller has started watching for changes and
+ * every Kubernetes resource returned by its initial LIST has been
+ * drained from its internal queue: that is, cached, if the event
+ * selector has a cache, and handed off for delivery to observer
+ * methods.  Observer methods notified asynchronously, or through a
+ * prioritized or paced dispatcher, may not yet have been notified
+ * of all of them.</p>
+ *
+ * <p>The {@link KubernetesControllerExtension} makes an instance of
+ * this class available in the CDI container for every event selector
+ * it processes, qualified with that event selector's annotations
+ * that are, in turn, annotated with {@link
+ * KubernetesEventSelector @KubernetesEventSelector}.  For example,
+ * given an event selector annotation named {@code
+ * @AllConfigMapEvents}, you may inject:</p>
+ *
+ * <blockquote><pre>&#64;Inject
+ *&#64;AllConfigMapEvents
+ *private InitialSynchronization configMapSynchronization;</pre></blockquote>
+ *
+ * <p>Once the initial synchronization is complete, the instance is
+ * also fired as a synchronous CDI event qualified in the same way,
+ * on the thread that drains the controller's queue, so you may
+ * instead observe it:</p>
+ *
+ * <blockquote><pre>private final void onConfigMapsSynchronized(&#64;Observes &#64;AllConfigMapEvents final InitialSynchronization synchronization) {
+ *  // start latency-sensitive work
+ *}</pre></blockquote>
+ *
+ * <p>No further events are drained from the controller's queue until
+ * such observer methods return, so they should return promptly.</p>
+ *
+ * <p>Instances of this class are safe for concurrent use by multiple
+ * threads.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see KubernetesEventSelector
+ */
+public final class InitialSynchronization {
+
+  private final CountDownLatch latch;
+
+  private volatile boolean synced;
+
+  private volatile Throwable failure;
+
+  InitialSynchronization() {
+    super();
+    this.latch = new CountDownLatch(1);
+  }
+
+  /**
+   * Returns {@code true} if the initial synchronization has
+   * completed successfully, which is to say that the Kubernetes
+   * controller has listed, cached and handed off for delivery its
+   * Kubernetes resources, and started watching them.
+   *
+   * @return {@code true} if the initial synchronization has
+   * completed successfully; {@code false} otherwise
+   */
+  public final boolean hasSynced() {
+    return this.synced;
+  }
+
+  /**
+   * Returns the {@link Throwable} that caused the initial
+   * synchronization to fail, or {@code null} if it has not failed.
+   *
+   * @return the cause of failure, or {@code null}
+   */
+  public final Throwable getFailure() {
+    return this.failure;
+  }
+
+  /**
+   * Blocks the calling thread until the initial synchronization has
+   * either completed or failed.
+   *
+   * @return {@code true} if the initial synchronization completed
+   * successfully; {@code false} if it failed
+   *
+   * @exception InterruptedException if the calling thread was
+   * interrupted while waiting
+   */
+  public final boolean await() throws InterruptedException {
+    this.latch.await();
+    return this.synced;
+  }
+
+  /**
+   * Blocks the calling thread until the initial synchronization has
+   * either completed or failed, or until the supplied timeout has
+   * elapsed.
+   *
+   * @param timeout the maximum time to wait
+   *
+   * @param timeUnit the {@link TimeUnit} in which {@code timeout} is
+   * expressed; must not be {@code null}
+   *
+   * @return {@code true} if the initial synchronization completed
+   * successfully; {@code false} if it failed or the timeout elapsed
+   *
+   * @exception InterruptedException if the calling thread was
+   * interrupted while waiting
+   *
+   * @exception NullPointerException if {@code timeUnit} is {@code
+   * null}
+   */
+  public final boolean await(final long timeout, final TimeUnit timeUnit) throws InterruptedException {
+    return this.latch.await(timeout, timeUnit) && this.synced;
+  }
+
+  final void complete() {
+    this.synced = true;
+    this.latch.countDown();
+  }
+
+  final void fail(final Throwable failure) {
+    this.failure = failure;
+    this.latch.countDown();
+  }
+
+  @Override
+  public final String toString() {
+    return new StringBuilder(this.getClass().getSimpleName())
+      .append(" [synced=").append(this.synced)
+      .append(", failure=").append(this.failure)
+      .append("]")
+      .toString();
+  }
+
+}
@@ -0,0 +1,225 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Utility methods for working with paths into JSON representations
+ * of Kubernetes resources.
+ *
+ * <p>A path may be expressed either in dotted notation (e.g. {@code
+ * metadata.labels}) or as a <a
+ * href="https://tools.ietf.org/html/rfc6901">JSON Pointer</a>
+ * (e.g. {@code /metadata/labels}).  JSON Pointer notation must be
+ * used when a path segment itself contains a period, as is common
+ * with label and annotation keys.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+final class JsonPaths {
+
+  private static final String[] EMPTY_STRING_ARRAY = new String[0];
+
+  private JsonPaths() {
+    super();
+  }
+
+  /**
+   * Splits the supplied path into its segments.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param path the path to split; must not be {@code null}
+   *
+   * @return a non-{@code null} array of path segments, which will
+   * be empty if {@code path} denotes the root
+   *
+   * @exception NullPointerException if {@code path} is {@code null}
+   */
+  static final String[] segments(final String path) {
+    Objects.requireNonNull(path);
+    final String[] returnValue;
+    if (path.isEmpty() || path.equals("/") || path.equals(".")) {
+      returnValue = EMPTY_STRING_ARRAY;
+    } else if (path.startsWith("/")) {
+      final String[] rawSegments = path.substring(1).split("/", -1);
+      returnValue = new String[rawSegments.length];
+      for (int i = 0; i < rawSegments.length; i++) {
+        // See https://tools.ietf.org/html/rfc6901#section-4.
+        returnValue[i] = rawSegments[i].replace("~1", "/").replace("~0", "~");
+      }
+    } else {
+      returnValue = path.split("\\.", -1);
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the {@link JsonNode} found by following the supplied
+   * path segments from the supplied root {@link JsonNode}, or {@code
+   * null} if there is no such {@link JsonNode}.
+   *
+   * @param root the {@link JsonNode} to start from; may be {@code
+   * null} in which case {@code null} will be returned
+   *
+   * @param segments the path segments to follow; must not be {@code
+   * null}
+   *
+   * @return the {@link JsonNode} at the end of the path, or {@code
+   * null}
+   *
+   * @exception NullPointerException if {@code segments} is {@code
+   * null}
+   */
+  static final JsonNode navigate(final JsonNode root, final String[] segments) {
+    JsonNode node = root;
+    for (int i = 0; node != null && i < segments.length; i++) {
+      if (node.isArray()) {
+        final int index;
+        try {
+          index = Integer.parseInt(segments[i]);
+        } catch (final NumberFormatException numberFormatException) {
+          return null;
+        }
+        node = node.get(index);
+      } else {
+        node = node.get(segments[i]);
+      }
+      if (node != null && node.isMissingNode()) {
+        node = null;
+      }
+    }
+    return node;
+  }
+
+  /**
+   * Returns {@code true} if one of the supplied path segment arrays
+   * is a prefix of (or is equal to) the other.
+   *
+   * <p>Two paths that are related in this way are said to
+   * <em>overlap</em>: a change at one of them is necessarily a change
+   * at or beneath the other.</p>
+   *
+   * @param a the first path's segments; must not be {@code null}
+   *
+   * @param b the second path's segments; must not be {@code null}
+   *
+   * @return {@code true} if {@code a} and {@code b} overlap; {@code
+   * false} otherwise
+   *
+   * @exception NullPointerException if either parameter is {@code
+   * null}
+   */
+  static final boolean overlap(final String[] a, final String[] b) {
+    final int length = Math.min(a.length, b.length);
+    for (int i = 0; i < length; i++) {
+      if (!a[i].equals(b[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Computes a 64-bit structural hash of the supplied {@link
+   * JsonNode}.
+   *
+   * <p>The hash of an object node does not depend on the order of
+   * its fields; the hash of an array node does depend on the order of
+   * its elements.  A {@code null} {@link JsonNode} hashes differently
+   * from any JSON value, including JSON {@code null}.</p>
+   *
+   * @param node the {@link JsonNode} to hash; may be {@code null}
+   *
+   * @return a 64-bit structural hash
+   */
+  static final long hash(final JsonNode node) {
+    final long returnValue;
+    if (node == null) {
+      returnValue = 0x9E3779B97F4A7C15L;
+    } else if (node.isObject()) {
+      long sum = 0L;
+      final Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+      while (fields.hasNext()) {
+        final Map.Entry<String, JsonNode> field = fields.next();
+        // Addition is commutative, so field order is irrelevant.
+        sum += mix(hash(field.getKey()) * 31L + hash(field.getValue()));
+      }
+      returnValue = mix(sum ^ 0x5851F42D4C957F2DL);
+    } else if (node.isArray()) {
+      long h = 0x14057B7EF767814FL;
+      for (final JsonNode element : node) {
+        h = mix(h * 31L + hash(element));
+      }
+      returnValue = h;
+    } else {
+      returnValue = mix(hash(node.asText()) * 31L + node.getNodeType().ordinal());
+    }
+    return returnValue;
+  }
+
+  private static final long hash(final String s) {
+    // 64-bit FNV-1a.
+    long h = 0xCBF29CE484222325L;
+    final int length = s.length();
+    for (int i = 0; i < length; i++) {
+      h ^= s.charAt(i);
+      h *= 0x100000001B3L;
+    }
+    return h;
+  }
+
+  private static final long mix(long z) {
+    // The SplitMix64 finalizer.
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Converts each of the supplied paths into its segments.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param paths the paths to convert; may be {@code null}
+   *
+   * @return a non-{@code null} {@link List} of path segment arrays
+   */
+  static final List<String[]> segments(final String[] paths) {
+    final List<String[]> returnValue;
+    if (paths == null || paths.length <= 0) {
+      returnValue = new ArrayList<>(0);
+    } else {
+      returnValue = new ArrayList<>(paths.length);
+      for (final String path : paths) {
+        if (path != null) {
+          returnValue.add(segments(path.trim()));
+        }
+      }
+    }
+    return returnValue;
+  }
+
+}
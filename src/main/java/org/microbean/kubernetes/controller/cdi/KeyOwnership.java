@@ -0,0 +1,47 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+/**
+ * A determination of which keys of Kubernetes resources the current
+ * replica is responsible for.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Shard
+ *
+ * @see ShardLeaser
+ */
+@FunctionalInterface
+interface KeyOwnership {
+
+  /**
+   * Returns {@code true} if the current replica is responsible for
+   * the Kubernetes resource bearing the supplied key.
+   *
+   * <p>Implementations of this method must be safe for concurrent
+   * use by multiple threads.</p>
+   *
+   * @param key the key; may be {@code null}
+   *
+   * @return {@code true} if the current replica owns the supplied
+   * key; {@code false} otherwise
+   */
+  boolean owns(final Object key);
+
+}
@@ -25,11 +25,15 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 
 import java.time.Duration;
 
+import java.time.format.DateTimeParseException;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -38,17 +42,37 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.CountDownLatch;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -58,6 +82,7 @@ import javax.annotation.Priority;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.context.BeforeDestroyed;
 import javax.enterprise.context.ContextNotActiveException;
+import javax.enterprise.context.Dependent;
 import javax.enterprise.context.Initialized;
 
 import javax.enterprise.context.spi.AlterableContext;
@@ -76,6 +101,7 @@ import javax.enterprise.inject.spi.BeanManager;
 import javax.enterprise.inject.spi.CDI;
 import javax.enterprise.inject.spi.DeploymentException;
 import javax.enterprise.inject.spi.EventContext;
+import javax.enterprise.inject.spi.EventMetadata;
 import javax.enterprise.inject.spi.ObserverMethod;
 import javax.enterprise.inject.spi.ProcessBean;
 import javax.enterprise.inject.spi.ProcessManagedBean;
@@ -89,16 +115,20 @@ import javax.enterprise.inject.spi.configurator.ObserverMethodConfigurator.Event
 
 import javax.inject.Qualifier; // for javadoc only
 import javax.inject.Scope;
+import javax.inject.Singleton;
 
 import io.fabric8.kubernetes.api.model.ConfigMap; // for javadoc only
 import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 
 import io.fabric8.kubernetes.client.KubernetesClient; // for javadoc only
 import io.fabric8.kubernetes.client.Watcher;
 
 import io.fabric8.kubernetes.client.dsl.Listable;
 import io.fabric8.kubernetes.client.dsl.VersionWatchable;
+
+import io.fabric8.kubernetes.client.dsl.base.BaseOperation;
 import io.fabric8.kubernetes.client.dsl.Operation; // for javadoc only
 
 import org.microbean.cdi.AbstractBlockingExtension;
@@ -111,9 +141,12 @@ import org.microbean.development.annotation.Issue;
 import org.microbean.kubernetes.controller.AbstractEvent;
 import org.microbean.kubernetes.controller.Controller;
 import org.microbean.kubernetes.controller.EventDistributor;
+import org.microbean.kubernetes.controller.EventQueue;
 import org.microbean.kubernetes.controller.SynchronizationEvent;
 
 import org.microbean.kubernetes.controller.cdi.annotation.Added;
+import org.microbean.kubernetes.controller.cdi.annotation.Changes;
+import org.microbean.kubernetes.controller.cdi.annotation.Cluster;
 import org.microbean.kubernetes.controller.cdi.annotation.Deleted;
 import org.microbean.kubernetes.controller.cdi.annotation.Modified;
 import org.microbean.kubernetes.controller.cdi.annotation.KubernetesEventSelector;
@@ -254,6 +287,213 @@ import static javax.interceptor.Interceptor.Priority.LIBRARY_BEFORE;
  * Listable} and {@link VersionWatchable} with the proper type
  * parameters.</p>
  *
+ * <p>If your observer methods are interested only in Kubernetes
+ * resources bearing certain labels or having certain field values,
+ * you can have the Kubernetes API server do that filtering by
+ * supplying {@link KubernetesEventSelector#labelSelector()
+ * labelSelector} and {@link KubernetesEventSelector#fieldSelector()
+ * fieldSelector} elements on the {@link KubernetesEventSelector}
+ * annotation that annotates your event selector annotation.  They
+ * are applied to the event selector before any listing or watching
+ * occurs, so resources that do not match are never transmitted,
+ * deserialized or cached.  Since applying them modifies the event
+ * selector itself, they may only be used with event selectors
+ * produced by {@link Dependent @Dependent}-scoped producer methods,
+ * or implemented by {@link Dependent @Dependent}-scoped managed
+ * beans, that return a new operation every time, such as {@code
+ * client.configMaps()}; otherwise a {@link DeploymentException} is
+ * thrown.</p>
+ *
+ * <p>If two or more event selectors, once any label and field
+ * selectors have been applied, would list and watch exactly the same
+ * Kubernetes resources, they share a single {@link Controller}, and
+ * hence a single watch connection and a single cache.  Each Kubernetes
+ * event is then fired once for each such event selector's
+ * qualifiers.</p>
+ *
+ * <p>If you have many event selectors that differ only in the
+ * namespace they are restricted to, you can set the {@code
+ * collapseNamespaces} configuration property to {@code true}.  Such
+ * event selectors will then be served by a single watch of all
+ * namespaces, and each Kubernetes event will be routed to the event
+ * selectors interested in its resource's namespace.  Each event
+ * selector's cache, if any, will contain only the Kubernetes
+ * resources in that namespace.  Note that this trades watch
+ * connections for bandwidth: Kubernetes resources in namespaces that
+ * no event selector is interested in will be transmitted and
+ * discarded.</p>
+ *
+ * <p>To spread the work of handling Kubernetes events across
+ * several replicas of your application, set the {@code shardCount}
+ * configuration property to the number of replicas and the {@code
+ * shardIndex} configuration property of each replica to a distinct
+ * number from {@code 0} through {@code shardCount - 1}.  Each replica
+ * will then fire CDI events only for those Kubernetes resources whose
+ * keys belong to its shard.  Keys are assigned to shards by
+ * consistent hashing, so changing the number of shards moves as few
+ * keys as possible.  Each replica still caches every Kubernetes
+ * resource unless the {@code shardCaches} configuration property is
+ * also set to {@code true}, in which case caches will contain only
+ * the Kubernetes resources belonging to the replica's shard.</p>
+ *
+ * <p>Rather than assigning shards by hand, you can have replicas
+ * divide a fixed number of shards among themselves by setting the
+ * {@code shardLeaseSlots} configuration property to that number and
+ * making a {@link LeaseStore} bean, such as a {@link
+ * ConfigMapLeaseStore}, available.  Each replica then holds leases on
+ * its fair share of the shards, renewing them every third of the
+ * {@code shardLeaseDuration} configuration property (fifteen seconds
+ * by default).  When a replica is added, the others release shards
+ * for it to claim; when one dies, its shards are claimed by the
+ * others once their leases expire.  Each replica lists and caches
+ * only the Kubernetes resources whose keys belong to its shards.
+ * Whenever it gains shards, its controllers keep watching as before,
+ * and it lists each operation once more to deliver, as
+ * synchronization events, the newly owned Kubernetes resources that
+ * it has not yet seen; a LIST that fails is retried every third of
+ * the lease duration until it succeeds or the shards are lost
+ * again.  A replica identifies itself by the {@code
+ * shardLeaseHolder} configuration property, or by a random
+ * identifier if it is not set.</p>
+ *
+ * <p>Each controller synchronizes at the interval given by the
+ * {@code synchronizationInterval} configuration property, unless its
+ * event selector specifies its own, either through the {@link
+ * KubernetesEventSelector#synchronizationInterval()
+ * synchronizationInterval} element of its {@link
+ * KubernetesEventSelector} or through a {@code
+ * synchronizationInterval.}<em>annotationTypeName</em> configuration
+ * property.  Event selectors with different synchronization
+ * intervals never share a controller.  So that controllers do not all
+ * synchronize at the same moment, each controller's interval is
+ * varied at random by up to the fraction given by the {@code
+ * synchronizationJitter} configuration property, which defaults to
+ * {@code 0.1}.</p>
+ *
+ * <p>If the {@code skipStaleEvents} configuration property is {@code
+ * true}, then just before an observer method would be notified of an
+ * addition or modification, the Kubernetes resource in question is
+ * compared with its current state in the event selector's cache.  If
+ * its {@code resourceVersion} has moved on, or it has since been
+ * deleted, the observer method is not notified, since it will be
+ * notified of the newer state in due course.  This comparison is made
+ * once per event, for the first observer method to be notified, and
+ * its outcome applies to all of them.  Such skipped events are
+ * counted by {@link EventSelectorMetrics#getStaleEventCount()}.
+ * Stale events are never skipped for event selectors without caches,
+ * or whose events are filtered or suppressed.</p>
+ *
+ * <p>Ordinarily, every cached Kubernetes resource is delivered as a
+ * synchronization event at once whenever a controller synchronizes.
+ * If the {@code pacedSynchronization} configuration property is
+ * {@code true}, such events are instead released at a steady rate
+ * over the first four fifths of the synchronization interval.  Events
+ * representing actual changes are never held back: they overtake any
+ * paced synchronization events, and a synchronization event still
+ * pending for a Kubernetes resource that has since changed is
+ * discarded.</p>
+ *
+ * <p>Ordinarily, events are fired in the order in which they
+ * arrive.  If the {@code prioritizedDispatch} configuration property
+ * is {@code true}, they are instead queued and fired by a pool of
+ * {@code dispatchThreads} threads (by default, one per available
+ * processor) in order of {@linkplain DispatchLane priority}:
+ * deletions first, then other changes, then synchronization events.
+ * An event that has waited longer than the {@code
+ * dispatchStarvationThreshold} configuration property (five seconds
+ * by default) is fired ahead of the others regardless.  Events
+ * concerning any given Kubernetes resource are still fired in order,
+ * one at a time, and a queued synchronization event is discarded if
+ * a change to its Kubernetes resource arrives.  If there are
+ * asynchronous observers, up to {@code dispatchConcurrency} events
+ * per event selector (by default, one per available processor) may
+ * be in flight at once; otherwise, one.  The time events spend
+ * queued in each lane is available from {@link
+ * EventSelectorMetrics#getMeanDispatchLatency(DispatchLane)}.</p>
+ *
+ * <p>If the {@code adaptiveDispatchConcurrency} configuration
+ * property is also {@code true}, the number of asynchronous events
+ * per event selector that may be in flight at once starts at {@code
+ * dispatchConcurrency} and adapts to the time observers take to
+ * handle them, growing while they keep up and shrinking when they
+ * slow down or fail, up to the {@code maxDispatchConcurrency}
+ * configuration property (256 by default).  The current limit and
+ * observer latency are available from {@link
+ * EventSelectorMetrics#getDispatchConcurrencyLimit()} and {@link
+ * EventSelectorMetrics#getMeanObserverLatency()}.</p>
+ *
+ * <p>The dispatching threads are shared fairly among event
+ * selectors with events waiting, in proportion to their {@linkplain
+ * KubernetesEventSelector#dispatchWeight() dispatch weights}, so that
+ * a busy event selector cannot monopolize them.  An event selector's
+ * weight may be overridden with a {@code
+ * dispatchWeight.}<em>annotationTypeName</em> configuration
+ * property.</p>
+ *
+ * <p>An event selector may also declare a {@linkplain
+ * KubernetesEventSelector#targetLatency() target latency} within
+ * which changes it selects should be handled, measured from their
+ * arrival from its controller.  Such changes are dispatched
+ * earliest deadline first, ahead of the fair shares of other event
+ * selectors.  Every change handled later than its target latency is
+ * counted by {@link
+ * EventSelectorMetrics#getTargetLatencyMissCount()}.  An event
+ * selector's target latency may be overridden with a {@code
+ * targetLatency.}<em>annotationTypeName</em> configuration
+ * property.</p>
+ *
+ * <p>Controllers are started concurrently.  The maximum number
+ * started at once may be set with the {@code
+ * controllerStartParallelism} configuration property; it defaults to
+ * the number of available processors.  If any controller fails to
+ * start, those that did start are closed and a {@link
+ * DeploymentException} is thrown describing every failure.  The
+ * time each controller took to start is logged and is available from
+ * {@link EventSelectorMetrics#getControllerStartDuration()}.</p>
+ *
+ * <p>If you would rather not have container initialization wait for
+ * controllers to start, set the {@code startControllersInBackground}
+ * configuration property to {@code true}.  Controllers will then be
+ * started on a background thread, and a failure to start one will be
+ * logged rather than failing deployment.  Either way, you can find
+ * out when the controller serving a given event selector has listed
+ * and cached its Kubernetes resources by injecting or observing an
+ * {@link InitialSynchronization} qualified with that event
+ * selector's annotations.</p>
+ *
+ * <p>Consumers of Kubernetes events that are not observer methods,
+ * such as streaming pipelines, may instead inject the {@link
+ * EventPublisher} qualified with an event selector's annotations and
+ * {@linkplain EventPublisher#subscribe(org.reactivestreams.Subscriber)
+ * subscribe} to it.  It is a Reactive Streams {@link
+ * org.reactivestreams.Publisher}.  Its subscribers receive the same
+ * events, without going through the CDI event bus, and only as fast
+ * as they request them.</p>
+ *
+ * <p>A single application can serve several Kubernetes clusters.
+ * Produce a {@code KubernetesClient} for each cluster, qualified
+ * with {@link Cluster @Cluster}, and from each produce event
+ * selectors qualified with both your event selector annotation and
+ * the same {@link Cluster @Cluster} qualifier.  Each cluster's event
+ * selector is then served by its own controller; its cache, if any,
+ * is the one qualified with that {@link Cluster @Cluster} qualifier
+ * as well; its {@link EventSelectorMetrics} and {@link
+ * InitialSynchronization} are qualified with it too; and it is among
+ * the qualifiers of every event fired.  Controllers for all clusters
+ * share the same threads for starting up and for asynchronous event
+ * delivery.  If a controller for a particular cluster fails to
+ * start, the failure is logged and the other clusters are served as
+ * usual.</p>
+ *
+ * <p>If you run several replicas of your application but only the
+ * elected leader should act on Kubernetes events, set the {@code
+ * standby} configuration property to {@code true} and call {@link
+ * Leadership#acquire()} on the injected {@link Leadership} once
+ * elected.  Until then, controllers are started and caches are kept
+ * current but no events are fired, so that taking over requires
+ * neither a full relisting nor, usually, a flood of synchronization
+ * events; see {@link Leadership} for details.</p>
+ *
  * <p>The {@code @AllConfigMapEvents} annotation is simply:</p>
  *
  * <blockquote><pre>&#64;Documented
@@ -265,6 +505,37 @@ import static javax.interceptor.Interceptor.Priority.LIBRARY_BEFORE;
  *
  *}</pre></blockquote>
  *
+ * <h2>Build-Time Indexing</h2>
+ *
+ * <p>To decide which qualifiers are event selectors, this extension
+ * must examine the annotations on each qualifier's annotation type,
+ * and on their annotation types in turn.  It does so once per
+ * annotation type.  If you like, you can have the {@link
+ * org.microbean.kubernetes.controller.cdi.processor.EventSelectorIndexProcessor}
+ * annotation processor do this at compile time instead, by naming it
+ * explicitly when you compile your event selector annotations and
+ * the beans that use them.  Annotation types it has indexed are then
+ * not examined at startup; all others still are.</p>
+ *
+ * <h2>Filtering</h2>
+ *
+ * <p>For filtering that the Kubernetes API server cannot perform
+ * (for example, on annotation values, owner references or status
+ * conditions), you may produce any number of beans of type {@link
+ * Predicate Predicate&lt;X&gt;}, where {@code X} is the Kubernetes
+ * resource type your event selector is concerned with, qualified
+ * with the same qualifiers as your event selector.  Kubernetes
+ * resources that do not satisfy all such {@link Predicate}s are
+ * discarded on the controller thread before any CDI event resolution
+ * or observer method notification takes place.</p>
+ *
+ * <blockquote><pre>&#64;Produces
+ *&#64;{@link ApplicationScoped}
+ *&#64;AllConfigMapEvents
+ *private static final {@link Predicate}&lt;{@link ConfigMap}&gt; onlyManagedConfigMaps() {
+ *  return configMap -&gt; "true".equals(configMap.getMetadata().getAnnotations().get("example.com/managed"));
+ *}</pre></blockquote>
+ *
  * <h2>Observer Methods</h2>
  *
  * <p>Observer methods are where your CDI application actually takes
@@ -307,6 +578,37 @@ import static javax.interceptor.Interceptor.Priority.LIBRARY_BEFORE;
  * your prior state parameter must also be of type {@link ConfigMap}
  * and must be annotated with {@link Prior @Prior}.</li>
  *
+ * <li>If you need to know how the Kubernetes resource your observer
+ * method is observing differs from its prior state, you may add a
+ * parameter of type {@link ResourceDiff ResourceDiff&lt;X&gt;},
+ * where {@code X} is the observed event type, qualified with {@link
+ * Changes @Changes}.  The difference is computed lazily, at most once
+ * per event, and is shared by all observer methods notified of that
+ * event.</li>
+ *
+ * <li>If your observer method takes long enough that a newer change
+ * to, or the deletion of, the Kubernetes resource it is observing
+ * might arrive in the meantime, you may add a parameter of type
+ * {@link Cancellation}, and poll it to find out whether your work
+ * has been superseded.</li>
+ *
+ * <li>If your observer method is qualified with {@link
+ * Modified @Modified} and is interested only in modifications to
+ * certain parts of a Kubernetes resource, you may list them using
+ * the {@link Modified#paths() paths} element.  The difference
+ * between the resource and its prior state is then computed once per
+ * event and your observer method is notified only if one of those
+ * paths has changed.</li>
+ *
+ * <li>If your observer method hands its work off to something
+ * asynchronous, such as a non-blocking Kubernetes client, it may
+ * return a {@link CompletionStage} representing that work instead of
+ * blocking until it is done.  The Kubernetes resource is then not
+ * considered to have been delivered, for the purposes of injecting
+ * {@link Prior @Prior} and {@link Changes @Changes} parameters and
+ * of limiting the number of events in flight, until that {@link
+ * CompletionStage} has completed.</li>
+ *
  * </ol>
  *
  * <p>Building upon the prior example, here is an example of an
@@ -333,6 +635,8 @@ import static javax.interceptor.Interceptor.Priority.LIBRARY_BEFORE;
  * @see Deleted
  *
  * @see Prior
+ *
+ * @see Changes
  */
 public class KubernetesControllerExtension extends AbstractBlockingExtension {
 
@@ -343,13 +647,45 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
 
   
   private final Collection<Controller<?>> controllers;
+
+  // Guarded by this.controllers.
+  private boolean stopped;
+
+  // Guarded by this.controllers.
+  private ShardLeaser shardLeaser;
+
+  // Guarded by this.controllers.
+  private ScheduledExecutorService pacingExecutor;
+
+  // Guarded by this.controllers.
+  private EventDispatcher eventDispatcher;
+
+  private final Leadership leadership;
   
   private final Map<Set<Annotation>, Bean<?>> eventSelectorBeans;
 
   private final Set<Bean<?>> beans;
 
+  private final Map<Bean<?>, Set<Annotation>> kubernetesEventSelectors;
+
+  private final Map<Bean<?>, EventSelectorMetrics> metrics;
+
+  private final Map<Bean<?>, InitialSynchronization> initialSynchronizations;
+
+  private final Map<Bean<?>, EventPublisher<?>> eventPublishers;
+
   private final Set<Class<? extends HasMetadata>> priorTypes;
 
+  private final Set<Bean<?>> producerFieldBeans;
+
+  private final TypeAnalysis<Type> listableVersionWatchableTypes;
+
+  private final TypeAnalysis<Class<? extends HasMetadata>> concreteKubernetesResourceClasses;
+
+  private final EventSelectorIndex index;
+
+  private final Map<Class<? extends Annotation>, Boolean> eventSelectorTypes;
+
   private boolean asyncNeeded;
 
   private boolean syncNeeded;
@@ -402,9 +738,19 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
     
     this.eventSelectorBeans = new HashMap<>();
     this.beans = new HashSet<>();
+    this.kubernetesEventSelectors = new HashMap<>();
+    this.metrics = new HashMap<>();
+    this.initialSynchronizations = new HashMap<>();
+    this.eventPublishers = new HashMap<>();
     this.priorTypes = new HashSet<>();
+    this.producerFieldBeans = new HashSet<>();
+    this.listableVersionWatchableTypes = new TypeAnalysis<>(KubernetesControllerExtension::getListableVersionWatchableType);
+    this.concreteKubernetesResourceClasses = new TypeAnalysis<>(KubernetesControllerExtension::extractConcreteKubernetesResourceClass);
+    this.index = loadIndex(this.logger);
+    this.eventSelectorTypes = new HashMap<>();
     this.controllers = new ArrayList<>();
     this.priorContext = new PriorContext();
+    this.leadership = new Leadership();
     this.kubernetesEventContext = new KubernetesEventContext();
 
     if (this.logger.isLoggable(Level.FINER)) {
@@ -488,7 +834,15 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
     }
     
     if (event != null) {
-      this.processPotentialEventSelectorBean(event.getBean(), beanManager);
+      final Bean<?> bean = event.getBean();
+      this.processPotentialEventSelectorBean(bean, beanManager);
+      if (bean != null) {
+        // A producer field yields the same object every time, so
+        // label and field selectors must not be applied to it.
+        synchronized (this.producerFieldBeans) {
+          this.producerFieldBeans.add(bean);
+        }
+      }
     }
     
     if (this.logger.isLoggable(Level.FINER)) {
@@ -706,12 +1060,16 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
   /**
    * {@linkplain Observes Observes} the supplied {@link
    * AfterBeanDiscovery} event and, since all bean discovery is done,
-   * clears out the contents of the {@link #eventSelectorBeans} field.
+   * clears out the contents of the {@link #eventSelectorBeans} field
+   * and adds an {@link EventSelectorMetrics} bean for every event
+   * selector that was found.
    *
    * @param event the container lifecycle event being observed; may be
    * {@code null} in which case no action will be performed
    *
    * @see #eventSelectorBeans
+   *
+   * @see EventSelectorMetrics
    */
   private final void processAfterBeanDiscovery(@Observes final AfterBeanDiscovery event) {
     final String cn = this.getClass().getName();
@@ -723,6 +1081,11 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
     if (event != null) {
       event.addContext(this.priorContext);
       event.addContext(this.kubernetesEventContext);
+
+      event.addBean()
+        .addTransitiveTypeClosure(Leadership.class)
+        .scope(Singleton.class)
+        .createWith(cc -> this.leadership);
       
       this.eventSelectorBeans.clear();
       // TODO: consider: we have the ability to create Controller
@@ -743,9 +1106,66 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
               .qualifiers(Prior.Literal.INSTANCE)
               .scope(PriorScoped.class)
               .types(new ParameterizedTypeImpl(null, Optional.class, new Type[] { priorType }));
+
+            event.addBean()
+              // Like the @Prior-qualified bean above, this Bean is
+              // always supplied by PriorContext#get(Bean), which
+              // hands out the ResourceDiff held by the current
+              // event's Delivery.
+              .createWith(cc -> { throw new UnsupportedOperationException(); })
+              .qualifiers(Changes.Literal.INSTANCE)
+              .scope(PriorScoped.class)
+              .types(new ParameterizedTypeImpl(null, ResourceDiff.class, new Type[] { priorType }));
             
           }
           this.priorTypes.clear();
+
+          event.addBean()
+            // Like the @Prior-qualified beans above, this Bean is
+            // always supplied by PriorContext#get(Bean), which hands
+            // out the Cancellation held by the current event's
+            // Delivery.  Its only type is Cancellation, so that it
+            // is never a candidate for an injection point or a lookup
+            // of Object, which would fail outside of a delivery.
+            .createWith(cc -> { throw new UnsupportedOperationException(); })
+            .scope(PriorScoped.class)
+            .types(Cancellation.class);
+        }
+      }
+
+      synchronized (this.kubernetesEventSelectors) {
+        for (final Map.Entry<Bean<?>, Set<Annotation>> entry : this.kubernetesEventSelectors.entrySet()) {
+          assert entry != null;
+          final EventSelectorMetrics metrics = new EventSelectorMetrics();
+          synchronized (this.metrics) {
+            this.metrics.put(entry.getKey(), metrics);
+          }
+          event.addBean()
+            .addTransitiveTypeClosure(EventSelectorMetrics.class)
+            .qualifiers(entry.getValue())
+            .scope(Singleton.class)
+            .createWith(cc -> metrics);
+          final InitialSynchronization initialSynchronization = new InitialSynchronization();
+          synchronized (this.initialSynchronizations) {
+            this.initialSynchronizations.put(entry.getKey(), initialSynchronization);
+          }
+          event.addBean()
+            .addTransitiveTypeClosure(InitialSynchronization.class)
+            .qualifiers(entry.getValue())
+            .scope(Singleton.class)
+            .createWith(cc -> initialSynchronization);
+          final Class<? extends HasMetadata> concreteKubernetesResourceClass = this.concreteKubernetesResourceClasses.analyze(entry.getKey());
+          if (concreteKubernetesResourceClass != null) {
+            final EventPublisher<?> eventPublisher = new EventPublisher<>();
+            synchronized (this.eventPublishers) {
+              this.eventPublishers.put(entry.getKey(), eventPublisher);
+            }
+            event.addBean()
+              .types(new ParameterizedTypeImpl(EventPublisher.class, new Type[] { concreteKubernetesResourceClass }), Object.class)
+              .qualifiers(entry.getValue())
+              .scope(Singleton.class)
+              .createWith(cc -> eventPublisher);
+          }
         }
       }
       
@@ -813,6 +1233,164 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
 
       final Duration synchronizationInterval = configurations.getValue("synchronizationInterval", Duration.class);
 
+      // Each controller's synchronization interval is varied at
+      // random by up to this fraction so that controllers do not all
+      // synchronize at once.
+      final Double configuredJitter = configurations.getValue("synchronizationJitter", Double.class);
+      final double jitter;
+      if (configuredJitter == null) {
+        jitter = 0.1;
+      } else {
+        jitter = Math.max(0.0, Math.min(configuredJitter.doubleValue(), 0.9));
+      }
+
+      // Each replica of a sharded deployment dispatches, and
+      // optionally caches, only those Kubernetes resources whose keys
+      // belong to its shard.
+      final Shard shard;
+      final Integer shardCount = configurations.getValue("shardCount", Integer.class);
+      if (shardCount == null || shardCount.intValue() <= 1) {
+        shard = null;
+      } else {
+        final Integer shardIndex = configurations.getValue("shardIndex", Integer.class);
+        if (shardIndex == null) {
+          throw new DeploymentException("shardIndex is required when shardCount is greater than 1");
+        }
+        try {
+          shard = new Shard(shardIndex.intValue(), shardCount.intValue());
+        } catch (final IllegalArgumentException illegalArgumentException) {
+          throw new DeploymentException(illegalArgumentException.getMessage(), illegalArgumentException);
+        }
+        if (this.logger.isLoggable(Level.INFO)) {
+          this.logger.logp(Level.INFO, cn, mn, "Serving {0}", shard);
+        }
+      }
+      final Boolean shardCachesValue = configurations.getValue("shardCaches", Boolean.class);
+      final boolean shardCaches = shard != null && shardCachesValue != null && shardCachesValue.booleanValue();
+
+      // Alternatively, replicas may divide shards among themselves
+      // dynamically by means of leases.  Leased shards always
+      // restrict caches as well.
+      final ShardLeaser shardLeaser;
+      final Integer shardLeaseSlots = configurations.getValue("shardLeaseSlots", Integer.class);
+      if (shardLeaseSlots == null || shardLeaseSlots.intValue() <= 0) {
+        shardLeaser = null;
+      } else {
+        if (shard != null) {
+          throw new DeploymentException("shardCount and shardLeaseSlots cannot both be set");
+        }
+        final Bean<?> leaseStoreBean = beanManager.resolve(beanManager.getBeans(LeaseStore.class));
+        if (leaseStoreBean == null) {
+          throw new DeploymentException("A LeaseStore bean is required when shardLeaseSlots is set");
+        }
+        final LeaseStore leaseStore =
+          (LeaseStore)beanManager.getReference(leaseStoreBean,
+                                               LeaseStore.class,
+                                               beanManager.createCreationalContext(leaseStoreBean));
+        final Duration configuredLeaseDuration = configurations.getValue("shardLeaseDuration", Duration.class);
+        final Duration leaseDuration = configuredLeaseDuration == null ? Duration.ofSeconds(15L) : configuredLeaseDuration;
+        final String configuredHolder = configurations.getValue("shardLeaseHolder", String.class);
+        final String holder = configuredHolder == null || configuredHolder.isEmpty() ? UUID.randomUUID().toString() : configuredHolder;
+        try {
+          shardLeaser = new ShardLeaser(leaseStore, holder, shardLeaseSlots.intValue(), leaseDuration);
+        } catch (final IllegalArgumentException illegalArgumentException) {
+          throw new DeploymentException(illegalArgumentException.getMessage(), illegalArgumentException);
+        }
+        // Claim an initial share of the slots so that the initial
+        // LISTs below are already restricted to it.
+        try {
+          shardLeaser.renew();
+        } catch (final IOException ioException) {
+          throw new DeploymentException(ioException.getMessage(), ioException);
+        }
+        synchronized (this.controllers) {
+          this.shardLeaser = shardLeaser;
+        }
+        if (this.logger.isLoggable(Level.INFO)) {
+          this.logger.logp(Level.INFO, cn, mn, "Serving {0}", shardLeaser);
+        }
+      }
+      final KeyOwnership ownership = shardLeaser == null ? shard : shardLeaser;
+
+      // A standby replica keeps its caches current but defers firing
+      // events until it acquires leadership.  Any other replica is
+      // always the leader.
+      final Boolean standbyValue = configurations.getValue("standby", Boolean.class);
+      final boolean standby = standbyValue != null && standbyValue.booleanValue();
+      final Duration configuredDeltaWindow = configurations.getValue("standbyDeltaWindow", Duration.class);
+      final Duration deltaWindow = configuredDeltaWindow == null ? Duration.ofMinutes(1L) : configuredDeltaWindow;
+      if (!standby) {
+        this.leadership.acquire();
+      }
+      final boolean restrictCaches = shardLeaser != null || shardCaches;
+
+      // Observer methods may be spared notifications of Kubernetes
+      // resources that have already been superseded in the cache.
+      final Boolean skipStaleEventsValue = configurations.getValue("skipStaleEvents", Boolean.class);
+      final boolean skipStaleEvents = skipStaleEventsValue != null && skipStaleEventsValue.booleanValue();
+
+      // Synchronization events may be paced so that they are spread
+      // over most of the synchronization interval rather than fired
+      // in a burst.
+      final Boolean pacedSynchronizationValue = configurations.getValue("pacedSynchronization", Boolean.class);
+      final boolean pacedSynchronization = pacedSynchronizationValue != null && pacedSynchronizationValue.booleanValue();
+      final ScheduledExecutorService pacingExecutor;
+      if (pacedSynchronization) {
+        pacingExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "kubernetes-synchronization-pacer");
+            thread.setDaemon(true);
+            return thread;
+          });
+        synchronized (this.controllers) {
+          this.pacingExecutor = pacingExecutor;
+        }
+      } else {
+        pacingExecutor = null;
+      }
+
+      // Events may be queued and dispatched by priority, so that
+      // changes, and deletions above all, are not stuck behind
+      // synchronization events.
+      final Boolean prioritizedDispatchValue = configurations.getValue("prioritizedDispatch", Boolean.class);
+      final EventDispatcher eventDispatcher;
+      if (prioritizedDispatchValue != null && prioritizedDispatchValue.booleanValue()) {
+        final Integer configuredDispatchThreads = configurations.getValue("dispatchThreads", Integer.class);
+        final Integer configuredDispatchConcurrency = configurations.getValue("dispatchConcurrency", Integer.class);
+        final Duration configuredStarvationThreshold = configurations.getValue("dispatchStarvationThreshold", Duration.class);
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final int dispatchConcurrency = configuredDispatchConcurrency == null ? processors : configuredDispatchConcurrency.intValue();
+        // The number of asynchronous events in flight may instead
+        // adapt to observer latency, starting from
+        // dispatchConcurrency.
+        final Boolean adaptiveDispatchConcurrency = configurations.getValue("adaptiveDispatchConcurrency", Boolean.class);
+        final int maxDispatchConcurrency;
+        if (adaptiveDispatchConcurrency != null && adaptiveDispatchConcurrency.booleanValue()) {
+          final Integer configuredMaxDispatchConcurrency = configurations.getValue("maxDispatchConcurrency", Integer.class);
+          maxDispatchConcurrency = configuredMaxDispatchConcurrency == null ? Math.max(256, dispatchConcurrency) : configuredMaxDispatchConcurrency.intValue();
+        } else {
+          maxDispatchConcurrency = dispatchConcurrency;
+        }
+        try {
+          eventDispatcher =
+            new EventDispatcher(dispatchConcurrency,
+                                maxDispatchConcurrency,
+                                configuredStarvationThreshold == null ? Duration.ofSeconds(5L) : configuredStarvationThreshold);
+          eventDispatcher.start(configuredDispatchThreads == null ? processors : configuredDispatchThreads.intValue());
+        } catch (final IllegalArgumentException illegalArgumentException) {
+          throw new DeploymentException(illegalArgumentException.getMessage(), illegalArgumentException);
+        }
+        synchronized (this.controllers) {
+          this.eventDispatcher = eventDispatcher;
+        }
+      } else {
+        eventDispatcher = null;
+      }
+
+      // Event selectors that select exactly the same Kubernetes
+      // resources share one Controller, and hence one LIST+WATCH
+      // connection and one cache.
+      final Map<OperationKey, SharedOperation<T>> sharedOperations = new LinkedHashMap<>();
+
       for (final Bean<?> bean : this.beans) {
         assert bean != null;
         
@@ -824,8 +1402,11 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
           qualifiersArray = qualifiers.toArray(new Annotation[qualifiers.size()]);
         }
 
+        final Class<? extends HasMetadata> concreteKubernetesResourceClass = this.concreteKubernetesResourceClasses.analyze(bean);
+        assert concreteKubernetesResourceClass != null;
+
         @Issue(id = "6", uri = "https://github.com/microbean/microbean-kubernetes-controller-cdi/issues/6")
-        final Type cacheType = new ParameterizedTypeImpl(Map.class, new Type[] { Object.class, extractConcreteKubernetesResourceClass(bean) });
+        final Type cacheType = new ParameterizedTypeImpl(Map.class, new Type[] { Object.class, concreteKubernetesResourceClass });
 
         final Map<Object, T> cache;
         final Set<Bean<?>> cacheBeans = beanManager.getBeans(cacheType, qualifiersArray);
@@ -842,6 +1423,14 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
                                                        cacheType,
                                                        beanManager.createCreationalContext(cacheBean));
             cache = temp;
+            final Cluster cluster = getCluster(qualifiers);
+            if (cluster != null && !cacheBean.getQualifiers().contains(cluster) && this.logger.isLoggable(Level.WARNING)) {
+              // Kubernetes resources in different clusters may well
+              // have the same keys.
+              this.logger.logp(Level.WARNING, cn, mn,
+                               "The Kubernetes resource cache {0} for qualifiers {1} is not qualified with {2} and may be shared with other clusters",
+                               new Object[] { cacheBean, qualifiers, cluster });
+            }
           }
         }
         if (cache == null && this.logger.isLoggable(Level.INFO)) {
@@ -861,45 +1450,375 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
                                                           NotificationOptions.class,
                                                           beanManager.createCreationalContext(notificationOptionsBean));
         }
+
+        // Any number of Predicate beans qualified with the same
+        // qualifiers as the event selector bean may veto the
+        // delivery of Kubernetes resources before any CDI event
+        // machinery is involved.
+        final Type filterType = new ParameterizedTypeImpl(Predicate.class, new Type[] { concreteKubernetesResourceClass });
+        Predicate<T> filter = null;
+        final Set<Bean<?>> filterBeans = beanManager.getBeans(filterType, qualifiersArray);
+        if (filterBeans != null && !filterBeans.isEmpty()) {
+          for (final Bean<?> filterBean : filterBeans) {
+            assert filterBean != null;
+            @SuppressWarnings("unchecked")
+            final Predicate<T> predicate =
+              (Predicate<T>)beanManager.getReference(filterBean,
+                                                     filterType,
+                                                     beanManager.createCreationalContext(filterBean));
+            if (predicate != null) {
+              filter = filter == null ? predicate : filter.and(predicate);
+            }
+          }
+        }
+
+        final Set<Annotation> selection;
+        synchronized (this.kubernetesEventSelectors) {
+          selection = this.kubernetesEventSelectors.get(bean);
+        }
+        final KubernetesEventSelector kubernetesEventSelector = getKubernetesEventSelector(selection);
+        final Duration selectorSynchronizationInterval =
+          getDuration(configurations,
+                      selection,
+                      "synchronizationInterval",
+                      kubernetesEventSelector == null ? null : kubernetesEventSelector.synchronizationInterval(),
+                      synchronizationInterval);
+        final Duration targetLatency =
+          getDuration(configurations,
+                      selection,
+                      "targetLatency",
+                      kubernetesEventSelector == null ? null : kubernetesEventSelector.targetLatency(),
+                      null);
+        final int dispatchWeight = eventDispatcher == null ? 1 : getDispatchWeight(configurations, selection, kubernetesEventSelector);
+
+        final ChangeDetector changeDetector;
+        if (kubernetesEventSelector != null && kubernetesEventSelector.suppressUnchangedModifications()) {
+          changeDetector = new ChangeDetector(kubernetesEventSelector.significantPaths());
+        } else {
+          changeDetector = null;
+        }
+
+        EventSelectorMetrics metrics;
+        synchronized (this.metrics) {
+          metrics = this.metrics.get(bean);
+        }
+        if (metrics == null) {
+          metrics = new EventSelectorMetrics();
+        }
+
+        InitialSynchronization initialSynchronization;
+        synchronized (this.initialSynchronizations) {
+          initialSynchronization = this.initialSynchronizations.get(bean);
+        }
+        if (initialSynchronization == null) {
+          initialSynchronization = new InitialSynchronization();
+        }
+
+        @SuppressWarnings("unchecked")
+        EventPublisher<T> eventPublisher;
+        synchronized (this.eventPublishers) {
+          eventPublisher = (EventPublisher<T>)this.eventPublishers.get(bean);
+        }
+        if (eventPublisher == null) {
+          eventPublisher = new EventPublisher<>();
+        }
         
         @SuppressWarnings("unchecked")
-        final X contextualReference =
+        final X eventSelector =
           (X)beanManager.getReference(bean,
-                                      getListableVersionWatchableType(bean),
+                                      this.listableVersionWatchableTypes.analyze(bean),
                                       beanManager.createCreationalContext(bean));
 
-        final Controller<T> controller =
-          new CDIController<>(contextualReference,
-                              synchronizationInterval,
-                              cache,
-                              new CDIEventDistributor<>(this.priorContext,
-                                                        this.kubernetesEventContext,
-                                                        qualifiers,
-                                                        notificationOptions,
-                                                        this.syncNeeded,
-                                                        this.asyncNeeded),
-                              t -> {
-                                if (this.logger.isLoggable(Level.SEVERE)) {
-                                  this.logger.logp(Level.SEVERE, cn, mn, t.getMessage(), t);
-                                }
-                                return true;
-                              });
+        // Push any label and field selectors down to the Kubernetes
+        // API server so that it, and not this extension, does the
+        // filtering.  fabric8 operations are modified in place when
+        // selectors are applied to them, so this is only safe if the
+        // event selector is not shared with anything else.
+        final X contextualReference;
+        if (kubernetesEventSelector == null) {
+          contextualReference = eventSelector;
+        } else {
+          try {
+            if ((!Selectors.requirements(kubernetesEventSelector.labelSelector()).isEmpty() ||
+                 !Selectors.requirements(kubernetesEventSelector.fieldSelector()).isEmpty()) &&
+                !this.isUnshared(bean)) {
+              throw new DeploymentException("Label and field selectors modify the event selector they are applied to, " +
+                                            "so they may only be applied to @Dependent-scoped producer methods and managed beans " +
+                                            "that return a new operation each time: " + bean);
+            }
+            contextualReference = Selectors.apply(eventSelector,
+                                                  kubernetesEventSelector.labelSelector(),
+                                                  kubernetesEventSelector.fieldSelector());
+          } catch (final IllegalArgumentException illegalArgumentException) {
+            throw new DeploymentException(illegalArgumentException.getMessage(), illegalArgumentException);
+          }
+        }
+
+        final OperationKey operationKey = new OperationKey(concreteKubernetesResourceClass, contextualReference, selectorSynchronizationInterval);
+        SharedOperation<T> sharedOperation = sharedOperations.get(operationKey);
+        if (sharedOperation == null) {
+          sharedOperation = new SharedOperation<>(contextualReference, selectorSynchronizationInterval);
+          sharedOperations.put(operationKey, sharedOperation);
+        } else if (this.logger.isLoggable(Level.INFO)) {
+          this.logger.logp(Level.INFO, cn, mn,
+                           "Sharing Kubernetes operation {0} with event selector qualifiers {1}",
+                           new Object[] { operationKey, qualifiers });
+        }
+        // A stale event is skipped only if the newer state that
+        // superseded it in the cache is certain to be delivered as
+        // well, which it might not be if events are filtered or
+        // suppressed.
+        final Map<Object, T> staleCache;
+        if (skipStaleEvents && cache != null) {
+          if (filter == null && changeDetector == null) {
+            staleCache = cache;
+          } else {
+            staleCache = null;
+            if (this.logger.isLoggable(Level.INFO)) {
+              this.logger.logp(Level.INFO, cn, mn,
+                               "Stale events will not be skipped for qualifiers {0} since their events are filtered or suppressed",
+                               qualifiers);
+            }
+          }
+        } else {
+          staleCache = null;
+        }
 
-        if (this.logger.isLoggable(Level.INFO)) {
-          this.logger.logp(Level.INFO, cn, mn, "Starting {0}", controller);
+        final Duration pacingWindow;
+        if (pacedSynchronization && selectorSynchronizationInterval != null) {
+          pacingWindow = selectorSynchronizationInterval.multipliedBy(4L).dividedBy(5L);
+        } else {
+          pacingWindow = null;
         }
-        try {
-          controller.start();
-        } catch (final IOException ioException) {
-          throw new DeploymentException(ioException.getMessage(), ioException);
+        final CDIEventDistributor<T> eventDistributor = new CDIEventDistributor<>(this.priorContext,
+                                                      this.kubernetesEventContext,
+                                                      qualifiers,
+                                                      notificationOptions,
+                                                      filter,
+                                                      changeDetector,
+                                                      staleCache,
+                                                      cache,
+                                                      restrictCaches ? null : ownership,
+                                                      metrics,
+                                                      initialSynchronization,
+                                                      eventPublisher,
+                                                      standby ? this.leadership : null,
+                                                      deltaWindow,
+                                                      pacingWindow,
+                                                      eventDispatcher,
+                                                      dispatchWeight,
+                                                      targetLatency,
+                                                      this.syncNeeded,
+                                                      this.asyncNeeded);
+        final SynchronizationPacer<?> pacer = eventDistributor.getPacer();
+        if (pacer != null) {
+          pacingExecutor.scheduleAtFixedRate(pacer::tick,
+                                             SynchronizationPacer.TICK.toNanos(),
+                                             SynchronizationPacer.TICK.toNanos(),
+                                             TimeUnit.NANOSECONDS);
+        }
+        sharedOperation.add(eventDistributor, cache);
+      }
+
+      final Function<? super Throwable, Boolean> errorHandler = t -> {
+        if (this.logger.isLoggable(Level.SEVERE)) {
+          this.logger.logp(Level.SEVERE, cn, mn, t.getMessage(), t);
+        }
+        return true;
+      };
+
+      final Collection<SharedOperation<T>> operations;
+      final Boolean collapseNamespaces = configurations.getValue("collapseNamespaces", Boolean.class);
+      if (collapseNamespaces != null && collapseNamespaces.booleanValue()) {
+        operations = collapseNamespaces(sharedOperations, errorHandler);
+      } else {
+        operations = sharedOperations.values();
+      }
+
+      // Controllers are started concurrently, since each one
+      // performs an initial LIST that may take some time.
+      final Integer configuredParallelism = configurations.getValue("controllerStartParallelism", Integer.class);
+      final int parallelism;
+      if (configuredParallelism == null || configuredParallelism.intValue() <= 0) {
+        parallelism = Runtime.getRuntime().availableProcessors();
+      } else {
+        parallelism = configuredParallelism.intValue();
+      }
+
+      final Boolean startInBackground = configurations.getValue("startControllersInBackground", Boolean.class);
+      final boolean background = startInBackground != null && startInBackground.booleanValue();
+
+      // In the background case controllers are handed to
+      // this.controllers as soon as each one starts so that
+      // stopControllers() will close them; otherwise they are handed
+      // over only once all of them have started successfully.
+      final List<Controller<T>> startedControllers = new ArrayList<>(operations.size());
+      final Function<SharedOperation<T>, CDIController<T>> controllerFactory = sharedOperation -> {
+        @SuppressWarnings("unchecked")
+        final X operation = (X)sharedOperation.getOperation();
+        return new CDIController<>(operation,
+                                   jitter(sharedOperation.getSynchronizationInterval(), jitter),
+                                   sharedOperation.getCache(),
+                                   sharedOperation.getConsumers(),
+                                   restrictCaches ? ownership : null,
+                                   errorHandler);
+      };
+
+      // When shards are leased, each SharedOperation's running
+      // Controller is tracked so that it can deliver the Kubernetes
+      // resources of shards this replica gains.  Shards whose
+      // Kubernetes resources could not be listed are remembered, by
+      // the shard leaser's thread alone, so that listing them can be
+      // retried.
+      final Map<SharedOperation<T>, CDIController<T>> runningControllers = new LinkedHashMap<>();
+      final Map<SharedOperation<T>, Set<Integer>> unlistedSlots = new HashMap<>();
+      
+      final List<Callable<Void>> starters = new ArrayList<>(operations.size());
+      for (final SharedOperation<T> sharedOperation : operations) {
+        assert sharedOperation != null;
+
+        final CDIController<T> controller = controllerFactory.apply(sharedOperation);
+
+        final List<CDIEventDistributor<T>> eventDistributors = sharedOperation.getEventDistributors();
+
+        // A controller for a particular cluster that fails to start
+        // affects neither deployment nor the controllers for other
+        // clusters.
+        boolean clustered = false;
+        for (final CDIEventDistributor<T> eventDistributor : eventDistributors) {
+          if (getCluster(Arrays.asList(eventDistributor.getQualifiers())) != null) {
+            clustered = true;
+            break;
+          }
         }
+        final boolean isolated = clustered;
         
+        starters.add(() -> {
+            if (this.logger.isLoggable(Level.INFO)) {
+              this.logger.logp(Level.INFO, cn, mn, "Starting {0}", controller);
+            }
+            final long startTime = System.nanoTime();
+            try {
+              controller.start();
+            } catch (final IOException | RuntimeException startException) {
+              for (final CDIEventDistributor<T> eventDistributor : eventDistributors) {
+                eventDistributor.getInitialSynchronization().fail(startException);
+              }
+              if (isolated) {
+                errorHandler.apply(startException);
+                return null;
+              }
+              throw startException;
+            }
+            final Duration startDuration = Duration.ofNanos(System.nanoTime() - startTime);
+            if (background) {
+              final boolean stopped;
+              synchronized (this.controllers) {
+                stopped = this.stopped;
+                if (!stopped) {
+                  this.controllers.add(controller);
+                }
+              }
+              if (stopped) {
+                controller.close();
+                return null;
+              }
+            } else {
+              synchronized (startedControllers) {
+                startedControllers.add(controller);
+              }
+            }
+            if (shardLeaser != null) {
+              synchronized (runningControllers) {
+                runningControllers.put(sharedOperation, controller);
+              }
+            }
+            if (this.logger.isLoggable(Level.INFO)) {
+              this.logger.logp(Level.INFO, cn, mn, "Started {0} in {1} ms", new Object[] { controller, Long.valueOf(startDuration.toMillis()) });
+            }
+            for (final CDIEventDistributor<T> eventDistributor : eventDistributors) {
+              eventDistributor.getMetrics().setControllerStartDuration(startDuration);
+            }
+            // The initial LIST has been queued, but is cached only as
+            // the controller drains its queue.
+            controller.whenSynchronized(() -> {
+                for (final CDIEventDistributor<T> eventDistributor : eventDistributors) {
+                  final InitialSynchronization initialSynchronization = eventDistributor.getInitialSynchronization();
+                  initialSynchronization.complete();
+                  try {
+                    beanManager.getEvent().select(eventDistributor.getQualifiers()).fire(initialSynchronization);
+                  } catch (final RuntimeException runtimeException) {
+                    errorHandler.apply(runtimeException);
+                  }
+                }
+              });
+            return null;
+          });
+      }
+
+      final Runnable rebalancer;
+      if (shardLeaser == null) {
+        rebalancer = null;
+      } else {
+        rebalancer = () -> shardLeaser.start((gained, lost) -> this.rebalance(runningControllers,
+                                                                              unlistedSlots,
+                                                                              shardLeaser,
+                                                                              gained,
+                                                                              lost,
+                                                                              errorHandler));
+      }
+
+      if (background) {
+        final Thread starterThread = new Thread(() -> {
+            final Throwable failure = start(starters, parallelism);
+            if (failure != null) {
+              errorHandler.apply(failure);
+            }
+            if (rebalancer != null) {
+              synchronized (this.controllers) {
+                if (!this.stopped) {
+                  rebalancer.run();
+                }
+              }
+            }
+          }, "kubernetes-controller-starter");
+        starterThread.setDaemon(true);
+        starterThread.start();
+      } else {
+        final Throwable failure = start(starters, parallelism);
+        if (failure != null) {
+          closeAll(startedControllers, failure);
+          if (pacingExecutor != null) {
+            pacingExecutor.shutdownNow();
+          }
+          if (eventDispatcher != null) {
+            eventDispatcher.close();
+          }
+          if (shardLeaser != null) {
+            try {
+              shardLeaser.close();
+            } catch (final IOException ioException) {
+              failure.addSuppressed(ioException);
+            }
+          }
+          throw new DeploymentException(failure.getMessage(), failure);
+        }
         synchronized (this.controllers) {
-          this.controllers.add(controller);
+          this.controllers.addAll(startedControllers);
+        }
+        if (rebalancer != null) {
+          rebalancer.run();
         }
       }
       
     }
+
+    // Type analysis is only needed during startup.
+    this.listableVersionWatchableTypes.clear();
+    this.concreteKubernetesResourceClasses.clear();
+    synchronized (this.eventSelectorTypes) {
+      this.eventSelectorTypes.clear();
+    }
     
     if (this.logger.isLoggable(Level.FINER)) {
       this.logger.exiting(cn, mn);
@@ -936,6 +1855,7 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
 
     Exception exception = null;
     synchronized (this.controllers) {
+      this.stopped = true;
       for (final Controller<?> controller : this.controllers) {
         assert controller != null;
         try {
@@ -948,6 +1868,28 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
           }
         }
       }
+      if (this.pacingExecutor != null) {
+        this.pacingExecutor.shutdownNow();
+      }
+      if (this.eventDispatcher != null) {
+        this.eventDispatcher.close();
+      }
+      synchronized (this.eventPublishers) {
+        for (final EventPublisher<?> eventPublisher : this.eventPublishers.values()) {
+          eventPublisher.close();
+        }
+      }
+      if (this.shardLeaser != null) {
+        try {
+          this.shardLeaser.close();
+        } catch (final IOException closeException) {
+          if (exception == null) {
+            exception = closeException;
+          } else {
+            exception.addSuppressed(closeException);
+          }
+        }
+      }
     }
 
     if (exception instanceof IOException) {
@@ -970,38 +1912,90 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
 
 
   /**
-   * Given a {@link Bean}, checks to see if it is annotated with at
-   * least one annotation that is, in turn, annotated with {@link
-   * KubernetesEventSelector}, and, if so, adds it to a list of
-   * candidate sources of objects that are both {@link Listable} and
-   * {@link VersionWatchable}.
+   * Adjusts the caches and {@link Controller}s started by {@link
+   * #startControllers(Object, BeanManager)} after a round of shard
+   * lease renewal.
    *
-   * @param bean the {@link Bean} to inspect; may be {@code null} in
-   * which case no action will be taken
+   * <p>Kubernetes resources whose keys are no longer owned are
+   * evicted from all caches.  Each {@link Controller} keeps watching
+   * throughout, since its ownership predicate is consulted afresh for
+   * every event.  If any shards were gained, each operation is listed
+   * once more, and the newly owned Kubernetes resources that have not
+   * been seen since are delivered, by way of the {@link Controller},
+   * as synchronization events.  Shards whose Kubernetes resources
+   * could not be listed are listed again in later rounds for as long
+   * as they are still owned.</p>
    *
-   * @param beanManager the {@link BeanManager} in effect for the
-   * current CDI container; may be {@code null}
+   * @param runningControllers the currently running {@link
+   * CDIController}s indexed by the {@link SharedOperation}s they
+   * serve; must not be {@code null}
    *
-   * @see Annotations#retainAnnotationsQualifiedWith(Collection,
-   * Class, BeanManager)
+   * @param unlistedSlots the shards, indexed by the {@link
+   * SharedOperation}s they concern, whose Kubernetes resources have
+   * yet to be listed successfully; must not be {@code null}; will be
+   * updated
    *
-   * @see KubernetesEventSelector
+   * @param shardLeaser the {@link ShardLeaser} that determines which
+   * keys are now owned; must not be {@code null}
+   *
+   * @param gained the shards that were gained in the latest round;
+   * must not be {@code null}; may be empty
+   *
+   * @param lost the shards that were lost in the latest round; must
+   * not be {@code null}; may be empty
+   *
+   * @param errorHandler a {@link Function} to handle any failures;
+   * must not be {@code null}
+   *
+   * @see ShardLeaser#start(java.util.function.BiConsumer)
    */
-  private final void processPotentialEventSelectorBean(final Bean<?> bean, final BeanManager beanManager) {
+  private final <T extends HasMetadata> void rebalance(final Map<SharedOperation<T>, CDIController<T>> runningControllers,
+                                                       final Map<SharedOperation<T>, Set<Integer>> unlistedSlots,
+                                                       final ShardLeaser shardLeaser,
+                                                       final Set<Integer> gained,
+                                                       final Set<Integer> lost,
+                                                       final Function<? super Throwable, Boolean> errorHandler) {
     final String cn = this.getClass().getName();
-    final String mn = "processPotentialEventSelectorBean";
+    final String mn = "rebalance";
     if (this.logger.isLoggable(Level.FINER)) {
-      this.logger.entering(cn, mn, new Object[] { bean, beanManager });
+      this.logger.entering(cn, mn, new Object[] { runningControllers, unlistedSlots, shardLeaser, gained, lost, errorHandler });
     }
 
-    if (bean != null) {
-      final Type listableVersionWatchableType = getListableVersionWatchableType(bean);
-      if (listableVersionWatchableType != null) {
-        final Set<Annotation> kubernetesEventSelectors = Annotations.retainAnnotationsQualifiedWith(bean.getQualifiers(), KubernetesEventSelector.class, beanManager);
-        if (kubernetesEventSelectors != null && !kubernetesEventSelectors.isEmpty()) {
-          synchronized (this.eventSelectorBeans) {
-            this.eventSelectorBeans.put(kubernetesEventSelectors, bean);
+    final List<Map.Entry<SharedOperation<T>, CDIController<T>>> entries;
+    synchronized (runningControllers) {
+      entries = new ArrayList<>(runningControllers.entrySet());
+    }
+    for (final Map.Entry<SharedOperation<T>, CDIController<T>> entry : entries) {
+      final SharedOperation<T> sharedOperation = entry.getKey();
+      if (!lost.isEmpty()) {
+        for (final Map<Object, T> cache : sharedOperation.getCaches()) {
+          synchronized (cache) {
+            cache.keySet().removeIf(key -> !shardLeaser.owns(key));
+          }
+        }
+      }
+      final Set<Integer> slots = new TreeSet<>(gained);
+      final Set<Integer> unlisted = unlistedSlots.remove(sharedOperation);
+      if (unlisted != null) {
+        slots.addAll(unlisted);
+      }
+      slots.retainAll(shardLeaser.getOwnedSlots());
+      if (!slots.isEmpty()) {
+        synchronized (this.controllers) {
+          if (this.stopped) {
+            break;
+          }
+        }
+        try {
+          entry.getValue().relist(() -> list(sharedOperation.getOperation()),
+                                  key -> key != null && slots.contains(Integer.valueOf(shardLeaser.getSlot(key))),
+                                  sharedOperation.toConsumers());
+          if (this.logger.isLoggable(Level.INFO)) {
+            this.logger.logp(Level.INFO, cn, mn, "Listed shards {0} for {1}", new Object[] { slots, entry.getValue() });
           }
+        } catch (final Exception exception) {
+          unlistedSlots.put(sharedOperation, slots);
+          errorHandler.apply(exception);
         }
       }
     }
@@ -1012,25 +2006,171 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
   }
 
   /**
-   * Given an {@link ObserverMethod}, checks to see if its event
-   * parameter is annotated with at least one annotation that is, in
-   * turn, annotated with {@link KubernetesEventSelector}, and, if so,
-   * makes sure that any {@link Bean}s whose {@linkplain
-   * Bean#getQualifiers() qualifiers} line up are retained by this
-   * extension as sources of {@link Listable} and {@link
-   * VersionWatchable} instances.
+   * Lists the Kubernetes resources selected by the supplied
+   * operation.
    *
-   * @param <X> a type that extends {@link HasMetadata} and therefore
-   * represents a persistent Kubernetes resource
+   * @param operation a {@link Listable}; must not be {@code null}
    *
-   * @param event the {@link ProcessObserverMethod} event to inspect;
-   * may be {@code null} in which case no action will be taken
+   * @return the Kubernetes resources listed, or {@code null}
    *
-   * @param beanManager the {@link BeanManager} in effect for the
+   * @exception ClassCastException if {@code operation} is not a
+   * {@link Listable}
+   */
+  // This @SuppressWarnings("rawtypes") is here because the
+  // kubernetes-model project uses raw types throughout.
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static final <T extends HasMetadata> Collection<? extends T> list(final Object operation) {
+    final KubernetesResourceList list = ((Listable<? extends KubernetesResourceList>)operation).list();
+    return list == null ? null : (Collection<? extends T>)list.getItems();
+  }
+
+
+  /**
+   * Given a {@link Bean}, checks to see if it is annotated with at
+   * least one annotation that is, in turn, annotated with {@link
+   * KubernetesEventSelector}, and, if so, adds it to a list of
+   * candidate sources of objects that are both {@link Listable} and
+   * {@link VersionWatchable}.
+   *
+   * @param bean the {@link Bean} to inspect; may be {@code null} in
+   * which case no action will be taken
+   *
+   * @param beanManager the {@link BeanManager} in effect for the
+   * current CDI container; may be {@code null}
+   *
+   * @see #retainEventSelectors(Collection, BeanManager)
+   *
+   * @see KubernetesEventSelector
+   */
+  private final void processPotentialEventSelectorBean(final Bean<?> bean, final BeanManager beanManager) {
+    final String cn = this.getClass().getName();
+    final String mn = "processPotentialEventSelectorBean";
+    if (this.logger.isLoggable(Level.FINER)) {
+      this.logger.entering(cn, mn, new Object[] { bean, beanManager });
+    }
+
+    if (bean != null) {
+      final Set<Annotation> kubernetesEventSelectors;
+      if (this.listableVersionWatchableTypes.analyze(bean) != null) {
+        kubernetesEventSelectors = this.retainEventSelectors(bean.getQualifiers(), beanManager);
+      } else {
+        kubernetesEventSelectors = null;
+      }
+      if (kubernetesEventSelectors != null && !kubernetesEventSelectors.isEmpty()) {
+        // Event selectors for different clusters are told apart by
+        // their Cluster qualifiers.
+        final Cluster cluster = getCluster(bean.getQualifiers());
+        final Set<Annotation> selection;
+        if (cluster == null) {
+          selection = kubernetesEventSelectors;
+        } else {
+          selection = new LinkedHashSet<>(kubernetesEventSelectors);
+          selection.add(cluster);
+        }
+        synchronized (this.eventSelectorBeans) {
+          this.eventSelectorBeans.put(selection, bean);
+        }
+      }
+    }
+
+    if (this.logger.isLoggable(Level.FINER)) {
+      this.logger.exiting(cn, mn);
+    }
+  }
+
+  /**
+   * Returns a new {@link Set} containing those of the supplied
+   * qualifiers whose {@linkplain Annotation#annotationType()
+   * annotation types} are annotated, directly or by way of other
+   * annotations, with {@link KubernetesEventSelector}.
+   *
+   * <p>Annotation types listed in the {@link EventSelectorIndex} are
+   * taken to be event selectors without further ado.  All others are
+   * analyzed reflectively, once per annotation type.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param qualifiers the qualifiers to filter; may be {@code null}
+   *
+   * @param beanManager the {@link BeanManager} in effect for the
    * current CDI container; may be {@code null}
    *
+   * @return a non-{@code null} {@link Set} of event selector
+   * qualifiers
+   *
    * @see Annotations#retainAnnotationsQualifiedWith(Collection,
    * Class, BeanManager)
+   */
+  private final Set<Annotation> retainEventSelectors(final Collection<? extends Annotation> qualifiers, final BeanManager beanManager) {
+    final Set<Annotation> returnValue = new LinkedHashSet<>();
+    if (qualifiers != null) {
+      for (final Annotation qualifier : qualifiers) {
+        if (qualifier != null) {
+          final Class<? extends Annotation> annotationType = qualifier.annotationType();
+          Boolean eventSelector;
+          if (this.index.isEventSelector(annotationType)) {
+            eventSelector = Boolean.TRUE;
+          } else {
+            synchronized (this.eventSelectorTypes) {
+              eventSelector = this.eventSelectorTypes.get(annotationType);
+            }
+            if (eventSelector == null) {
+              final Set<Annotation> retained = Annotations.retainAnnotationsQualifiedWith(Collections.singleton(qualifier), KubernetesEventSelector.class, beanManager);
+              eventSelector = Boolean.valueOf(retained != null && !retained.isEmpty());
+              synchronized (this.eventSelectorTypes) {
+                this.eventSelectorTypes.put(annotationType, eventSelector);
+              }
+            }
+          }
+          if (eventSelector.booleanValue()) {
+            returnValue.add(qualifier);
+          }
+        }
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns {@code true} if every contextual reference to the
+   * supplied event selector {@link Bean} is a new object that is
+   * shared with nothing else, which is the case for {@link
+   * Dependent}-scoped producer methods and managed beans.
+   *
+   * @param bean the event selector {@link Bean}; must not be {@code
+   * null}
+   *
+   * @return {@code true} if the supplied {@link Bean}'s contextual
+   * references may safely be modified; {@code false} otherwise
+   */
+  private final boolean isUnshared(final Bean<?> bean) {
+    if (!Dependent.class.equals(bean.getScope())) {
+      return false;
+    }
+    synchronized (this.producerFieldBeans) {
+      return !this.producerFieldBeans.contains(bean);
+    }
+  }
+
+  /**
+   * Given an {@link ObserverMethod}, checks to see if its event
+   * parameter is annotated with at least one annotation that is, in
+   * turn, annotated with {@link KubernetesEventSelector}, and, if so,
+   * makes sure that any {@link Bean}s whose {@linkplain
+   * Bean#getQualifiers() qualifiers} line up are retained by this
+   * extension as sources of {@link Listable} and {@link
+   * VersionWatchable} instances.
+   *
+   * @param <X> a type that extends {@link HasMetadata} and therefore
+   * represents a persistent Kubernetes resource
+   *
+   * @param event the {@link ProcessObserverMethod} event to inspect;
+   * may be {@code null} in which case no action will be taken
+   *
+   * @param beanManager the {@link BeanManager} in effect for the
+   * current CDI container; may be {@code null}
+   *
+   * @see #retainEventSelectors(Collection, BeanManager)
    *
    * @see KubernetesEventSelector
    */
@@ -1044,10 +2184,31 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
     if (event != null) {
       final ObserverMethod<X> observerMethod = event.getObserverMethod();
       if (observerMethod != null) {
-        final Set<Annotation> kubernetesEventSelectors = Annotations.retainAnnotationsQualifiedWith(observerMethod.getObservedQualifiers(), KubernetesEventSelector.class, beanManager);
+        final Set<Annotation> kubernetesEventSelectors = this.retainEventSelectors(observerMethod.getObservedQualifiers(), beanManager);
         if (kubernetesEventSelectors != null && !kubernetesEventSelectors.isEmpty()) {
+          List<String[]> paths = null;
+          for (final Annotation observedQualifier : observerMethod.getObservedQualifiers()) {
+            if (observedQualifier instanceof Modified) {
+              final Modified modified = (Modified)observedQualifier;
+              if (!modified.synchronization()) {
+                paths = JsonPaths.segments(modified.paths());
+              }
+              break;
+            }
+          }
+          // The CDI container discards whatever an observer method
+          // returns, so an observer method that returns a
+          // CompletionStage is invoked by this extension instead.
+          final ObserverInvoker invoker;
+          if (!(event instanceof ProcessSyntheticObserverMethod) &&
+              ObserverInvoker.returnsCompletionStage(event.getAnnotatedMethod()) &&
+              observerMethod.getDeclaringBean() != null) {
+            invoker = new ObserverInvoker(event.getAnnotatedMethod(), observerMethod.getDeclaringBean(), observerMethod.getReception());
+          } else {
+            invoker = null;
+          }
           event.configureObserverMethod()
-            .notifyWith(new Notifier<>(this.priorContext, this.kubernetesEventContext, observerMethod));
+            .notifyWith(new Notifier<>(this.priorContext, this.kubernetesEventContext, observerMethod, paths, invoker));
           if (observerMethod.isAsync()) {
             if (!this.asyncNeeded) {
               this.asyncNeeded = true;
@@ -1055,17 +2216,43 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
           } else if (!this.syncNeeded) {
             this.syncNeeded = true;
           }
-          final Bean<?> bean;
+          // An observer method that is not qualified with Cluster
+          // observes the event selectors of every cluster.
+          final Cluster cluster = getCluster(observerMethod.getObservedQualifiers());
+          final Map<Set<Annotation>, Bean<?>> matchingBeans = new LinkedHashMap<>();
           synchronized (this.eventSelectorBeans) {
-            bean = this.eventSelectorBeans.remove(kubernetesEventSelectors);
+            final Iterator<Map.Entry<Set<Annotation>, Bean<?>>> iterator = this.eventSelectorBeans.entrySet().iterator();
+            while (iterator.hasNext()) {
+              final Map.Entry<Set<Annotation>, Bean<?>> entry = iterator.next();
+              final Set<Annotation> selection = entry.getKey();
+              final Cluster selectionCluster = getCluster(selection);
+              if (cluster == null || cluster.equals(selectionCluster)) {
+                final Set<Annotation> selectors;
+                if (selectionCluster == null) {
+                  selectors = selection;
+                } else {
+                  selectors = new HashSet<>(selection);
+                  selectors.remove(selectionCluster);
+                }
+                if (selectors.equals(kubernetesEventSelectors)) {
+                  matchingBeans.put(selection, entry.getValue());
+                  iterator.remove();
+                }
+              }
+            }
           }
-          if (bean != null) {
+          for (final Map.Entry<Set<Annotation>, Bean<?>> entry : matchingBeans.entrySet()) {
+            final Bean<?> bean = entry.getValue();
+            assert bean != null;
             boolean added;
             synchronized (this.beans) {            
               added = this.beans.add(bean);
             }
             if (added) {
-              final Class<? extends HasMetadata> concreteKubernetesResourceClass = extractConcreteKubernetesResourceClass(bean);
+              synchronized (this.kubernetesEventSelectors) {
+                this.kubernetesEventSelectors.put(bean, entry.getKey());
+              }
+              final Class<? extends HasMetadata> concreteKubernetesResourceClass = this.concreteKubernetesResourceClasses.analyze(bean);
               assert concreteKubernetesResourceClass != null;
               synchronized (this.priorTypes) {
                 this.priorTypes.add(concreteKubernetesResourceClass);
@@ -1195,6 +2382,388 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
     return returnValue;
   }
 
+  /**
+   * Returns the first {@link KubernetesEventSelector} found annotating
+   * the {@linkplain Annotation#annotationType() annotation type} of
+   * any of the supplied {@link Annotation}s, or {@code null} if there
+   * is no such {@link KubernetesEventSelector}.
+   *
+   * @param qualifiers the event selector qualifiers to inspect; may
+   * be {@code null} in which case {@code null} will be returned
+   *
+   * @return a {@link KubernetesEventSelector}, or {@code null}
+   */
+  private static final KubernetesEventSelector getKubernetesEventSelector(final Collection<? extends Annotation> qualifiers) {
+    KubernetesEventSelector returnValue = null;
+    if (qualifiers != null && !qualifiers.isEmpty()) {
+      for (final Annotation qualifier : qualifiers) {
+        if (qualifier != null) {
+          returnValue = qualifier.annotationType().getAnnotation(KubernetesEventSelector.class);
+          if (returnValue != null) {
+            break;
+          }
+        }
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns a {@link Duration}-valued setting, such as the
+   * synchronization interval, for the event selector identified by
+   * the supplied qualifiers.
+   *
+   * <p>A <em>name</em>{@code .}<em>annotationTypeName</em>
+   * configuration property for any of the event selector's
+   * annotations takes precedence, followed by the supplied value of
+   * the like-named element of its {@link KubernetesEventSelector},
+   * followed by the supplied default.</p>
+   *
+   * @param configurations the {@link Configurations} to consult; must
+   * not be {@code null}
+   *
+   * @param selection the event selector's qualifiers; may be {@code
+   * null}
+   *
+   * @param name the name of the setting; must not be {@code null}
+   *
+   * @param value the value of the {@link KubernetesEventSelector}
+   * element named {@code name}, expressed as an ISO-8601 duration;
+   * may be {@code null} or empty if there is none
+   *
+   * @param defaultValue the {@link Duration} to return if no other is
+   * specified; may be {@code null}
+   *
+   * @return the {@link Duration}, or {@code null}
+   *
+   * @exception DeploymentException if {@code value} could not be
+   * parsed
+   *
+   * @see KubernetesEventSelector#synchronizationInterval()
+   *
+   * @see KubernetesEventSelector#targetLatency()
+   */
+  private static final Duration getDuration(final Configurations configurations,
+                                            final Collection<? extends Annotation> selection,
+                                            final String name,
+                                            final String value,
+                                            final Duration defaultValue) {
+    Duration returnValue = null;
+    if (selection != null) {
+      for (final Annotation qualifier : selection) {
+        if (qualifier != null && qualifier.annotationType().isAnnotationPresent(KubernetesEventSelector.class)) {
+          returnValue = configurations.getValue(name + "." + qualifier.annotationType().getName(), Duration.class);
+          if (returnValue != null) {
+            break;
+          }
+        }
+      }
+    }
+    if (returnValue == null && value != null && !value.isEmpty()) {
+      try {
+        returnValue = Duration.parse(value);
+      } catch (final DateTimeParseException dateTimeParseException) {
+        throw new DeploymentException(dateTimeParseException.getMessage(), dateTimeParseException);
+      }
+    }
+    if (returnValue == null) {
+      returnValue = defaultValue;
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the dispatch weight for the event selector identified by
+   * the supplied qualifiers.
+   *
+   * <p>A {@code dispatchWeight.}<em>annotationTypeName</em>
+   * configuration property for any of the event selector's
+   * annotations takes precedence, followed by the {@link
+   * KubernetesEventSelector#dispatchWeight() dispatchWeight} element
+   * of its {@link KubernetesEventSelector}, followed by {@code 1}.</p>
+   *
+   * @param configurations the {@link Configurations} to consult; must
+   * not be {@code null}
+   *
+   * @param selection the event selector's qualifiers; may be {@code
+   * null}
+   *
+   * @param kubernetesEventSelector the event selector's {@link
+   * KubernetesEventSelector}; may be {@code null}
+   *
+   * @return the dispatch weight
+   *
+   * @exception DeploymentException if the dispatch weight is not
+   * greater than zero
+   */
+  private static final int getDispatchWeight(final Configurations configurations,
+                                             final Collection<? extends Annotation> selection,
+                                             final KubernetesEventSelector kubernetesEventSelector) {
+    Integer returnValue = null;
+    if (selection != null) {
+      for (final Annotation qualifier : selection) {
+        if (qualifier != null && qualifier.annotationType().isAnnotationPresent(KubernetesEventSelector.class)) {
+          returnValue = configurations.getValue("dispatchWeight." + qualifier.annotationType().getName(), Integer.class);
+          if (returnValue != null) {
+            break;
+          }
+        }
+      }
+    }
+    if (returnValue == null) {
+      returnValue = Integer.valueOf(kubernetesEventSelector == null ? 1 : kubernetesEventSelector.dispatchWeight());
+    }
+    if (returnValue.intValue() <= 0) {
+      throw new DeploymentException("dispatchWeight <= 0 for " + selection + ": " + returnValue);
+    }
+    return returnValue.intValue();
+  }
+
+  /**
+   * Returns a {@link Duration} that differs from the supplied one by
+   * a random amount of at most the supplied fraction of it.
+   *
+   * @param interval the {@link Duration} to vary; may be {@code null}
+   * in which case {@code null} will be returned
+   *
+   * @param jitter the maximum fraction by which to vary {@code
+   * interval}; if not positive, {@code interval} will be returned
+   * unchanged
+   *
+   * @return a varied {@link Duration}, or {@code null}
+   */
+  private static final Duration jitter(final Duration interval, final double jitter) {
+    final Duration returnValue;
+    if (interval == null || interval.isZero() || interval.isNegative() || jitter <= 0.0) {
+      returnValue = interval;
+    } else {
+      final long millis = interval.toMillis();
+      final long spread = (long)(millis * jitter);
+      if (spread <= 0L) {
+        returnValue = interval;
+      } else {
+        returnValue = Duration.ofMillis(millis + ThreadLocalRandom.current().nextLong(-spread, spread + 1L));
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Returns the {@link Cluster} qualifier among the supplied
+   * qualifiers, or {@code null} if there is none.
+   *
+   * @param qualifiers the qualifiers to search; may be {@code null}
+   *
+   * @return a {@link Cluster}, or {@code null}
+   */
+  private static final Cluster getCluster(final Collection<? extends Annotation> qualifiers) {
+    Cluster returnValue = null;
+    if (qualifiers != null && !qualifiers.isEmpty()) {
+      for (final Annotation qualifier : qualifiers) {
+        if (qualifier instanceof Cluster) {
+          returnValue = (Cluster)qualifier;
+          break;
+        }
+      }
+    }
+    return returnValue;
+  }
+
+  /**
+   * Runs the supplied {@link Callable}s, each of which starts a
+   * {@link Controller}, at most {@code parallelism} at a time, and
+   * returns a {@link Throwable} describing all of their failures, or
+   * {@code null} if they all succeeded.
+   *
+   * @param starters the {@link Callable}s to run; must not be {@code
+   * null}
+   *
+   * @param parallelism the maximum number of {@link Callable}s to run
+   * concurrently; if less than {@code 2} they will be run one after
+   * another on the calling thread
+   *
+   * @return a {@link Throwable} whose {@linkplain
+   * Throwable#getSuppressed() suppressed exceptions} describe any
+   * additional failures, or {@code null}
+   *
+   * @exception NullPointerException if {@code starters} is {@code
+   * null}
+   */
+  private static final Throwable start(final List<? extends Callable<Void>> starters, final int parallelism) {
+    final List<Future<Void>> futures;
+    if (parallelism <= 1 || starters.size() <= 1) {
+      futures = new ArrayList<>(starters.size());
+      for (final Callable<Void> starter : starters) {
+        final FutureTask<Void> future = new FutureTask<>(starter);
+        future.run();
+        futures.add(future);
+      }
+    } else {
+      final AtomicInteger threadNumber = new AtomicInteger();
+      final ExecutorService executorService =
+        Executors.newFixedThreadPool(Math.min(parallelism, starters.size()),
+                                     r -> {
+                                       final Thread thread = new Thread(r, "kubernetes-controller-starter-" + threadNumber.incrementAndGet());
+                                       thread.setDaemon(true);
+                                       return thread;
+                                     });
+      try {
+        futures = executorService.invokeAll(starters);
+      } catch (final InterruptedException interruptedException) {
+        Thread.currentThread().interrupt();
+        return interruptedException;
+      } finally {
+        executorService.shutdownNow();
+      }
+    }
+
+    Throwable failure = null;
+    for (final Future<Void> future : futures) {
+      assert future != null;
+      assert future.isDone();
+      try {
+        future.get();
+      } catch (final ExecutionException executionException) {
+        final Throwable cause = executionException.getCause() == null ? executionException : executionException.getCause();
+        if (failure == null) {
+          failure = cause;
+        } else {
+          failure.addSuppressed(cause);
+        }
+      } catch (final CancellationException | InterruptedException exception) {
+        if (exception instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+        }
+        if (failure == null) {
+          failure = exception;
+        } else {
+          failure.addSuppressed(exception);
+        }
+      }
+    }
+    return failure;
+  }
+
+  /**
+   * {@linkplain Controller#close() Closes} each of the supplied
+   * {@link Controller}s, recording any failure as a {@linkplain
+   * Throwable#addSuppressed(Throwable) suppressed exception} of the
+   * supplied {@link Throwable}.
+   *
+   * @param controllers the {@link Controller}s to close; must not be
+   * {@code null}
+   *
+   * @param failure the failure that caused the {@link Controller}s to
+   * be closed; must not be {@code null}
+   *
+   * @exception NullPointerException if either parameter is {@code
+   * null}
+   */
+  private static final void closeAll(final Collection<? extends Controller<?>> controllers, final Throwable failure) {
+    Objects.requireNonNull(failure);
+    synchronized (controllers) {
+      for (final Controller<?> controller : controllers) {
+        assert controller != null;
+        try {
+          controller.close();
+        } catch (final IOException | RuntimeException closeException) {
+          failure.addSuppressed(closeException);
+        }
+      }
+    }
+  }
+
+  /**
+   * Collapses {@link SharedOperation}s that differ only in the
+   * namespace to which they are restricted into single {@link
+   * SharedOperation}s that list and watch Kubernetes resources in any
+   * namespace and route events to the original {@link
+   * SharedOperation}s' consumers by namespace.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * <p>{@link SharedOperation}s whose operations cannot be inspected,
+   * that are not restricted to a namespace, or that have no
+   * namespace-restricted peers are returned unchanged.</p>
+   *
+   * @param sharedOperations the {@link SharedOperation}s to collapse,
+   * indexed by {@link OperationKey}; must not be {@code null}
+   *
+   * @param errorHandler a {@link Function} to handle any failures
+   * encountered by consumers interested in one namespace; may be
+   * {@code null}
+   *
+   * @return a non-{@code null} {@link Collection} of {@link
+   * SharedOperation}s
+   *
+   * @exception NullPointerException if {@code sharedOperations} is
+   * {@code null}
+   *
+   * @see NamespaceDemultiplexer
+   */
+  private static final <T extends HasMetadata> Collection<SharedOperation<T>> collapseNamespaces(final Map<? extends OperationKey, ? extends SharedOperation<T>> sharedOperations,
+                                                                                                 final Function<? super Throwable, Boolean> errorHandler) {
+    final Collection<SharedOperation<T>> returnValue = new ArrayList<>();
+    final Map<OperationKey, Object> clusterWideOperations = new LinkedHashMap<>();
+    final Map<OperationKey, Map<String, SharedOperation<T>>> groups = new HashMap<>();
+    for (final Map.Entry<? extends OperationKey, ? extends SharedOperation<T>> entry : sharedOperations.entrySet()) {
+      final OperationKey key = entry.getKey();
+      final SharedOperation<T> sharedOperation = entry.getValue();
+      final String namespace = key.getNamespace();
+      OperationKey clusterWideKey = null;
+      Object clusterWideOperation = null;
+      if (namespace != null && sharedOperation.getOperation() instanceof BaseOperation) {
+        clusterWideOperation = ((BaseOperation<?, ?, ?, ?>)sharedOperation.getOperation()).inAnyNamespace();
+        if (clusterWideOperation != null) {
+          clusterWideKey = new OperationKey(key.getResourceClass(), clusterWideOperation, key.getSynchronizationInterval());
+          // Make sure that nothing but the namespace restriction was
+          // lost along the way.
+          if (clusterWideKey.getNamespace() != null || !clusterWideKey.isSameSelectionInAnyNamespace(key)) {
+            clusterWideKey = null;
+          }
+        }
+      }
+      if (clusterWideKey == null) {
+        returnValue.add(sharedOperation);
+      } else {
+        clusterWideOperations.putIfAbsent(clusterWideKey, clusterWideOperation);
+        groups.computeIfAbsent(clusterWideKey, k -> new LinkedHashMap<>()).put(namespace, sharedOperation);
+      }
+    }
+    for (final Map.Entry<OperationKey, Object> entry : clusterWideOperations.entrySet()) {
+      final Map<String, SharedOperation<T>> group = groups.get(entry.getKey());
+      assert group != null;
+      if (group.size() == 1) {
+        returnValue.addAll(group.values());
+      } else {
+        final NamespaceDemultiplexer<T> demultiplexer = new NamespaceDemultiplexer<>(errorHandler);
+        final SharedOperation<T> clusterWideSharedOperation = new SharedOperation<>(entry.getValue(), entry.getKey().getSynchronizationInterval(), new HashMap<>());
+        for (final Map.Entry<String, SharedOperation<T>> namespaceEntry : group.entrySet()) {
+          demultiplexer.put(namespaceEntry.getKey(), namespaceEntry.getValue().toConsumers());
+          clusterWideSharedOperation.getEventDistributors().addAll(namespaceEntry.getValue().getEventDistributors());
+          clusterWideSharedOperation.getCaches().addAll(namespaceEntry.getValue().getCaches());
+        }
+        clusterWideSharedOperation.getConsumers().add(demultiplexer);
+        returnValue.add(clusterWideSharedOperation);
+      }
+    }
+    return returnValue;
+  }
+
+  private static final EventSelectorIndex loadIndex(final Logger logger) {
+    EventSelectorIndex returnValue;
+    try {
+      returnValue = EventSelectorIndex.load(Thread.currentThread().getContextClassLoader());
+    } catch (final IOException ioException) {
+      // An unreadable index only costs startup time.
+      if (logger != null && logger.isLoggable(Level.WARNING)) {
+        logger.logp(Level.WARNING, KubernetesControllerExtension.class.getName(), "loadIndex", ioException.getMessage(), ioException);
+      }
+      returnValue = EventSelectorIndex.EMPTY;
+    }
+    return returnValue;
+  }
+
   private static final Class<? extends HasMetadata> extractConcreteKubernetesResourceClass(final BeanAttributes<?> beanAttributes) {
     Class<? extends HasMetadata> returnValue = null;
     if (beanAttributes != null) {
@@ -1347,6 +2916,12 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
 
     private final EventDistributor<T> eventDistributor;
 
+    private final Siphon<T> siphon;
+
+    private final Map<Object, T> knownObjects;
+
+    private final Function<? super Throwable, Boolean> errorHandler;
+
     private final boolean close;
 
     // This @SuppressWarnings("rawtypes") is here because the
@@ -1359,13 +2934,18 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
     CDIController(final X operation,
                   final Duration synchronizationInterval,
                   final Map<Object, T> knownObjects,
-                  final CDIEventDistributor<T> eventDistributor,
+                  final Collection<? extends Consumer<? super AbstractEvent<? extends T>>> consumers,
+                  final KeyOwnership ownership,
                   final Function<? super Throwable, Boolean> errorHandler) {
-      this(operation, synchronizationInterval, errorHandler, knownObjects, new EventDistributor<>(knownObjects, synchronizationInterval), true);
+      this(operation, synchronizationInterval, errorHandler, knownObjects, new EventDistributor<>(knownObjects, synchronizationInterval), ownership, true);
       assert this.eventDistributor != null;
-      if (eventDistributor != null) {
-        this.eventDistributor.addConsumer(eventDistributor, errorHandler);
-      }      
+      if (consumers != null) {
+        for (final Consumer<? super AbstractEvent<? extends T>> consumer : consumers) {
+          if (consumer != null) {
+            this.eventDistributor.addConsumer(consumer, errorHandler);
+          }
+        }
+      }
     }
 
     // This @SuppressWarnings("rawtypes") is here because the
@@ -1379,27 +2959,515 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
                   final Duration synchronizationInterval,
                   final Function<? super Throwable, Boolean> errorHandler,
                   final Map<Object, T> knownObjects,
-                  final EventDistributor<T> siphon,
+                  final EventDistributor<T> eventDistributor,
+                  final KeyOwnership ownership,
                   final boolean close) {
-      super(operation, null, synchronizationInterval, errorHandler, knownObjects, siphon);
-      this.eventDistributor = Objects.requireNonNull(siphon);
-      this.close = close;
-    }
-
-    @Override
-    protected final boolean shouldSynchronize() {
-      return this.eventDistributor.shouldSynchronize();
+      this(operation, synchronizationInterval, errorHandler, knownObjects, eventDistributor, new Siphon<>(eventDistributor, ownership), close);
     }
 
-    @Override
-    protected final void onClose() {
-      if (this.close) {
-        this.eventDistributor.close();
-      }
-    }
+    // This @SuppressWarnings("rawtypes") is here because the
+    // kubernetes-model project uses raw types throughout.  This class
+    // does not.
+    @SuppressWarnings("rawtypes")
+    private
+    <X extends Listable<? extends KubernetesResourceList>
+               & VersionWatchable<? extends Closeable, Watcher<T>>>
+    CDIController(final X operation,
+                  final Duration synchronizationInterval,
+                  final Function<? super Throwable, Boolean> errorHandler,
+                  final Map<Object, T> knownObjects,
+                  final EventDistributor<T> eventDistributor,
+                  final Siphon<T> siphon,
+                  final boolean close) {
+      super(interceptInitialList(operation, siphon::listed), null, synchronizationInterval, errorHandler, knownObjects, siphon);
+      this.eventDistributor = Objects.requireNonNull(eventDistributor);
+      this.siphon = siphon;
+      this.knownObjects = knownObjects;
+      this.errorHandler = errorHandler;
+      this.close = close;
+    }
+
+    @Override
+    protected final boolean shouldSynchronize() {
+      return this.eventDistributor.shouldSynchronize();
+    }
+
+    /**
+     * Arranges for the supplied {@link Runnable} to be run once every
+     * Kubernetes resource of this {@link CDIController}'s initial
+     * LIST has been cached and handed to its consumers.
+     *
+     * <p>This method must be called only once, and only after {@link
+     * #start()} has returned successfully.  The {@link Runnable} is
+     * run either by the calling thread, if the initial LIST has
+     * already been drained, or later by the thread draining this
+     * {@link CDIController}'s queue.</p>
+     *
+     * @param listener the {@link Runnable} to run; must not be {@code
+     * null}
+     */
+    private final void whenSynchronized(final Runnable listener) {
+      this.siphon.whenSynchronized(listener);
+    }
+
+    /**
+     * Lists Kubernetes resources by means of the supplied {@link
+     * Callable} and hands each one whose key is owned, selected by
+     * the supplied {@link KeyOwnership}, neither cached nor drained
+     * from this {@link CDIController}'s queue in the meantime, to the
+     * supplied {@link Consumer}s as a {@link SynchronizationEvent}.
+     *
+     * <p>The events are handed over while no {@link EventQueue} is
+     * being drained, so they are ordered consistently with those
+     * arriving from this {@link CDIController}'s watch.</p>
+     *
+     * @param lister a {@link Callable} that lists Kubernetes
+     * resources; must not be {@code null}
+     *
+     * @param selection a {@link KeyOwnership} selecting the keys of
+     * interest; must not be {@code null}
+     *
+     * @param consumers the {@link Consumer}s that maintain caches and
+     * distribute events, as returned by {@link
+     * SharedOperation#toConsumers()}; must not be {@code null}
+     *
+     * @exception Exception if {@code lister} fails
+     */
+    private final void relist(final Callable<? extends Collection<? extends T>> lister,
+                              final KeyOwnership selection,
+                              final Collection<? extends Consumer<? super AbstractEvent<? extends T>>> consumers)
+      throws Exception {
+      this.siphon.relist(lister, selection, this.knownObjects, consumers, this.errorHandler);
+    }
+
+    /**
+     * Returns a {@link Listable} that behaves exactly like the
+     * supplied one, except that the result of its first invocation
+     * of {@link Listable#list()} is also handed to the supplied
+     * {@link Consumer}, or the supplied operation itself if it cannot
+     * be so wrapped.
+     */
+    @SuppressWarnings("unchecked")
+    private static final <X> X interceptInitialList(final X operation, final Consumer<Object> listener) {
+      Objects.requireNonNull(operation);
+      Objects.requireNonNull(listener);
+      final Set<Class<?>> interfaces = new LinkedHashSet<>();
+      for (Class<?> c = operation.getClass(); c != null; c = c.getSuperclass()) {
+        interfaces.addAll(Arrays.asList(c.getInterfaces()));
+      }
+      final AtomicBoolean listed = new AtomicBoolean();
+      X returnValue;
+      try {
+        returnValue = (X)Proxy.newProxyInstance(operation.getClass().getClassLoader(),
+                                                interfaces.toArray(new Class<?>[interfaces.size()]),
+                                                (proxy, method, arguments) -> {
+                                                  final Object result;
+                                                  try {
+                                                    result = method.invoke(operation, arguments);
+                                                  } catch (final InvocationTargetException invocationTargetException) {
+                                                    throw invocationTargetException.getCause();
+                                                  }
+                                                  if ("list".equals(method.getName()) &&
+                                                      method.getParameterCount() == 0 &&
+                                                      listed.compareAndSet(false, true)) {
+                                                    listener.accept(result);
+                                                  }
+                                                  return result;
+                                                });
+      } catch (final IllegalArgumentException notProxiable) {
+        returnValue = operation;
+      }
+      return returnValue;
+    }
+
+    @Override
+    protected final void onClose() {
+      if (this.close) {
+        this.eventDistributor.close();
+      }
+    }
     
   }
+
+  /**
+   * The {@link Consumer} of {@link EventQueue}s that a {@link
+   * CDIController} drains its queue into.
+   *
+   * <p>A {@link Siphon} passes on to its {@link EventDistributor},
+   * which caches the Kubernetes resources concerned and hands them to
+   * consumers, only those {@link EventQueue}s whose keys are owned
+   * according to its {@link KeyOwnership}, if any, so that Kubernetes
+   * resources belonging to other replicas are neither cached nor
+   * distributed.</p>
+   *
+   * <p>It also keeps track of the keys of the Kubernetes resources
+   * returned by the initial LIST that it has yet to drain, so that it
+   * can tell when they have all been cached, and of the keys drained
+   * while the Kubernetes resources of newly owned shards are being
+   * listed, so that the listed ones are delivered only if the watch
+   * has not already delivered them.</p>
+   */
+  private static final class Siphon<T extends HasMetadata> implements Consumer<EventQueue<? extends T>> {
+
+    private final EventDistributor<T> eventDistributor;
+
+    private final KeyOwnership ownership;
+
+    // The keys of the Kubernetes resources returned by the initial
+    // LIST that have not yet been drained, or null if the initial
+    // LIST has not been seen.  Guarded by this.
+    private Set<Object> undrainedKeys;
+
+    // Guarded by this.
+    private Runnable synchronizationListener;
+
+    // The keys drained while a relisting is under way, or null if
+    // none is.  Guarded by this.
+    private Set<Object> drainedKeys;
+
+    private Siphon(final EventDistributor<T> eventDistributor, final KeyOwnership ownership) {
+      super();
+      this.eventDistributor = Objects.requireNonNull(eventDistributor);
+      this.ownership = ownership;
+    }
+
+    @Override
+    public final void accept(final EventQueue<? extends T> eventQueue) {
+      if (eventQueue != null) {
+        final Object key = eventQueue.getKey();
+        final Runnable listener;
+        synchronized (this) {
+          if (this.ownership == null || this.ownership.owns(key)) {
+            this.eventDistributor.accept(eventQueue);
+          }
+          if (this.drainedKeys != null) {
+            this.drainedKeys.add(key);
+          }
+          if (this.undrainedKeys != null && this.undrainedKeys.remove(key) && this.undrainedKeys.isEmpty()) {
+            listener = this.synchronizationListener;
+            this.synchronizationListener = null;
+          } else {
+            listener = null;
+          }
+        }
+        if (listener != null) {
+          listener.run();
+        }
+      }
+    }
+
+    /**
+     * Records the keys of the Kubernetes resources in the supplied
+     * {@link KubernetesResourceList}, which is the result of the
+     * initial LIST.
+     *
+     * <p>This is called by the thread starting the {@link
+     * CDIController} before any of those Kubernetes resources can be
+     * drained.</p>
+     */
+    private final void listed(final Object list) {
+      final Set<Object> keys = new HashSet<>();
+      if (list instanceof KubernetesResourceList) {
+        final Collection<?> items = ((KubernetesResourceList<?>)list).getItems();
+        if (items != null) {
+          for (final Object item : items) {
+            if (item instanceof HasMetadata) {
+              keys.add(new SynchronizationEvent<>(this, AbstractEvent.Type.ADDITION, null, (HasMetadata)item).getKey());
+            }
+          }
+        }
+      }
+      synchronized (this) {
+        this.undrainedKeys = keys;
+      }
+    }
+
+    /**
+     * Implements {@link CDIController#relist(Callable, KeyOwnership,
+     * Collection)}.
+     *
+     * <p>A Kubernetes resource whose key was drained while the
+     * {@link Callable} was listing is skipped, since the watch has
+     * already delivered its state as of then, and will deliver any
+     * later change.</p>
+     */
+    private final void relist(final Callable<? extends Collection<? extends T>> lister,
+                              final KeyOwnership selection,
+                              final Map<Object, T> knownObjects,
+                              final Collection<? extends Consumer<? super AbstractEvent<? extends T>>> consumers,
+                              final Function<? super Throwable, Boolean> errorHandler)
+      throws Exception {
+      Objects.requireNonNull(lister);
+      Objects.requireNonNull(selection);
+      Objects.requireNonNull(consumers);
+      synchronized (this) {
+        this.drainedKeys = new HashSet<>();
+      }
+      final Collection<? extends T> resources;
+      try {
+        resources = lister.call();
+      } catch (final Exception | Error listFailure) {
+        synchronized (this) {
+          this.drainedKeys = null;
+        }
+        throw listFailure;
+      }
+      synchronized (this) {
+        final Set<Object> drainedKeys = this.drainedKeys;
+        this.drainedKeys = null;
+        if (resources != null) {
+          for (final T resource : resources) {
+            if (resource != null) {
+              final SynchronizationEvent<T> event = new SynchronizationEvent<>(this, AbstractEvent.Type.ADDITION, null, resource);
+              final Object key = event.getKey();
+              if (selection.owns(key) &&
+                  (this.ownership == null || this.ownership.owns(key)) &&
+                  !drainedKeys.contains(key) &&
+                  !isCached(knownObjects, key)) {
+                for (final Consumer<? super AbstractEvent<? extends T>> consumer : consumers) {
+                  try {
+                    consumer.accept(event);
+                  } catch (final RuntimeException runtimeException) {
+                    if (errorHandler == null) {
+                      throw runtimeException;
+                    }
+                    errorHandler.apply(runtimeException);
+                  }
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+
+    private static final boolean isCached(final Map<?, ?> knownObjects, final Object key) {
+      if (knownObjects == null) {
+        return false;
+      }
+      synchronized (knownObjects) {
+        return knownObjects.containsKey(key);
+      }
+    }
+
+    private final void whenSynchronized(final Runnable listener) {
+      Objects.requireNonNull(listener);
+      final boolean synchronizedAlready;
+      synchronized (this) {
+        // If the initial LIST was never seen, the best that can be
+        // done is to report synchronization now.
+        synchronizedAlready = this.undrainedKeys == null || this.undrainedKeys.isEmpty();
+        if (!synchronizedAlready) {
+          this.synchronizationListener = listener;
+        }
+      }
+      if (synchronizedAlready) {
+        listener.run();
+      }
+    }
+
+  }
   
+  /**
+   * A Kubernetes operation together with all the {@link
+   * CDIEventDistributor}s whose event selectors produced equivalent
+   * operations and the caches they would like to have populated.
+   *
+   * <p>The first non-{@code null} cache encountered becomes the
+   * cache maintained by the {@link Controller} created for the
+   * operation; any other distinct caches are kept up to date by
+   * {@link CacheMirror}s that run before the {@link
+   * CDIEventDistributor}s to which they correspond.</p>
+   *
+   * @see OperationKey
+   */
+  private static final class SharedOperation<T extends HasMetadata> {
+
+    private final Object operation;
+
+    private final List<Consumer<? super AbstractEvent<? extends T>>> consumers;
+
+    private final List<CDIEventDistributor<T>> eventDistributors;
+
+    private final List<Map<Object, T>> caches;
+
+    private final Duration synchronizationInterval;
+
+    private Map<Object, T> cache;
+
+    private SharedOperation(final Object operation, final Duration synchronizationInterval) {
+      this(operation, synchronizationInterval, null);
+    }
+
+    private SharedOperation(final Object operation, final Duration synchronizationInterval, final Map<Object, T> cache) {
+      super();
+      this.operation = Objects.requireNonNull(operation);
+      this.synchronizationInterval = synchronizationInterval;
+      this.consumers = new ArrayList<>();
+      this.eventDistributors = new ArrayList<>();
+      this.caches = new ArrayList<>();
+      this.cache = cache;
+      if (cache != null) {
+        this.caches.add(cache);
+      }
+    }
+
+    private final Object getOperation() {
+      return this.operation;
+    }
+
+    private final Duration getSynchronizationInterval() {
+      return this.synchronizationInterval;
+    }
+
+    private final Map<Object, T> getCache() {
+      return this.cache;
+    }
+
+    private final List<Consumer<? super AbstractEvent<? extends T>>> getConsumers() {
+      return this.consumers;
+    }
+
+    private final List<CDIEventDistributor<T>> getEventDistributors() {
+      return this.eventDistributors;
+    }
+
+    /**
+     * Returns a {@link List} of every distinct cache maintained on
+     * behalf of this {@link SharedOperation}, whether directly or by
+     * mirroring.
+     */
+    private final List<Map<Object, T>> getCaches() {
+      return this.caches;
+    }
+
+    private final void add(final CDIEventDistributor<T> eventDistributor, final Map<Object, T> cache) {
+      Objects.requireNonNull(eventDistributor);
+      if (cache != null) {
+        if (this.cache == null) {
+          this.cache = cache;
+          this.caches.add(cache);
+        } else if (this.cache != cache) {
+          this.consumers.add(new CacheMirror<>(cache));
+          this.caches.add(cache);
+        }
+      }
+      this.consumers.add(eventDistributor);
+      this.eventDistributors.add(eventDistributor);
+    }
+
+    /**
+     * Returns a new {@link List} of {@link Consumer}s that, when
+     * supplied with {@link AbstractEvent}s by some other {@link
+     * Controller}, will maintain this {@link SharedOperation}'s cache
+     * as well as notify its {@link CDIEventDistributor}s.
+     */
+    private final List<Consumer<? super AbstractEvent<? extends T>>> toConsumers() {
+      final List<Consumer<? super AbstractEvent<? extends T>>> returnValue = new ArrayList<>(this.consumers.size() + 1);
+      if (this.cache != null) {
+        returnValue.add(new CacheMirror<>(this.cache));
+      }
+      returnValue.addAll(this.consumers);
+      return returnValue;
+    }
+
+  }
+
+  /**
+   * A {@link Consumer} of {@link AbstractEvent}s concerning
+   * Kubernetes resources in any namespace that routes each one to the
+   * {@link Consumer}s interested in its Kubernetes resource's
+   * namespace.
+   */
+  private static final class NamespaceDemultiplexer<T extends HasMetadata> implements Consumer<AbstractEvent<? extends T>> {
+
+    private final Map<String, List<Consumer<? super AbstractEvent<? extends T>>>> consumers;
+
+    private final Function<? super Throwable, Boolean> errorHandler;
+
+    private NamespaceDemultiplexer(final Function<? super Throwable, Boolean> errorHandler) {
+      super();
+      this.consumers = new HashMap<>();
+      this.errorHandler = errorHandler;
+    }
+
+    private final void put(final String namespace, final List<Consumer<? super AbstractEvent<? extends T>>> consumers) {
+      this.consumers.put(Objects.requireNonNull(namespace), Objects.requireNonNull(consumers));
+    }
+
+    @Override
+    public final void accept(final AbstractEvent<? extends T> event) {
+      if (event != null) {
+        final HasMetadata resource = event.getResource();
+        if (resource != null) {
+          final ObjectMeta metadata = resource.getMetadata();
+          if (metadata != null) {
+            final String namespace = metadata.getNamespace();
+            if (namespace != null) {
+              final List<Consumer<? super AbstractEvent<? extends T>>> consumers = this.consumers.get(namespace);
+              if (consumers != null) {
+                for (final Consumer<? super AbstractEvent<? extends T>> consumer : consumers) {
+                  assert consumer != null;
+                  try {
+                    consumer.accept(event);
+                  } catch (final RuntimeException runtimeException) {
+                    // One namespace's failure must not starve the
+                    // rest of the consumers of this event.
+                    if (this.errorHandler == null) {
+                      throw runtimeException;
+                    }
+                    this.errorHandler.apply(runtimeException);
+                  }
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+
+  }
+
+  /**
+   * A {@link Consumer} of {@link AbstractEvent}s that keeps a cache
+   * that is not maintained directly by a {@link Controller} in sync
+   * with one that is.
+   */
+  private static final class CacheMirror<T extends HasMetadata> implements Consumer<AbstractEvent<? extends T>> {
+
+    private final Map<Object, T> cache;
+
+    private CacheMirror(final Map<Object, T> cache) {
+      super();
+      this.cache = Objects.requireNonNull(cache);
+    }
+
+    @Override
+    public final void accept(final AbstractEvent<? extends T> event) {
+      if (event != null) {
+        final Object key = event.getKey();
+        if (key != null) {
+          final AbstractEvent.Type type = event.getType();
+          assert type != null;
+          synchronized (this.cache) {
+            switch (type) {
+            case ADDITION:
+            case MODIFICATION:
+              this.cache.put(key, event.getResource());
+              break;
+            case DELETION:
+              this.cache.remove(key);
+              break;
+            default:
+              throw new IllegalStateException();
+            }
+          }
+        }
+      }
+    }
+
+  }
+
   private static final class CDIEventDistributor<T extends HasMetadata> implements Consumer<AbstractEvent<? extends T>> {
 
     private static final Annotation[] EMPTY_ANNOTATION_ARRAY = new Annotation[0];
@@ -1412,6 +3480,38 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
 
     private final NotificationOptions notificationOptions;
 
+    private final Predicate<? super T> filter;
+
+    private final ChangeDetector changeDetector;
+
+    private final Map<Object, T> cache;
+
+    // The cache of this event selector, if any, from which a standby
+    // replica resynchronizes if it has forgotten some of its deferred
+    // events.
+    private final Map<Object, T> knownObjects;
+
+    // The Cancellations of Deliveries that observer methods are
+    // still handling, by key.  Guarded by itself.
+    private final Map<Object, List<Cancellation>> cancellations;
+
+    private final KeyOwnership ownership;
+
+    private final EventSelectorMetrics metrics;
+
+    private final InitialSynchronization initialSynchronization;
+
+    private final EventPublisher<T> eventPublisher;
+
+    private final DeltaBuffer<AbstractEvent<? extends T>> deltaBuffer;
+
+    private final SynchronizationPacer<AbstractEvent<? extends T>> pacer;
+
+    private final EventDispatcher.DispatchQueue<AbstractEvent<? extends T>> dispatchQueue;
+
+    // Written while holding this.deltaBuffer's monitor.
+    private volatile boolean live;
+
     private final boolean syncNeeded;
 
     private final boolean asyncNeeded;
@@ -1422,6 +3522,20 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
                                 final KubernetesEventContext kubernetesEventContext,
                                 final Set<Annotation> qualifiers,
                                 final NotificationOptions notificationOptions,
+                                final Predicate<? super T> filter,
+                                final ChangeDetector changeDetector,
+                                final Map<Object, T> cache,
+                                final Map<Object, T> knownObjects,
+                                final KeyOwnership ownership,
+                                final EventSelectorMetrics metrics,
+                                final InitialSynchronization initialSynchronization,
+                                final EventPublisher<T> eventPublisher,
+                                final Leadership leadership,
+                                final Duration deltaWindow,
+                                final Duration pacingWindow,
+                                final EventDispatcher eventDispatcher,
+                                final int dispatchWeight,
+                                final Duration targetLatency,
                                 final boolean syncNeeded,
                                 final boolean asyncNeeded) {
       super();
@@ -1435,6 +3549,20 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
                                             kubernetesEventContext,
                                             qualifiers,
                                             notificationOptions,
+                                            filter,
+                                            changeDetector,
+                                            cache,
+                                            knownObjects,
+                                            ownership,
+                                            metrics,
+                                            initialSynchronization,
+                                            eventPublisher,
+                                            leadership,
+                                            deltaWindow,
+                                            pacingWindow,
+                                            eventDispatcher,
+                                            Integer.valueOf(dispatchWeight),
+                                            targetLatency,
                                             Boolean.valueOf(syncNeeded),
                                             Boolean.valueOf(asyncNeeded)
                              });
@@ -1448,8 +3576,56 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
         this.qualifiers = qualifiers.toArray(new Annotation[qualifiers.size()]);
       }
       this.notificationOptions = notificationOptions;
+      this.filter = filter;
+      this.changeDetector = changeDetector;
+      this.cache = cache;
+      this.knownObjects = knownObjects;
+      this.cancellations = new HashMap<>();
+      this.ownership = ownership;
+      this.metrics = Objects.requireNonNull(metrics);
+      this.initialSynchronization = Objects.requireNonNull(initialSynchronization);
+      this.eventPublisher = Objects.requireNonNull(eventPublisher);
       this.syncNeeded = syncNeeded;
       this.asyncNeeded = asyncNeeded;
+      if (eventDispatcher == null) {
+        this.dispatchQueue = null;
+      } else {
+        // Synchronous observers are notified on the dispatching
+        // thread, so only one event may be in flight at a time if
+        // they are to be notified in order.
+        this.dispatchQueue = eventDispatcher.register(this::fire, metrics, !asyncNeeded, dispatchWeight, targetLatency);
+      }
+      if (pacingWindow == null) {
+        this.pacer = null;
+      } else {
+        // Paced events may be released after this replica has
+        // relinquished leadership, in which case they are dropped.
+        this.pacer = new SynchronizationPacer<>(pacingWindow, e -> {
+            if (this.live) {
+              this.dispatch(e, System.nanoTime());
+            }
+          });
+      }
+      if (leadership == null) {
+        this.deltaBuffer = null;
+        this.live = true;
+      } else {
+        // Deletions cannot be recovered by resynchronizing, so they
+        // are never forgotten; without a cache to resynchronize from,
+        // nothing is.
+        final Predicate<AbstractEvent<? extends T>> retained;
+        if (knownObjects == null) {
+          retained = e -> true;
+        } else {
+          retained = e -> e.getType() == AbstractEvent.Type.DELETION;
+        }
+        this.deltaBuffer = new DeltaBuffer<>(Objects.requireNonNull(deltaWindow), retained);
+        // This must come last, since the listeners may run as soon
+        // as they are registered.
+        synchronized (this.deltaBuffer) {
+          this.live = leadership.addListeners(this::resume, this::suspend);
+        }
+      }
 
       if (this.logger.isLoggable(Level.FINER)) {
         this.logger.exiting(cn, mn);
@@ -1464,122 +3640,513 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
         this.logger.entering(cn, mn, controllerEvent);
       }
 
-      if (controllerEvent != null && (this.syncNeeded || this.asyncNeeded)) {
+      // Deadlines for target latencies are measured from here.
+      final long arrival = System.nanoTime();
+
+      if (controllerEvent != null &&
+          (this.syncNeeded || this.asyncNeeded || this.eventPublisher.hasSubscribers()) &&
+          this.isDeliverable(controllerEvent) &&
+          !this.defer(controllerEvent)) {
+        // Subscribers pull at their own rate, so they get the event
+        // as is, ahead of any pacing or prioritization.
+        this.eventPublisher.publish(controllerEvent);
+        if (this.syncNeeded || this.asyncNeeded) {
+          if (!(controllerEvent instanceof SynchronizationEvent)) {
+            // Work still under way on an older state of the
+            // Kubernetes resource is now wasted.
+            this.cancel(controllerEvent.getKey());
+          }
+          if (this.pacer == null) {
+            this.dispatch(controllerEvent, arrival);
+          } else if (controllerEvent instanceof SynchronizationEvent) {
+            this.pacer.submit(controllerEvent.getKey(), controllerEvent);
+          } else {
+            // A real event overtakes, and makes redundant, any
+            // synchronization event still pending for the same
+            // Kubernetes resource.
+            this.pacer.cancel(controllerEvent.getKey());
+            this.dispatch(controllerEvent, arrival);
+          }
+        }
+      }
 
-        final BeanManager beanManager = CDI.current().getBeanManager();
-        assert beanManager != null;
+      if (this.logger.isLoggable(Level.FINER)) {
+        this.logger.exiting(cn, mn);
+      }
+    }
 
-        final javax.enterprise.event.Event<Object> cdiEventMachinery = beanManager.getEvent();
-        assert cdiEventMachinery != null;
+    /**
+     * Fires the supplied {@link AbstractEvent} now or, if events are
+     * dispatched by priority, queues it to be fired.
+     *
+     * @param controllerEvent the {@link AbstractEvent} to dispatch;
+     * must not be {@code null}
+     *
+     * @param arrival the {@link System#nanoTime()} at which the
+     * {@link AbstractEvent} arrived
+     */
+    private final void dispatch(final AbstractEvent<? extends T> controllerEvent, final long arrival) {
+      if (this.dispatchQueue == null) {
+        this.fire(controllerEvent);
+      } else {
+        final DispatchLane lane;
+        if (controllerEvent instanceof SynchronizationEvent) {
+          lane = DispatchLane.SYNCHRONIZATION;
+        } else if (controllerEvent.getType() == AbstractEvent.Type.DELETION) {
+          lane = DispatchLane.DELETION;
+        } else {
+          lane = DispatchLane.CHANGE;
+        }
+        this.dispatchQueue.submit(controllerEvent.getKey(), controllerEvent, lane, arrival);
+      }
+    }
 
-        // Copy the qualifiers we were supplied with into an array big
-        // enough to hold one more qualifier.  That qualifier will be
-        // based on the event type, which of course we didn't know at
-        // construction time.
-        final Annotation[] qualifiers = Arrays.copyOf(this.qualifiers, this.qualifiers.length + 1);
-        assert qualifiers != null;
+    /**
+     * Fires the supplied {@link AbstractEvent}'s Kubernetes resource
+     * as a CDI event qualified appropriately.
+     *
+     * @param controllerEvent the {@link AbstractEvent} to fire; must
+     * not be {@code null}
+     *
+     * @return a {@link CompletionStage} that completes once all
+     * observers have been notified, or {@code null} if they were
+     * notified before this method returned
+     */
+    private final CompletionStage<?> fire(final AbstractEvent<? extends T> controllerEvent) {
+      final String cn = this.getClass().getName();
+      final String mn = "fire";
+      assert controllerEvent != null;
 
-        final AbstractEvent.Type eventType = controllerEvent.getType();
-        assert eventType != null;
+      final BeanManager beanManager = CDI.current().getBeanManager();
+      assert beanManager != null;
 
-        switch (eventType) {
-          
-        case ADDITION:
-          if (controllerEvent instanceof SynchronizationEvent) {
-            qualifiers[qualifiers.length - 1] = Added.Literal.withSynchronization();
-          } else {
-            qualifiers[qualifiers.length - 1] = Added.Literal.withoutSynchronization();
-          }
-          break;
-          
-        case MODIFICATION:
-          if (controllerEvent instanceof SynchronizationEvent) {
-            qualifiers[qualifiers.length - 1] = Modified.Literal.withSynchronization();
-          } else {
-            qualifiers[qualifiers.length - 1] = Modified.Literal.withoutSynchronization();
-          }
-          break;
-          
-        case DELETION:
-          assert !(controllerEvent instanceof SynchronizationEvent);
-          qualifiers[qualifiers.length - 1] = Deleted.Literal.INSTANCE;
-          break;
-          
-        default:
-          throw new IllegalStateException();
-          
+      final javax.enterprise.event.Event<Object> cdiEventMachinery = beanManager.getEvent();
+      assert cdiEventMachinery != null;
+
+      // Copy the qualifiers we were supplied with into an array big
+      // enough to hold one more qualifier.  That qualifier will be
+      // based on the event type, which of course we didn't know at
+      // construction time.
+      final Annotation[] qualifiers = Arrays.copyOf(this.qualifiers, this.qualifiers.length + 1);
+      assert qualifiers != null;
+
+      final AbstractEvent.Type eventType = controllerEvent.getType();
+      assert eventType != null;
+
+      switch (eventType) {
+        
+      case ADDITION:
+        if (controllerEvent instanceof SynchronizationEvent) {
+          qualifiers[qualifiers.length - 1] = Added.Literal.withSynchronization();
+        } else {
+          qualifiers[qualifiers.length - 1] = Added.Literal.withoutSynchronization();
+        }
+        break;
+        
+      case MODIFICATION:
+        if (controllerEvent instanceof SynchronizationEvent) {
+          qualifiers[qualifiers.length - 1] = Modified.Literal.withSynchronization();
+        } else {
+          qualifiers[qualifiers.length - 1] = Modified.Literal.withoutSynchronization();
         }
+        break;
+        
+      case DELETION:
+        assert !(controllerEvent instanceof SynchronizationEvent);
+        qualifiers[qualifiers.length - 1] = Deleted.Literal.INSTANCE;
+        break;
+        
+      default:
+        throw new IllegalStateException();
+        
+      }
 
-        // This resource will be the actual "event" we end up firing.
-        final T resource = controllerEvent.getResource();
-        assert resource != null;
+      // This resource will be the actual "event" we end up firing.
+      final T resource = controllerEvent.getResource();
+      assert resource != null;
+
+      // The "prior resource" represents the prior state (if any)
+      // and can be null.  We'll arrange for this to be "created" by
+      // our PriorContext CDI Context when observer methods contain
+      // a parameter qualified with @Prior.  The Delivery that holds
+      // it also lazily computes, at most once, the difference
+      // between the resource and its prior state for any observer
+      // methods that are interested only in certain changes.
+      //
+      // If stale events are skipped, the Delivery also tells each
+      // observer method's Notifier whether the resource has been
+      // superseded in the cache by the time the first observer
+      // method would be notified.  The Delivery asks at most once.
+      // Deletions are never stale.
+      final Object key = controllerEvent.getKey();
+      final BooleanSupplier staleness;
+      if (this.cache == null || eventType == AbstractEvent.Type.DELETION) {
+        staleness = null;
+      } else {
+        staleness = () -> this.isStale(key, resource);
+      }
+      final Delivery<T> delivery = new Delivery<>(resource, Optional.ofNullable(controllerEvent.getPriorResource()), qualifiers, staleness);
+      this.priorContext.put(delivery);
 
-        // The "prior resource" represents the prior state (if any)
-        // and can be null.  We'll arrange for this to be "created" by
-        // our PriorContext CDI Context when observer methods contain
-        // a parameter qualified with @Prior.
-        this.priorContext.put(resource, Optional.ofNullable(controllerEvent.getPriorResource()));
+      // Track the Delivery's Cancellation until observer methods are
+      // done with it so that newer events can cancel it.
+      final Cancellation cancellation = delivery.getCancellation();
+      this.track(key, cancellation);
 
-        @SuppressWarnings("unchecked")
-        final javax.enterprise.event.Event<T> broadcaster = cdiEventMachinery.select((Class<T>)resource.getClass(), qualifiers);
+      @SuppressWarnings("unchecked")
+      final javax.enterprise.event.Event<T> broadcaster = cdiEventMachinery.select((Class<T>)resource.getClass(), qualifiers);
 
-        if (this.asyncNeeded) {
+      if (this.asyncNeeded) {
 
-          // Set up the machinery to fire the event asynchronously,
-          // possibly in parallel.
-          
-          final CompletionStage<T> stage;
-          if (this.notificationOptions == null) {
-            stage = broadcaster.fireAsync(resource);
-          } else {
-            stage = broadcaster.fireAsync(resource, this.notificationOptions);
-          }
-          assert stage != null;
-
-          // When all asynchronous observers have been notified, then
-          // fire synchronous events (if needed).  Ensure that the
-          // PriorContext that is responsible for supplying injected
-          // observer method parameters annotated with @Prior is
-          // deactivated in all cases.
-
-          // TODO: should we make it configurable whether to fire
-          // synchronous events before asynchronous events or the
-          // other way around?
-          
-          stage.whenComplete((event, throwable) -> {
+        // Set up the machinery to fire the event asynchronously,
+        // possibly in parallel.
+        
+        final CompletionStage<T> stage;
+        if (this.notificationOptions == null) {
+          stage = broadcaster.fireAsync(resource);
+        } else {
+          stage = broadcaster.fireAsync(resource, this.notificationOptions);
+        }
+        assert stage != null;
+
+        // When all asynchronous observers have been notified, then
+        // fire synchronous events (if needed).  Ensure that the
+        // PriorContext that is responsible for supplying injected
+        // observer method parameters annotated with @Prior is
+        // deactivated in all cases.
+
+        // TODO: should we make it configurable whether to fire
+        // synchronous events before asynchronous events or the
+        // other way around?
+
+        // Observer methods may themselves return CompletionStages,
+        // in which case everything is only cleaned up once they have
+        // completed too.
+        return stage
+          .whenComplete((event, throwable) -> {
               if (throwable != null && this.logger.isLoggable(Level.SEVERE)) {
                 logger.logp(Level.SEVERE, cn, mn, throwable.getMessage(), throwable);
               }
               // TODO: should the presence of a non-null throwable
               // cause us to not perform synchronous firing?
-              try {
-                assert event != null;
-                if (this.syncNeeded) {
-                  broadcaster.fire(event);
-                }
-              } finally {
-                this.kubernetesEventContext.destroy();
-                this.priorContext.remove(event);
+              if (this.syncNeeded) {
+                broadcaster.fire(resource);
               }
+            })
+          .thenCompose(event -> {
+              final CompletionStage<?> observed = delivery.whenObserved();
+              return observed == null ? CompletableFuture.completedFuture(null) : observed;
+            })
+          .whenComplete((ignored, throwable) -> {
+              this.untrack(key, cancellation);
+              this.kubernetesEventContext.destroy();
+              this.priorContext.remove(delivery);
             });
-          
-        } else {
-          assert this.syncNeeded;
+        
+      } else {
+        assert this.syncNeeded;
 
-          try {
-            broadcaster.fire(resource);
-          } finally {
+        final CompletionStage<?> observed;
+        try {
+          broadcaster.fire(resource);
+          observed = delivery.whenObserved();
+        } catch (final RuntimeException | Error throwable) {
+          this.untrack(key, cancellation);
+          this.kubernetesEventContext.destroy();
+          this.priorContext.remove(delivery);
+          throw throwable;
+        }
+        if (observed == null) {
+          this.untrack(key, cancellation);
+          this.kubernetesEventContext.destroy();
+          this.priorContext.remove(delivery);
+          return null;
+        }
+        return observed.whenComplete((ignored, throwable) -> {
+            if (throwable != null && this.logger.isLoggable(Level.SEVERE)) {
+              logger.logp(Level.SEVERE, cn, mn, throwable.getMessage(), throwable);
+            }
+            this.untrack(key, cancellation);
             this.kubernetesEventContext.destroy();
-            this.priorContext.remove(resource);
+            this.priorContext.remove(delivery);
+          });
+      }
+    }
+
+    /**
+     * Returns {@code true} if the supplied {@link AbstractEvent} was
+     * deferred, rather than fired, because the current replica is on
+     * standby or is still firing events deferred while it was.
+     *
+     * <p>{@link SynchronizationEvent}s are not deferred but simply
+     * discarded, since they do not represent changes and the replica
+     * that was the leader when they occurred will have seen
+     * them.</p>
+     *
+     * @param controllerEvent the {@link AbstractEvent} in question;
+     * must not be {@code null}
+     *
+     * @return {@code true} if the supplied {@link AbstractEvent} was
+     * deferred; {@code false} if it should be fired
+     *
+     * @see Leadership
+     */
+    private final boolean defer(final AbstractEvent<? extends T> controllerEvent) {
+      if (this.live) {
+        return false;
+      }
+      assert this.deltaBuffer != null;
+      synchronized (this.deltaBuffer) {
+        if (this.live) {
+          return false;
+        }
+        if (!(controllerEvent instanceof SynchronizationEvent)) {
+          this.deltaBuffer.put(controllerEvent.getKey(), controllerEvent);
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Fires the events deferred while the current replica was on
+     * standby and then resumes firing events as they arrive.
+     *
+     * <p>If some deferred events were forgotten because they were
+     * older than the {@code standbyDeltaWindow}, a {@link
+     * SynchronizationEvent} is fired first for every cached Kubernetes
+     * resource that has no deferred event, as if the cache had been
+     * resynchronized.  Deferred deletions are never forgotten.</p>
+     *
+     * <p>Events that arrive while deferred events are being fired are
+     * themselves deferred, and fired afterwards, so that events
+     * concerning any given Kubernetes resource are always fired in
+     * order.</p>
+     *
+     * @see Leadership#acquire()
+     */
+    private final void resume() {
+      final String cn = this.getClass().getName();
+      final String mn = "resume";
+      assert this.deltaBuffer != null;
+      int count = 0;
+      while (true) {
+        final boolean overflowed;
+        final List<AbstractEvent<? extends T>> delta;
+        synchronized (this.deltaBuffer) {
+          overflowed = this.deltaBuffer.hasOverflowed();
+          delta = this.deltaBuffer.drain();
+          if (delta.isEmpty() && !overflowed) {
+            this.live = true;
+            break;
           }
         }
-        
+        final List<AbstractEvent<? extends T>> events;
+        if (overflowed) {
+          events = this.resynchronize(delta);
+          if (this.logger.isLoggable(Level.WARNING)) {
+            this.logger.logp(Level.WARNING, cn, mn,
+                             "Deferred events older than the standby delta window were forgotten for qualifiers {0}; resynchronizing {1} cached resources",
+                             new Object[] { Arrays.asList(this.qualifiers), Integer.valueOf(events.size() - delta.size()) });
+          }
+        } else {
+          events = delta;
+        }
+        for (final AbstractEvent<? extends T> controllerEvent : events) {
+          try {
+            // Deferred events were checked before they were deferred.
+            if (controllerEvent instanceof SynchronizationEvent && !this.isDeliverable(controllerEvent)) {
+              continue;
+            }
+            this.eventPublisher.publish(controllerEvent);
+            if (this.syncNeeded || this.asyncNeeded) {
+              this.dispatch(controllerEvent, System.nanoTime());
+            }
+          } catch (final RuntimeException runtimeException) {
+            if (this.logger.isLoggable(Level.SEVERE)) {
+              this.logger.logp(Level.SEVERE, cn, mn, runtimeException.getMessage(), runtimeException);
+            }
+          }
+          count++;
+        }
+      }
+      if (this.logger.isLoggable(Level.INFO)) {
+        this.logger.logp(Level.INFO, cn, mn,
+                         "Fired {0} deferred events for qualifiers {1}",
+                         new Object[] { Integer.valueOf(count), Arrays.asList(this.qualifiers) });
       }
+    }
 
-      if (this.logger.isLoggable(Level.FINER)) {
-        this.logger.exiting(cn, mn);
+    /**
+     * Returns a new {@link List} consisting of a {@link
+     * SynchronizationEvent} for every cached Kubernetes resource whose
+     * key is not that of any of the supplied deferred {@link
+     * AbstractEvent}s, followed by those deferred {@link
+     * AbstractEvent}s.
+     *
+     * @param delta the deferred {@link AbstractEvent}s; must not be
+     * {@code null}
+     *
+     * @return a new, non-{@code null} {@link List} of {@link
+     * AbstractEvent}s
+     */
+    private final List<AbstractEvent<? extends T>> resynchronize(final List<AbstractEvent<? extends T>> delta) {
+      // Without a cache nothing is ever forgotten; see the
+      // constructor.
+      assert this.knownObjects != null;
+      final Set<Object> keys = new HashSet<>();
+      for (final AbstractEvent<? extends T> controllerEvent : delta) {
+        keys.add(controllerEvent.getKey());
+      }
+      final List<AbstractEvent<? extends T>> returnValue = new ArrayList<>();
+      synchronized (this.knownObjects) {
+        for (final Map.Entry<Object, T> entry : this.knownObjects.entrySet()) {
+          if (!keys.contains(entry.getKey())) {
+            returnValue.add(new SynchronizationEvent<>(this, AbstractEvent.Type.MODIFICATION, null, entry.getValue()));
+          }
+        }
+      }
+      returnValue.addAll(delta);
+      return returnValue;
+    }
+
+    /**
+     * Starts deferring events.
+     *
+     * @see Leadership#relinquish()
+     */
+    private final void suspend() {
+      assert this.deltaBuffer != null;
+      synchronized (this.deltaBuffer) {
+        this.live = false;
       }
     }
+
+    private final Annotation[] getQualifiers() {
+      return this.qualifiers;
+    }
+
+    private final SynchronizationPacer<AbstractEvent<? extends T>> getPacer() {
+      return this.pacer;
+    }
+
+    private final EventSelectorMetrics getMetrics() {
+      return this.metrics;
+    }
+
+    private final InitialSynchronization getInitialSynchronization() {
+      return this.initialSynchronization;
+    }
+
+    private final void track(final Object key, final Cancellation cancellation) {
+      synchronized (this.cancellations) {
+        this.cancellations.computeIfAbsent(key, k -> new ArrayList<>(1)).add(cancellation);
+      }
+    }
+
+    private final void untrack(final Object key, final Cancellation cancellation) {
+      synchronized (this.cancellations) {
+        final List<Cancellation> cancellations = this.cancellations.get(key);
+        if (cancellations != null) {
+          cancellations.remove(cancellation);
+          if (cancellations.isEmpty()) {
+            this.cancellations.remove(key);
+          }
+        }
+      }
+    }
+
+    /**
+     * Cancels any {@link Delivery} of the Kubernetes resource
+     * identified by the supplied key that observer methods are still
+     * handling.
+     *
+     * @param key the key; may be {@code null}
+     *
+     * @see Cancellation
+     */
+    private final void cancel(final Object key) {
+      synchronized (this.cancellations) {
+        final List<Cancellation> cancellations = this.cancellations.get(key);
+        if (cancellations != null) {
+          for (final Cancellation cancellation : cancellations) {
+            cancellation.cancel();
+          }
+        }
+      }
+    }
+
+    private final boolean isStale(final Object key, final T resource) {
+      assert this.cache != null;
+      final T current;
+      synchronized (this.cache) {
+        current = this.cache.get(key);
+      }
+      final boolean returnValue;
+      if (current == resource) {
+        returnValue = false;
+      } else if (current == null) {
+        // The Kubernetes resource has since been deleted, and its
+        // deletion is yet to be delivered.
+        returnValue = true;
+      } else {
+        final String resourceVersion = getResourceVersion(resource);
+        returnValue = resourceVersion != null && !resourceVersion.equals(getResourceVersion(current));
+      }
+      if (returnValue) {
+        this.metrics.incrementStaleEventCount();
+      }
+      return returnValue;
+    }
+
+    private static final String getResourceVersion(final HasMetadata resource) {
+      final ObjectMeta metadata = resource.getMetadata();
+      return metadata == null ? null : metadata.getResourceVersion();
+    }
+
+    /**
+     * Returns {@code true} if the supplied {@link AbstractEvent}
+     * should be delivered to observer methods and subscribers.
+     *
+     * <p>This method is invoked on the controller thread before any
+     * CDI event machinery is involved, so rejecting an {@link
+     * AbstractEvent} here is as cheap as it gets.</p>
+     *
+     * @param controllerEvent the {@link AbstractEvent} in question;
+     * must not be {@code null}
+     *
+     * @return {@code true} if the supplied {@link AbstractEvent}
+     * should be delivered; {@code false} otherwise
+     */
+    private final boolean isDeliverable(final AbstractEvent<? extends T> controllerEvent) {
+      final String cn = this.getClass().getName();
+      final String mn = "isDeliverable";
+      final boolean returnValue;
+      if (this.ownership != null && !this.ownership.owns(controllerEvent.getKey())) {
+        this.metrics.incrementUnownedEventCount();
+        if (this.logger.isLoggable(Level.FINE)) {
+          this.logger.logp(Level.FINE, cn, mn, "Skipped event belonging to another shard: {0}", controllerEvent);
+        }
+        returnValue = false;
+      } else if (this.filter != null && !this.filter.test(controllerEvent.getResource())) {
+        if (this.changeDetector != null && AbstractEvent.Type.DELETION.equals(controllerEvent.getType())) {
+          this.changeDetector.forget(controllerEvent.getKey());
+        }
+        this.metrics.incrementFilteredEventCount();
+        if (this.logger.isLoggable(Level.FINE)) {
+          this.logger.logp(Level.FINE, cn, mn, "Filtered event: {0}", controllerEvent);
+        }
+        returnValue = false;
+      } else if (this.changeDetector != null && !this.changeDetector.isSignificant(controllerEvent)) {
+        this.metrics.incrementSuppressedModificationCount();
+        if (this.logger.isLoggable(Level.FINE)) {
+          this.logger.logp(Level.FINE, cn, mn, "Suppressed unchanged modification: {0}", controllerEvent);
+        }
+        returnValue = false;
+      } else {
+        returnValue = true;
+      }
+      return returnValue;
+    }
     
   }
 
@@ -1593,13 +4160,24 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
       };
     
     /**
-     * A {@linkplain Collections#synchronizedMap(Map) synchronized}
-     * {@link IdentityHashMap} that maps a "current" {@link
-     * HasMetadata} to its prior representation.
+     * An {@link IdentityHashMap} that maps a "current" {@link
+     * HasMetadata} to the {@link Delivery Delivery}s of it that are
+     * under way, each of which holds, among other things, its prior
+     * representation.
+     *
+     * <p>There may be several, since the same Kubernetes resource is
+     * fired by every event selector sharing a Kubernetes controller,
+     * and may be fired again before observer methods are done with
+     * it.  They are told apart by the qualifiers with which they were
+     * fired.</p>
+     *
+     * <p>Guarded by itself.</p>
      *
-     * @see #put(HasMetadata, Optional)
+     * @see #put(Delivery)
+     *
+     * @see #getDelivery(HasMetadata, Set)
      */
-    private final Map<HasMetadata, Optional<? extends HasMetadata>> instances;
+    private final Map<HasMetadata, List<Delivery<?>>> instances;
     
     private PriorContext() {
       super();
@@ -1608,24 +4186,25 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
       // indiscriminate equals()-and-hashCode() generation.  We need
       // to track Kubernetes resources in this Context implementation
       // by their actual JVM identity.
-      this.instances = Collections.synchronizedMap(new IdentityHashMap<>());
+      this.instances = new IdentityHashMap<>();
     }
 
     /**
      * Activates this {@link PriorContext} <strong>for the {@linkplain
      * Thread#currentThread() current <code>Thread</code>}</strong>.
      *
-     * @param currentEvent the {@link HasMetadata} that is currently
-     * being fired as a CDI event; must not be {@code null}
-     *
-     * @exception NullPointerException if {@code currentEvent} is
+     * @param delivery the {@link Delivery} of the {@link HasMetadata}
+     * that is currently being fired as a CDI event; must not be
      * {@code null}
+     *
+     * @exception NullPointerException if {@code delivery} is {@code
+     * null}
      */
-    private final void activate(final HasMetadata currentEvent) {
-      Objects.requireNonNull(currentEvent);
+    private final void activate(final Delivery<?> delivery) {
+      Objects.requireNonNull(delivery);
       final CurrentEventContext c = currentEventContext.get();
       assert c != null;
-      c.currentEvent = currentEvent;
+      c.delivery = delivery;
       c.active = true;
     }
 
@@ -1637,87 +4216,157 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
       final CurrentEventContext c = currentEventContext.get();
       assert c != null;
       c.active = false;
-      c.currentEvent = null;
+      c.delivery = null;
       // Note: do NOT be tempted to call this.remove() here.
     }
 
     /**
-     * Associates the supplied {@code priorEvent} with the supplied
-     * {@code currentEvent} and returns any previously associated
-     * event.
+     * Registers the supplied {@link Delivery} under its {@linkplain
+     * Delivery#getResource() Kubernetes resource}.
      *
-     * <p>This method <strong>may return {@code null}</strong>.</p>
+     * @param delivery the {@link Delivery} of a Kubernetes resource
+     * about to be fired as a CDI event; must not be {@code null}
      *
-     * @param <X> a type that extends {@link HasMetadata} and therefore
-     * represents a persistent Kubernetes resource
+     * @exception NullPointerException if {@code delivery} is {@code
+     * null}
      *
-     * @param currentEvent a Kubernetes resource about to be fired as
-     * a CDI event; must not be {@code null}
+     * @see #remove(Delivery)
+     */
+    private final void put(final Delivery<?> delivery) {
+      final HasMetadata resource = delivery.getResource();
+      synchronized (this.instances) {
+        this.instances.computeIfAbsent(resource, r -> new ArrayList<>(1)).add(delivery);
+      }
+    }
+
+    /**
+     * Unregisters the supplied {@link Delivery}, leaving any other
+     * {@link Delivery Delivery}s of the same Kubernetes resource
+     * alone.
      *
-     * @param priorEvent an {@link Optional} Kubernetes resource that
-     * represents the last known state of the {@code currentEvent}
-     * Kubernetes resource; must not be {@code null}
+     * @param delivery the {@link Delivery} to unregister; must not be
+     * {@code null}
      *
-     * @return any previously associated Kubernetes resource as an
-     * {@link Optional}, <strong>or, somewhat unusually, {@code null}
-     * if there was no such {@link Optional}</strong>
+     * @exception NullPointerException if {@code delivery} is {@code
+     * null}
      *
-     * @exception NullPointerException if {@code currentEvent} or
-     * {@code priorEvent} is {@code null}
+     * @see #put(Delivery)
      */
-    private final <X extends HasMetadata> Optional<X> put(final X currentEvent, final Optional<X> priorEvent) {
-      @SuppressWarnings("unchecked")
-      final Optional<X> returnValue = (Optional<X>)this.instances.put(Objects.requireNonNull(currentEvent),
-                                                                      Objects.requireNonNull(priorEvent));
-      return returnValue;
+    private final void remove(final Delivery<?> delivery) {
+      final HasMetadata resource = delivery.getResource();
+      synchronized (this.instances) {
+        final List<Delivery<?>> deliveries = this.instances.get(resource);
+        if (deliveries != null) {
+          // Deliveries are compared by identity.
+          deliveries.remove(delivery);
+          if (deliveries.isEmpty()) {
+            this.instances.remove(resource);
+          }
+        }
+      }
     }
 
     /**
-     * Removes the supplied {@link HasMetadata} from this {@link
-     * PriorContext}'s registry of such objects and returns any {@link
-     * Optional} indexed under it.
+     * Returns the {@link Delivery} of the supplied {@link
+     * HasMetadata} that was fired with the supplied qualifiers, or
+     * {@code null} if there is no such {@link Delivery}.
      *
-     * <p>This method <strong>may return {@code null}</strong>.</p>
+     * <p>The qualifiers reported for a fired CDI event include those
+     * it was fired with, and perhaps others, such as {@link
+     * javax.enterprise.inject.Any @Any}, that no {@link Delivery} is
+     * registered with.  The {@link Delivery} sought is therefore the
+     * one with the most qualifiers that are all among the supplied
+     * qualifiers.  If there are several such, which can happen only
+     * if the same Kubernetes resource is fired again in exactly the
+     * same way, the most recently registered one is returned.</p>
      *
-     * @param currentEvent the {@link HasMetadata} to remove; must not
-     * be {@code null}
+     * <p>Unlike the {@link #get(Contextual)} method, this method does
+     * not require this {@link PriorContext} to be {@linkplain
+     * #isActive() active}.</p>
      *
-     * @return an {@link Optional} representing the prior state
-     * indexed under the supplied {@link HasMetadata}, <strong>or
-     * {@code null}</strong>
+     * @param currentEvent the {@link HasMetadata} being fired as a CDI
+     * event; may be {@code null} in which case {@code null} will be
+     * returned
      *
-     * @exception NullPointerException if {@code currentEvent} is
-     * {@code null}
+     * @param qualifiers the qualifiers reported for the CDI event;
+     * may be {@code null} in which case the most recently registered
+     * {@link Delivery} of the supplied {@link HasMetadata} will be
+     * returned
+     *
+     * @return a {@link Delivery}, or {@code null}
      */
-    private final Optional<? extends HasMetadata> remove(final HasMetadata currentEvent) {
-      return this.instances.remove(Objects.requireNonNull(currentEvent));
+    private final Delivery<?> getDelivery(final HasMetadata currentEvent, final Set<Annotation> qualifiers) {
+      Delivery<?> returnValue = null;
+      if (currentEvent != null) {
+        synchronized (this.instances) {
+          final List<Delivery<?>> deliveries = this.instances.get(currentEvent);
+          if (deliveries != null) {
+            for (final Delivery<?> delivery : deliveries) {
+              final Set<Annotation> deliveryQualifiers = delivery.getQualifiers();
+              if ((qualifiers == null || qualifiers.containsAll(deliveryQualifiers)) &&
+                  (returnValue == null || deliveryQualifiers.size() >= returnValue.getQualifiers().size())) {
+                returnValue = delivery;
+              }
+            }
+          }
+        }
+      }
+      return returnValue;
     }
 
-    private final Optional<? extends HasMetadata> get() {
+    /**
+     * Returns the contextual instance of the supplied {@link
+     * Contextual} for the current event: its {@link ResourceDiff} if
+     * the {@link Contextual} is the {@link Changes}-qualified bean,
+     * its {@link Cancellation} if the {@link Contextual} is the
+     * {@link Cancellation} bean, and its {@link Optional} prior state
+     * otherwise.
+     *
+     * <p>This method may return {@code null}.</p>
+     *
+     * @param bean the {@link Contextual} in question; may be {@code
+     * null}
+     *
+     * @return the contextual instance, or {@code null}
+     *
+     * @exception ContextNotActiveException if this {@link
+     * PriorContext} is not {@linkplain #isActive() active}
+     */
+    private final Object get(final Contextual<?> bean) {
       if (!this.isActive()) {
         throw new ContextNotActiveException();
       }
       final CurrentEventContext c = currentEventContext.get();
       assert c != null;
       assert c.active;
-      assert c.currentEvent != null;
-      // Yes, this can return null, and yes, our return type is
-      // Optional.  Do NOT be tempted to return an empty Optional
-      // here!
-      return this.instances.get(c.currentEvent);
+      final Delivery<?> delivery = c.delivery;
+      final Object returnValue;
+      if (delivery == null) {
+        // Yes, this can return null, and yes, one of the types we
+        // serve is Optional.  Do NOT be tempted to return an empty
+        // Optional here!
+        returnValue = null;
+      } else if (bean instanceof Bean && ((Bean<?>)bean).getQualifiers().contains(Changes.Literal.INSTANCE)) {
+        returnValue = delivery.getDiff();
+      } else if (bean instanceof Bean && ((Bean<?>)bean).getTypes().contains(Cancellation.class)) {
+        returnValue = delivery.getCancellation();
+      } else {
+        returnValue = delivery.getPrior();
+      }
+      return returnValue;
     }
     
     @Override
     public final <T> T get(final Contextual<T> bean) {
       @SuppressWarnings("unchecked")
-      final T returnValue = (T)this.get();
+      final T returnValue = (T)this.get((Contextual<?>)bean);
       return returnValue;
     }
 
     @Override
     public final <T> T get(final Contextual<T> bean, final CreationalContext<T> cc) {
       @SuppressWarnings("unchecked")
-      final T returnValue = (T)this.get();
+      final T returnValue = (T)this.get((Contextual<?>)bean);
       return returnValue;
     }
 
@@ -1729,8 +4378,8 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
       final CurrentEventContext c = currentEventContext.get();
       assert c != null;
       assert c.active;
-      assert c.currentEvent != null;
-      this.remove(c.currentEvent);
+      assert c.delivery != null;
+      this.remove(c.delivery);
     }
 
     @Override
@@ -1742,12 +4391,12 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
     public final boolean isActive() {
       final CurrentEventContext c = currentEventContext.get();
       assert c != null;
-      return c.active && c.currentEvent != null && this.instances.containsKey(c.currentEvent);
+      return c.active && c.delivery != null;
     }
 
     private static final class CurrentEventContext {
 
-      private volatile HasMetadata currentEvent;
+      private volatile Delivery<?> delivery;
 
       private volatile boolean active;
 
@@ -1766,22 +4415,65 @@ public class KubernetesControllerExtension extends AbstractBlockingExtension {
     private final KubernetesEventContext kubernetesEventContext;
     
     private final ObserverMethod<T> observerMethod;
+
+    private final List<String[]> paths;
+
+    private final ObserverInvoker invoker;
     
     private Notifier(final PriorContext priorContext,
                      final KubernetesEventContext kubernetesEventContext,
-                     final ObserverMethod<T> observerMethod) {
+                     final ObserverMethod<T> observerMethod,
+                     final List<String[]> paths,
+                     final ObserverInvoker invoker) {
       super();
       this.priorContext = Objects.requireNonNull(priorContext);
       this.kubernetesEventContext = Objects.requireNonNull(kubernetesEventContext);
       this.observerMethod = Objects.requireNonNull(observerMethod);
+      this.invoker = invoker;
+      if (paths == null || paths.isEmpty()) {
+        this.paths = Collections.emptyList();
+      } else {
+        this.paths = paths;
+      }
     }
 
     @Override
     public final void accept(final EventContext<T> eventContext) {
+      // The Delivery is looked up by the qualifiers this particular
+      // event was fired with, since the same Kubernetes resource may
+      // be fired by several event selectors at once.
+      final EventMetadata metadata = Objects.requireNonNull(eventContext).getMetadata();
+      final Delivery<?> delivery = this.priorContext.getDelivery(eventContext.getEvent(), metadata == null ? null : metadata.getQualifiers());
+      if (delivery != null) {
+        if (!this.paths.isEmpty() && !delivery.getDiff().affects(this.paths)) {
+          // This observer method is only interested in modifications
+          // to certain paths.  The Delivery computes the changed
+          // paths once and shares them with all other such observer
+          // methods.
+          return;
+        }
+        if (delivery.isStale()) {
+          // The Kubernetes resource has moved on, and this observer
+          // method will be notified of its newer state in due course.
+          return;
+        }
+      }
       try {
         this.kubernetesEventContext.setActive(true);
-        this.priorContext.activate(Objects.requireNonNull(eventContext).getEvent()); // thread-specific
-        this.observerMethod.notify(eventContext);
+        if (delivery != null) {
+          this.priorContext.activate(delivery); // thread-specific
+        }
+        if (this.invoker == null) {
+          this.observerMethod.notify(eventContext);
+        } else {
+          // The observer method returns a CompletionStage, which the
+          // Delivery keeps track of so that it is not considered
+          // complete until the CompletionStage is.
+          final CompletionStage<?> stage = this.invoker.invoke(eventContext.getEvent());
+          if (delivery != null) {
+            delivery.addStage(stage);
+          }
+        }
       } finally {
         this.priorContext.deactivate(); // thread-specific
         this.kubernetesEventContext.setActive(false);
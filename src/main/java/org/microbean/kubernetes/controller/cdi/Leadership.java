@@ -0,0 +1,148 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A handle on whether the current replica of an application is the
+ * one that should act on Kubernetes events.
+ *
+ * <p>The {@link KubernetesControllerExtension} makes a single
+ * instance of this class available in the CDI container.  Unless the
+ * {@code standby} configuration property is set to {@code true}, the
+ * current replica is simply always the leader.  Otherwise, it starts
+ * out as a <em>standby</em>: its controllers are started and its
+ * caches are kept current, but no Kubernetes events are fired until
+ * whatever leader election mechanism you use calls {@link
+ * #acquire()}:</p>
+ *
+ * <blockquote><pre>&#64;Inject
+ *private Leadership leadership;
+ *
+ *private final void onElected() {
+ *  leadership.acquire();
+ *}</pre></blockquote>
+ *
+ * <p>At that point, rather than a flood of synchronization events
+ * covering every cached Kubernetes resource, only the latest event
+ * for each Kubernetes resource that changed while on standby is
+ * fired, after which events are fired as usual.  Changes older than
+ * the {@code standbyDeltaWindow} (one minute by default) are not
+ * remembered individually, except for deletions, which always are.
+ * If any were forgotten, a synchronization event is fired for every
+ * cached Kubernetes resource instead, so that no change is lost.
+ * Event selectors without a cache remember every change.  {@link
+ * #relinquish()} returns the replica to standby.</p>
+ *
+ * <p>Instances of this class are safe for concurrent use by multiple
+ * threads.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+public final class Leadership {
+
+  private volatile boolean leader;
+
+  private final List<Runnable> acquisitionListeners;
+
+  private final List<Runnable> relinquishmentListeners;
+
+  Leadership() {
+    super();
+    this.acquisitionListeners = new ArrayList<>();
+    this.relinquishmentListeners = new ArrayList<>();
+  }
+
+  /**
+   * Returns {@code true} if the current replica is the leader.
+   *
+   * @return {@code true} if the current replica is the leader; {@code
+   * false} otherwise
+   */
+  public final boolean isLeader() {
+    return this.leader;
+  }
+
+  /**
+   * Makes the current replica the leader, firing any Kubernetes
+   * events deferred while it was on standby before returning.
+   *
+   * <p>Calling this method when the current replica is already the
+   * leader has no effect.</p>
+   */
+  public final synchronized void acquire() {
+    if (!this.leader) {
+      this.leader = true;
+      for (final Runnable listener : this.acquisitionListeners) {
+        listener.run();
+      }
+    }
+  }
+
+  /**
+   * Returns the current replica to standby, so that Kubernetes events
+   * are deferred rather than fired.
+   *
+   * <p>Calling this method when the current replica is not the
+   * leader has no effect.</p>
+   */
+  public final synchronized void relinquish() {
+    if (this.leader) {
+      this.leader = false;
+      for (final Runnable listener : this.relinquishmentListeners) {
+        listener.run();
+      }
+    }
+  }
+
+  /**
+   * Registers listeners to be run, while this {@link Leadership} is
+   * locked, whenever leadership is acquired or relinquished, and
+   * returns whether the current replica is the leader at the time of
+   * registration.
+   *
+   * @param onAcquisition the {@link Runnable} to run when leadership
+   * is acquired; must not be {@code null}
+   *
+   * @param onRelinquishment the {@link Runnable} to run when
+   * leadership is relinquished; must not be {@code null}
+   *
+   * @return {@code true} if the current replica is the leader;
+   * {@code false} otherwise
+   *
+   * @exception NullPointerException if either argument is {@code
+   * null}
+   */
+  final synchronized boolean addListeners(final Runnable onAcquisition, final Runnable onRelinquishment) {
+    this.acquisitionListeners.add(Objects.requireNonNull(onAcquisition));
+    this.relinquishmentListeners.add(Objects.requireNonNull(onRelinquishment));
+    return this.leader;
+  }
+
+  @Override
+  public final String toString() {
+    return new StringBuilder(this.getClass().getSimpleName())
+      .append(" [leader=").append(this.leader)
+      .append("]")
+      .toString();
+  }
+
+}
@@ -0,0 +1,140 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import java.util.Objects;
+
+/**
+ * An immutable record of a time-limited claim by a holder on a named
+ * resource, stored in a {@link LeaseStore}.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see LeaseStore
+ */
+public final class Lease {
+
+  private final String holder;
+
+  private final Instant renewTime;
+
+  private final Duration duration;
+
+  /**
+   * Creates a new {@link Lease}.
+   *
+   * @param holder the identity of the holder of this {@link Lease};
+   * must not be {@code null}
+   *
+   * @param renewTime the {@link Instant} at which this {@link Lease}
+   * was last acquired or renewed; must not be {@code null}
+   *
+   * @param duration the {@link Duration}, measured from {@code
+   * renewTime}, for which this {@link Lease} is valid; must not be
+   * {@code null}
+   *
+   * @exception NullPointerException if any argument is {@code null}
+   */
+  public Lease(final String holder, final Instant renewTime, final Duration duration) {
+    super();
+    this.holder = Objects.requireNonNull(holder);
+    this.renewTime = Objects.requireNonNull(renewTime);
+    this.duration = Objects.requireNonNull(duration);
+  }
+
+  /**
+   * Returns the identity of the holder of this {@link Lease}.
+   *
+   * @return the non-{@code null} identity of the holder of this
+   * {@link Lease}
+   */
+  public final String getHolder() {
+    return this.holder;
+  }
+
+  /**
+   * Returns the {@link Instant} at which this {@link Lease} was last
+   * acquired or renewed.
+   *
+   * @return a non-{@code null} {@link Instant}
+   */
+  public final Instant getRenewTime() {
+    return this.renewTime;
+  }
+
+  /**
+   * Returns the {@link Duration}, measured from the {@linkplain
+   * #getRenewTime() renew time}, for which this {@link Lease} is
+   * valid.
+   *
+   * @return a non-{@code null} {@link Duration}
+   */
+  public final Duration getDuration() {
+    return this.duration;
+  }
+
+  /**
+   * Returns {@code true} if this {@link Lease} has expired as of the
+   * supplied {@link Instant}.
+   *
+   * @param now the {@link Instant} to check against; must not be
+   * {@code null}
+   *
+   * @return {@code true} if this {@link Lease} has expired; {@code
+   * false} otherwise
+   *
+   * @exception NullPointerException if {@code now} is {@code null}
+   */
+  public final boolean isExpired(final Instant now) {
+    return !now.isBefore(this.renewTime.plus(this.duration));
+  }
+
+  @Override
+  public final int hashCode() {
+    return Objects.hash(this.holder, this.renewTime, this.duration);
+  }
+
+  @Override
+  public final boolean equals(final Object other) {
+    if (other == this) {
+      return true;
+    } else if (other instanceof Lease) {
+      final Lease her = (Lease)other;
+      return
+        this.holder.equals(her.holder) &&
+        this.renewTime.equals(her.renewTime) &&
+        this.duration.equals(her.duration);
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public final String toString() {
+    return new StringBuilder(this.getClass().getSimpleName())
+      .append(" [holder=").append(this.holder)
+      .append(", renewTime=").append(this.renewTime)
+      .append(", duration=").append(this.duration)
+      .append("]")
+      .toString();
+  }
+
+}
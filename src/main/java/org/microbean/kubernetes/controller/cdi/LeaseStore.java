@@ -0,0 +1,88 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.io.IOException;
+
+import java.util.Map;
+
+/**
+ * A store of named {@link Lease}s supporting atomic
+ * compare-and-set updates, used by replicas of an application to
+ * divide the shards of the Kubernetes resource key space among
+ * themselves.
+ *
+ * <p>The {@link KubernetesControllerExtension} uses the {@link
+ * LeaseStore} bean in the CDI container, if there is one, when the
+ * {@code shardLeaseSlots} configuration property is set.  {@link
+ * ConfigMapLeaseStore} stores each lease in a Kubernetes {@link
+ * io.fabric8.kubernetes.api.model.ConfigMap} of its own; {@link
+ * InMemoryLeaseStore} stores them in memory and is suitable for
+ * tests.</p>
+ *
+ * <p>Lease names consist only of alphanumeric characters, {@code
+ * -}, {@code _} and {@code .}.</p>
+ *
+ * <p>Implementations of this interface must be safe for concurrent
+ * use by multiple threads.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Lease
+ */
+public interface LeaseStore {
+
+  /**
+   * Returns a snapshot of all the {@link Lease}s in this {@link
+   * LeaseStore}, indexed by name.
+   *
+   * <p>Implementations of this method must not return {@code
+   * null}.</p>
+   *
+   * @return a non-{@code null} {@link Map} of {@link Lease}s indexed
+   * by name
+   *
+   * @exception IOException if the {@link Lease}s could not be read
+   */
+  Map<String, Lease> getLeases() throws IOException;
+
+  /**
+   * Atomically replaces the {@link Lease} with the supplied name with
+   * {@code update} if and only if it is currently {@linkplain
+   * Lease#equals(Object) equal to} {@code expected}.
+   *
+   * @param name the name of the {@link Lease}; must not be {@code
+   * null}
+   *
+   * @param expected the {@link Lease} expected to be current; {@code
+   * null} if no such {@link Lease} is expected to exist
+   *
+   * @param update the new {@link Lease}; {@code null} if the {@link
+   * Lease} is to be removed
+   *
+   * @return {@code true} if the replacement happened; {@code false}
+   * if the current {@link Lease} was not equal to {@code expected}
+   *
+   * @exception IOException if the {@link Lease} could not be read or
+   * written
+   *
+   * @exception NullPointerException if {@code name} is {@code null}
+   */
+  boolean compareAndSet(final String name, final Lease expected, final Lease update) throws IOException;
+
+}
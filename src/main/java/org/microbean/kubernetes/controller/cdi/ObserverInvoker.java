@@ -0,0 +1,243 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import java.util.List;
+import java.util.Objects;
+
+import java.util.concurrent.CompletionStage;
+
+import javax.enterprise.context.ContextNotActiveException;
+import javax.enterprise.context.Dependent;
+
+import javax.enterprise.context.spi.Context;
+import javax.enterprise.context.spi.CreationalContext;
+
+import javax.enterprise.event.ObserverException;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.ObservesAsync;
+import javax.enterprise.event.Reception;
+
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.AnnotatedParameter;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.CDI;
+import javax.enterprise.inject.spi.InjectionPoint;
+
+/**
+ * An invoker of an observer method that returns a {@link
+ * CompletionStage}, which the CDI container itself would discard.
+ *
+ * <p>The observer method is invoked reflectively, with its observed
+ * event parameter set to the event and its other parameters injected
+ * exactly as the CDI container would inject them.  Any {@link
+ * Dependent}-scoped objects so created are destroyed once the
+ * returned {@link CompletionStage} completes.  A conditional observer
+ * method, whose {@linkplain Reception reception} is {@link
+ * Reception#IF_EXISTS}, is not invoked unless a contextual instance
+ * of its declaring bean already exists.</p>
+ *
+ * <p>Instances of this class are safe for concurrent use by multiple
+ * threads.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+final class ObserverInvoker {
+
+  private final AnnotatedMethod<?> annotatedMethod;
+
+  private final Bean<?> declaringBean;
+
+  private final Reception reception;
+
+  private final Method method;
+
+  private volatile InjectionPoint[] injectionPoints;
+
+  /**
+   * Creates a new {@link ObserverInvoker}.
+   *
+   * @param annotatedMethod the {@link AnnotatedMethod} representing
+   * the observer method; must not be {@code null}
+   *
+   * @param declaringBean the {@link Bean} declaring the observer
+   * method; must not be {@code null}
+   *
+   * @param reception the {@link Reception} of the observer method;
+   * must not be {@code null}
+   *
+   * @exception NullPointerException if any argument is {@code null}
+   */
+  ObserverInvoker(final AnnotatedMethod<?> annotatedMethod, final Bean<?> declaringBean, final Reception reception) {
+    super();
+    this.annotatedMethod = Objects.requireNonNull(annotatedMethod);
+    this.declaringBean = Objects.requireNonNull(declaringBean);
+    this.reception = Objects.requireNonNull(reception);
+    this.method = annotatedMethod.getJavaMember();
+    this.method.setAccessible(true);
+  }
+
+  /**
+   * Invokes the observer method with the supplied event and returns
+   * the {@link CompletionStage} it returns.
+   *
+   * <p>This method must be invoked while the CDI contexts that the
+   * observer method's injected parameters depend upon are
+   * active.</p>
+   *
+   * @param event the event; may be {@code null}
+   *
+   * @return the {@link CompletionStage} returned by the observer
+   * method, or {@code null} if it returned {@code null} or, being a
+   * conditional observer method, was not invoked
+   *
+   * @exception ObserverException if the observer method throws a
+   * checked exception
+   */
+  final CompletionStage<?> invoke(final Object event) {
+    final BeanManager beanManager = CDI.current().getBeanManager();
+    assert beanManager != null;
+    final InjectionPoint[] injectionPoints = this.getInjectionPoints(beanManager);
+    final CreationalContext<?> creationalContext = beanManager.createCreationalContext(null);
+    CompletionStage<?> returnValue = null;
+    try {
+      final Object receiver;
+      if (Modifier.isStatic(this.method.getModifiers())) {
+        receiver = null;
+      } else if (this.reception == Reception.IF_EXISTS) {
+        receiver = getExistingContextualInstance(beanManager, this.declaringBean);
+        if (receiver == null) {
+          return null;
+        }
+      } else {
+        // Like the CDI container, notify the contextual instance
+        // itself rather than a client proxy.
+        receiver = getContextualInstance(beanManager, this.declaringBean, creationalContext);
+      }
+      final Object[] arguments = new Object[injectionPoints.length];
+      for (int i = 0; i < arguments.length; i++) {
+        if (injectionPoints[i] == null) {
+          arguments[i] = event;
+        } else {
+          arguments[i] = beanManager.getInjectableReference(injectionPoints[i], creationalContext);
+        }
+      }
+      returnValue = (CompletionStage<?>)this.method.invoke(receiver, arguments);
+    } catch (final IllegalAccessException illegalAccessException) {
+      throw new IllegalStateException(illegalAccessException.getMessage(), illegalAccessException);
+    } catch (final InvocationTargetException invocationTargetException) {
+      final Throwable cause = invocationTargetException.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      } else if (cause instanceof Error) {
+        throw (Error)cause;
+      } else {
+        throw new ObserverException(cause.getMessage(), cause);
+      }
+    } finally {
+      if (returnValue == null) {
+        creationalContext.release();
+      }
+    }
+    if (returnValue != null) {
+      returnValue.whenComplete((result, throwable) -> creationalContext.release());
+    }
+    return returnValue;
+  }
+
+  private static final <T> T getContextualInstance(final BeanManager beanManager,
+                                                   final Bean<T> bean,
+                                                   final CreationalContext<?> creationalContext) {
+    final Context context = beanManager.getContext(bean.getScope());
+    T returnValue = context.get(bean);
+    if (returnValue == null) {
+      final CreationalContext<T> cc;
+      if (Dependent.class.equals(bean.getScope())) {
+        // The instance will be destroyed along with the other
+        // dependent objects created for this invocation.
+        @SuppressWarnings("unchecked")
+        final CreationalContext<T> temp = (CreationalContext<T>)creationalContext;
+        cc = temp;
+      } else {
+        // The instance belongs to its context and must outlive this
+        // invocation.
+        cc = beanManager.createCreationalContext(bean);
+      }
+      returnValue = context.get(bean, cc);
+    }
+    return returnValue;
+  }
+
+  private static final Object getExistingContextualInstance(final BeanManager beanManager, final Bean<?> bean) {
+    Object returnValue;
+    try {
+      returnValue = beanManager.getContext(bean.getScope()).get(bean);
+    } catch (final ContextNotActiveException contextNotActiveException) {
+      // As the CDI container does, treat an inactive context as one
+      // holding no instance.
+      returnValue = null;
+    }
+    return returnValue;
+  }
+
+  private final InjectionPoint[] getInjectionPoints(final BeanManager beanManager) {
+    InjectionPoint[] returnValue = this.injectionPoints;
+    if (returnValue == null) {
+      final List<? extends AnnotatedParameter<?>> parameters = this.annotatedMethod.getParameters();
+      returnValue = new InjectionPoint[parameters.size()];
+      for (int i = 0; i < returnValue.length; i++) {
+        final AnnotatedParameter<?> parameter = parameters.get(i);
+        // The observed event parameter is left null.
+        if (!parameter.isAnnotationPresent(Observes.class) && !parameter.isAnnotationPresent(ObservesAsync.class)) {
+          returnValue[i] = beanManager.createInjectionPoint(parameter);
+        }
+      }
+      this.injectionPoints = returnValue;
+    }
+    return returnValue;
+  }
+
+  @Override
+  public final String toString() {
+    return new StringBuilder(this.getClass().getSimpleName())
+      .append(" [").append(this.method)
+      .append("]")
+      .toString();
+  }
+
+  /**
+   * Returns {@code true} if the supplied {@link AnnotatedMethod}
+   * returns a {@link CompletionStage} and so needs an {@link
+   * ObserverInvoker} if its result is not to be discarded.
+   *
+   * @param annotatedMethod the {@link AnnotatedMethod} to check; may
+   * be {@code null} in which case {@code false} will be returned
+   *
+   * @return {@code true} if the supplied {@link AnnotatedMethod}
+   * returns a {@link CompletionStage}; {@code false} otherwise
+   */
+  static final boolean returnsCompletionStage(final AnnotatedMethod<?> annotatedMethod) {
+    return annotatedMethod != null && CompletionStage.class.isAssignableFrom(annotatedMethod.getJavaMember().getReturnType());
+  }
+
+}
@@ -0,0 +1,300 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import java.time.Duration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import io.fabric8.kubernetes.client.dsl.base.BaseOperation;
+
+/**
+ * A key that is equal to another {@link OperationKey} if and only if
+ * the Kubernetes operations from which they were created would list
+ * and watch exactly the same Kubernetes resources.
+ *
+ * <p>Operations that are not {@link BaseOperation}s cannot be
+ * inspected, so an {@link OperationKey} created from one is equal
+ * only to another created from the very same operation.</p>
+ *
+ * <p>Since operations that share a Kubernetes controller also share
+ * its synchronization interval, {@link OperationKey}s with different
+ * synchronization intervals are never equal.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+final class OperationKey {
+
+  private final Class<?> resourceClass;
+
+  private final Object operation;
+
+  private final String url;
+
+  private final String namespace;
+
+  private final Map<String, List<String>> labels;
+
+  private final Map<String, List<String>> labelsNot;
+
+  private final Map<String, List<String>> labelsIn;
+
+  private final Map<String, List<String>> labelsNotIn;
+
+  private final Map<String, List<String>> fields;
+
+  private final Duration synchronizationInterval;
+
+  /**
+   * Creates a new {@link OperationKey} with no synchronization
+   * interval.
+   *
+   * @param resourceClass the concrete Kubernetes resource class the
+   * operation lists and watches; must not be {@code null}
+   *
+   * @param operation the operation; must not be {@code null}
+   *
+   * @exception NullPointerException if either parameter is {@code
+   * null}
+   *
+   * @see #OperationKey(Class, Object, Duration)
+   */
+  OperationKey(final Class<?> resourceClass, final Object operation) {
+    this(resourceClass, operation, null);
+  }
+
+  /**
+   * Creates a new {@link OperationKey}.
+   *
+   * @param resourceClass the concrete Kubernetes resource class the
+   * operation lists and watches; must not be {@code null}
+   *
+   * @param operation the operation; must not be {@code null}
+   *
+   * @param synchronizationInterval the interval at which the
+   * Kubernetes controller serving the operation should synchronize;
+   * may be {@code null}
+   *
+   * @exception NullPointerException if {@code resourceClass} or
+   * {@code operation} is {@code null}
+   */
+  OperationKey(final Class<?> resourceClass, final Object operation, final Duration synchronizationInterval) {
+    super();
+    this.resourceClass = Objects.requireNonNull(resourceClass);
+    this.synchronizationInterval = synchronizationInterval;
+    Objects.requireNonNull(operation);
+    String url = null;
+    if (operation instanceof BaseOperation) {
+      try {
+        final URL namespacedUrl = ((BaseOperation<?, ?, ?, ?>)operation).getNamespacedUrl();
+        if (namespacedUrl != null) {
+          url = namespacedUrl.toString();
+        }
+      } catch (final MalformedURLException malformedUrlException) {
+        url = null;
+      }
+    }
+    this.url = url;
+    if (url == null) {
+      this.operation = operation;
+      this.namespace = null;
+      this.labels = Collections.emptyMap();
+      this.labelsNot = Collections.emptyMap();
+      this.labelsIn = Collections.emptyMap();
+      this.labelsNotIn = Collections.emptyMap();
+      this.fields = Collections.emptyMap();
+    } else {
+      this.operation = null;
+      final BaseOperation<?, ?, ?, ?> baseOperation = (BaseOperation<?, ?, ?, ?>)operation;
+      this.namespace = baseOperation.getNamespace();
+      this.labels = normalize(baseOperation.getLabels());
+      this.labelsNot = normalize(baseOperation.getLabelsNot());
+      this.labelsIn = normalize(baseOperation.getLabelsIn());
+      this.labelsNotIn = normalize(baseOperation.getLabelsNotIn());
+      this.fields = normalize(baseOperation.getFields());
+    }
+  }
+
+  /**
+   * Returns {@code true} if this {@link OperationKey} could be
+   * compared meaningfully to other {@link OperationKey}s created from
+   * different operations.
+   *
+   * @return {@code true} if the operation from which this {@link
+   * OperationKey} was created could be inspected; {@code false}
+   * otherwise
+   */
+  final boolean isShareable() {
+    return this.url != null;
+  }
+
+  /**
+   * Returns the Kubernetes resource class supplied at construction
+   * time.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} Kubernetes resource class
+   */
+  final Class<?> getResourceClass() {
+    return this.resourceClass;
+  }
+
+  /**
+   * Returns the namespace to which the operation from which this
+   * {@link OperationKey} was created is restricted, or {@code null}
+   * if it is not restricted to any namespace or could not be
+   * inspected.
+   *
+   * @return the namespace, or {@code null}
+   */
+  final String getNamespace() {
+    return this.namespace;
+  }
+
+  /**
+   * Returns the synchronization interval supplied at construction
+   * time, or {@code null}.
+   *
+   * @return the synchronization interval, or {@code null}
+   */
+  final Duration getSynchronizationInterval() {
+    return this.synchronizationInterval;
+  }
+
+  /**
+   * Returns {@code true} if this {@link OperationKey} and the
+   * supplied {@link OperationKey} would select the same Kubernetes
+   * resources if neither were restricted to a namespace.
+   *
+   * @param other the {@link OperationKey} to compare; may be {@code
+   * null} in which case {@code false} will be returned
+   *
+   * @return {@code true} if the two {@link OperationKey}s differ at
+   * most in namespace; {@code false} otherwise
+   */
+  final boolean isSameSelectionInAnyNamespace(final OperationKey other) {
+    return
+      other != null &&
+      this.isShareable() &&
+      other.isShareable() &&
+      this.resourceClass.equals(other.resourceClass) &&
+      this.labels.equals(other.labels) &&
+      this.labelsNot.equals(other.labelsNot) &&
+      this.labelsIn.equals(other.labelsIn) &&
+      this.labelsNotIn.equals(other.labelsNotIn) &&
+      this.fields.equals(other.fields) &&
+      Objects.equals(this.synchronizationInterval, other.synchronizationInterval);
+  }
+
+  @Override
+  public final int hashCode() {
+    int hashCode = 17;
+    hashCode = 37 * hashCode + this.resourceClass.hashCode();
+    hashCode = 37 * hashCode + System.identityHashCode(this.operation);
+    hashCode = 37 * hashCode + Objects.hashCode(this.url);
+    hashCode = 37 * hashCode + this.labels.hashCode();
+    hashCode = 37 * hashCode + this.labelsNot.hashCode();
+    hashCode = 37 * hashCode + this.labelsIn.hashCode();
+    hashCode = 37 * hashCode + this.labelsNotIn.hashCode();
+    hashCode = 37 * hashCode + this.fields.hashCode();
+    hashCode = 37 * hashCode + Objects.hashCode(this.synchronizationInterval);
+    return hashCode;
+  }
+
+  @Override
+  public final boolean equals(final Object other) {
+    if (other == this) {
+      return true;
+    } else if (other instanceof OperationKey) {
+      final OperationKey her = (OperationKey)other;
+      return
+        this.resourceClass.equals(her.resourceClass) &&
+        this.operation == her.operation &&
+        Objects.equals(this.url, her.url) &&
+        this.labels.equals(her.labels) &&
+        this.labelsNot.equals(her.labelsNot) &&
+        this.labelsIn.equals(her.labelsIn) &&
+        this.labelsNotIn.equals(her.labelsNotIn) &&
+        this.fields.equals(her.fields) &&
+        Objects.equals(this.synchronizationInterval, her.synchronizationInterval);
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public final String toString() {
+    final StringBuilder sb = new StringBuilder(this.resourceClass.getName());
+    if (this.url == null) {
+      sb.append(" ").append(this.operation);
+    } else {
+      sb.append(" ").append(this.url);
+      if (!this.labels.isEmpty()) {
+        sb.append(" labels=").append(this.labels);
+      }
+      if (!this.labelsNot.isEmpty()) {
+        sb.append(" labelsNot=").append(this.labelsNot);
+      }
+      if (!this.labelsIn.isEmpty()) {
+        sb.append(" labelsIn=").append(this.labelsIn);
+      }
+      if (!this.labelsNotIn.isEmpty()) {
+        sb.append(" labelsNotIn=").append(this.labelsNotIn);
+      }
+      if (!this.fields.isEmpty()) {
+        sb.append(" fields=").append(this.fields);
+      }
+    }
+    if (this.synchronizationInterval != null) {
+      sb.append(" synchronizationInterval=").append(this.synchronizationInterval);
+    }
+    return sb.toString();
+  }
+
+  private static final Map<String, List<String>> normalize(final Map<String, ?> map) {
+    final Map<String, List<String>> returnValue;
+    if (map == null || map.isEmpty()) {
+      returnValue = Collections.emptyMap();
+    } else {
+      returnValue = new TreeMap<>();
+      for (final Map.Entry<String, ?> entry : map.entrySet()) {
+        final Object value = entry.getValue();
+        if (value instanceof String[]) {
+          final String[] values = ((String[])value).clone();
+          Arrays.sort(values);
+          returnValue.put(entry.getKey(), Arrays.asList(values));
+        } else if (value == null) {
+          returnValue.put(entry.getKey(), Collections.emptyList());
+        } else {
+          returnValue.put(entry.getKey(), Collections.singletonList(value.toString()));
+        }
+      }
+    }
+    return returnValue;
+  }
+
+}
@@ -0,0 +1,262 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+import io.fabric8.kubernetes.client.utils.Serialization;
+
+import io.fabric8.zjsonpatch.JsonDiff;
+
+import org.microbean.kubernetes.controller.cdi.annotation.Changes; // for javadoc only
+import org.microbean.kubernetes.controller.cdi.annotation.Prior; // for javadoc only
+
+/**
+ * The difference between a Kubernetes resource and its prior state,
+ * computed lazily at most once.
+ *
+ * <p>An observer method may have an instance of this class injected
+ * by declaring a parameter qualified with {@link Changes @Changes}
+ * whose type argument is identical to its observed event type:</p>
+ *
+ * <blockquote><pre>private final void onConfigMapModification(&#64;Observes &#64;AllConfigMapEvents &#64;Modified final ConfigMap configMap, &#64;Changes final ResourceDiff&lt;ConfigMap&gt; changes) {
+ *  if (changes.hasChanged("data")) {
+ *    // do something interesting
+ *  }
+ *}</pre></blockquote>
+ *
+ * <p>A single instance is shared by all observer methods,
+ * synchronous and asynchronous, notified of a given event, so the
+ * difference is computed at most once per event no matter how many
+ * observer methods consult it.</p>
+ *
+ * <p>Instances of this class are safe for concurrent use by multiple
+ * threads.</p>
+ *
+ * @param <T> a type that extends {@link HasMetadata}; e.g. a
+ * Kubernetes resource type
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see Changes
+ */
+public final class ResourceDiff<T extends HasMetadata> {
+
+  private final T resource;
+
+  private final Optional<T> prior;
+
+  private volatile JsonNode patch;
+
+  private volatile List<String[]> changedPaths;
+
+  /**
+   * Creates a new {@link ResourceDiff}.
+   *
+   * @param resource the current state of a Kubernetes resource; must
+   * not be {@code null}
+   *
+   * @param prior the {@link Optional} prior state of the Kubernetes
+   * resource; must not be {@code null}
+   *
+   * @exception NullPointerException if either parameter is {@code
+   * null}
+   */
+  ResourceDiff(final T resource, final Optional<T> prior) {
+    super();
+    this.resource = Objects.requireNonNull(resource);
+    this.prior = Objects.requireNonNull(prior);
+  }
+
+  /**
+   * Returns the current state of the Kubernetes resource.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} current state of the Kubernetes
+   * resource
+   */
+  public final T getResource() {
+    return this.resource;
+  }
+
+  /**
+   * Returns the {@link Optional} prior state of the Kubernetes
+   * resource.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return the non-{@code null} {@link Optional} prior state of the
+   * Kubernetes resource
+   *
+   * @see Prior
+   */
+  public final Optional<T> getPrior() {
+    return this.prior;
+  }
+
+  /**
+   * Returns a <a href="https://tools.ietf.org/html/rfc6902">JSON
+   * Patch</a> that, when applied to the JSON representation of the
+   * {@linkplain #getPrior() prior state}, yields the JSON
+   * representation of the {@linkplain #getResource() current state}.
+   *
+   * <p>If there is no prior state, the patch is computed against an
+   * empty JSON object.</p>
+   *
+   * <p>The patch is deliberately exposed as a Jackson {@link
+   * JsonNode}, which is the JSON representation the fabric8
+   * Kubernetes client itself uses (see {@code
+   * io.fabric8.kubernetes.client.utils.Serialization}), so that it
+   * can be handed to the client or to any JSON Patch implementation
+   * without conversion.  Jackson is therefore a compile-scoped
+   * dependency of this project.</p>
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null} {@link JsonNode} representing a JSON
+   * Patch
+   */
+  public final JsonNode getPatch() {
+    JsonNode patch = this.patch;
+    if (patch == null) {
+      synchronized (this) {
+        patch = this.patch;
+        if (patch == null) {
+          final ObjectMapper objectMapper = Serialization.jsonMapper();
+          final JsonNode source;
+          if (this.prior.isPresent()) {
+            source = objectMapper.valueToTree(this.prior.get());
+          } else {
+            source = objectMapper.createObjectNode();
+          }
+          patch = JsonDiff.asJson(source, objectMapper.valueToTree(this.resource));
+          assert patch != null;
+          this.patch = patch;
+        }
+      }
+    }
+    return patch;
+  }
+
+  /**
+   * Returns a {@link List} of the segments of the paths that the
+   * {@linkplain #getPatch() patch} changes.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @return a non-{@code null}, unmodifiable {@link List} of path
+   * segment arrays
+   *
+   * @see JsonPaths#segments(String)
+   */
+  final List<String[]> getChangedPaths() {
+    List<String[]> changedPaths = this.changedPaths;
+    if (changedPaths == null) {
+      synchronized (this) {
+        changedPaths = this.changedPaths;
+        if (changedPaths == null) {
+          final JsonNode patch = this.getPatch();
+          final List<String[]> temp = new ArrayList<>(patch.size());
+          for (final JsonNode operation : patch) {
+            addPath(operation.get("path"), temp);
+            // "move" operations change their "from" location too.
+            addPath(operation.get("from"), temp);
+          }
+          changedPaths = Collections.unmodifiableList(temp);
+          this.changedPaths = changedPaths;
+        }
+      }
+    }
+    return changedPaths;
+  }
+
+  /**
+   * Returns {@code true} if the portion of the Kubernetes resource
+   * found at any of the supplied paths has changed from its prior
+   * state.
+   *
+   * <p>Paths may be expressed either in dotted notation (e.g. {@code
+   * metadata.labels}) or as <a
+   * href="https://tools.ietf.org/html/rfc6901">JSON Pointers</a>
+   * (e.g. {@code /metadata/labels}).  A path is considered to have
+   * changed if anything at, beneath or above it has changed.</p>
+   *
+   * @param paths the paths to check; may be {@code null} in which
+   * case {@code false} will be returned
+   *
+   * @return {@code true} if the portion of the Kubernetes resource
+   * found at any of the supplied paths has changed; {@code false}
+   * otherwise
+   */
+  public final boolean hasChanged(final String... paths) {
+    return this.affects(JsonPaths.segments(paths));
+  }
+
+  /**
+   * Returns {@code true} if any of the supplied paths overlaps any of
+   * the {@linkplain #getChangedPaths() changed paths}.
+   *
+   * @param paths a {@link Collection} of path segment arrays; may be
+   * {@code null} in which case {@code false} will be returned
+   *
+   * @return {@code true} if any of the supplied paths has changed;
+   * {@code false} otherwise
+   *
+   * @see JsonPaths#overlap(String[], String[])
+   */
+  final boolean affects(final Collection<? extends String[]> paths) {
+    if (paths != null && !paths.isEmpty()) {
+      final List<String[]> changedPaths = this.getChangedPaths();
+      for (final String[] path : paths) {
+        for (final String[] changedPath : changedPaths) {
+          if (JsonPaths.overlap(path, changedPath)) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private static final void addPath(final JsonNode path, final Collection<? super String[]> paths) {
+    if (path != null && path.isTextual()) {
+      paths.add(JsonPaths.segments(path.asText()));
+    }
+  }
+
+  @Override
+  public final String toString() {
+    return new StringBuilder(this.getClass().getSimpleName())
+      .append(" [resource=").append(this.resource)
+      .append(", prior=").append(this.prior)
+      .append("]")
+      .toString();
+  }
+
+}
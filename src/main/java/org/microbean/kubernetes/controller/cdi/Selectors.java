@@ -0,0 +1,219 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.fabric8.kubernetes.client.dsl.Filterable;
+import io.fabric8.kubernetes.client.dsl.Listable;
+import io.fabric8.kubernetes.client.dsl.VersionWatchable;
+
+import org.microbean.kubernetes.controller.cdi.annotation.KubernetesEventSelector; // for javadoc only
+
+/**
+ * Utility methods for applying <a
+ * href="https://kubernetes.io/docs/concepts/overview/working-with-objects/labels/#label-selectors">label
+ * selectors</a> and <a
+ * href="https://kubernetes.io/docs/concepts/overview/working-with-objects/field-selectors/">field
+ * selectors</a> to {@link Filterable} operations so that filtering
+ * happens on the Kubernetes API server.
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see KubernetesEventSelector#labelSelector()
+ *
+ * @see KubernetesEventSelector#fieldSelector()
+ */
+final class Selectors {
+
+  private Selectors() {
+    super();
+  }
+
+  /**
+   * Applies the supplied label and field selector requirements to
+   * the supplied operation and returns the result, which will be the
+   * supplied operation itself if there are no requirements.
+   *
+   * <p>The fabric8 Kubernetes client's operations record label and
+   * field requirements by modifying themselves, so the supplied
+   * operation must not be shared with anything else.</p>
+   *
+   * @param <X> a type that is both {@link Listable} and {@link
+   * VersionWatchable}
+   *
+   * @param operation the operation to filter; may be {@code null} in
+   * which case {@code null} will be returned
+   *
+   * @param labelSelector label selector requirements; may be {@code
+   * null}
+   *
+   * @param fieldSelector field selector requirements; may be {@code
+   * null}
+   *
+   * @return a filtered operation, or {@code null}
+   *
+   * @exception IllegalArgumentException if there are requirements
+   * and {@code operation} is not {@link Filterable}, or if any
+   * requirement is malformed or unsupported
+   */
+  @SuppressWarnings("rawtypes")
+  static final <X extends Listable & VersionWatchable> X apply(final X operation,
+                                                               final String[] labelSelector,
+                                                               final String[] fieldSelector) {
+    final List<String> labelRequirements = requirements(labelSelector);
+    final List<String> fieldRequirements = requirements(fieldSelector);
+    if (operation == null || (labelRequirements.isEmpty() && fieldRequirements.isEmpty())) {
+      return operation;
+    }
+    Object current = operation;
+    for (final String requirement : labelRequirements) {
+      current = applyLabelRequirement(asFilterable(current), requirement);
+    }
+    for (final String requirement : fieldRequirements) {
+      current = applyFieldRequirement(asFilterable(current), requirement);
+    }
+    if (!(current instanceof Listable) || !(current instanceof VersionWatchable)) {
+      throw new IllegalArgumentException("Filtering " + operation + " did not yield an operation that is both Listable and VersionWatchable: " + current);
+    }
+    @SuppressWarnings("unchecked")
+    final X returnValue = (X)current;
+    return returnValue;
+  }
+
+  /**
+   * Splits the supplied selector elements into individual
+   * requirements, honoring parentheses.
+   *
+   * <p>This method never returns {@code null}.</p>
+   *
+   * @param selector selector elements, each of which may contain one
+   * or more comma-separated requirements; may be {@code null}
+   *
+   * @return a non-{@code null} {@link List} of trimmed, non-empty
+   * requirements
+   *
+   * @exception IllegalArgumentException if parentheses are
+   * unbalanced
+   */
+  static final List<String> requirements(final String[] selector) {
+    final List<String> returnValue = new ArrayList<>();
+    if (selector != null) {
+      for (final String element : selector) {
+        if (element != null) {
+          int depth = 0;
+          int start = 0;
+          final int length = element.length();
+          for (int i = 0; i < length; i++) {
+            final char c = element.charAt(i);
+            if (c == '(') {
+              depth++;
+            } else if (c == ')') {
+              depth--;
+              if (depth < 0) {
+                throw new IllegalArgumentException("Unbalanced parentheses: " + element);
+              }
+            } else if (c == ',' && depth == 0) {
+              addRequirement(element.substring(start, i), returnValue);
+              start = i + 1;
+            }
+          }
+          if (depth != 0) {
+            throw new IllegalArgumentException("Unbalanced parentheses: " + element);
+          }
+          addRequirement(element.substring(start), returnValue);
+        }
+      }
+    }
+    return returnValue;
+  }
+
+  private static final void addRequirement(final String requirement, final List<? super String> requirements) {
+    final String trimmed = requirement.trim();
+    if (!trimmed.isEmpty()) {
+      requirements.add(trimmed);
+    }
+  }
+
+  private static final Filterable<?> asFilterable(final Object operation) {
+    if (!(operation instanceof Filterable)) {
+      throw new IllegalArgumentException("Label and field selectors cannot be applied to " + operation + " because it is not an instance of " + Filterable.class.getName());
+    }
+    return (Filterable<?>)operation;
+  }
+
+  private static final Object applyLabelRequirement(final Filterable<?> filterable, final String requirement) {
+    final Object returnValue;
+    int index = requirement.indexOf("!=");
+    if (index > 0) {
+      returnValue = filterable.withoutLabel(requirement.substring(0, index).trim(), requirement.substring(index + 2).trim());
+    } else if ((index = requirement.indexOf("==")) > 0) {
+      returnValue = filterable.withLabel(requirement.substring(0, index).trim(), requirement.substring(index + 2).trim());
+    } else if ((index = requirement.indexOf('=')) > 0) {
+      returnValue = filterable.withLabel(requirement.substring(0, index).trim(), requirement.substring(index + 1).trim());
+    } else if (requirement.startsWith("!")) {
+      returnValue = filterable.withoutLabel(requirement.substring(1).trim());
+    } else if ((index = requirement.indexOf('(')) > 0) {
+      if (!requirement.endsWith(")")) {
+        throw new IllegalArgumentException("Malformed label selector requirement: " + requirement);
+      }
+      final String[] keyAndOperator = requirement.substring(0, index).trim().split("\\s+");
+      if (keyAndOperator.length != 2) {
+        throw new IllegalArgumentException("Malformed label selector requirement: " + requirement);
+      }
+      final String[] values = values(requirement.substring(index + 1, requirement.length() - 1));
+      if ("in".equals(keyAndOperator[1])) {
+        returnValue = filterable.withLabelIn(keyAndOperator[0], values);
+      } else if ("notin".equals(keyAndOperator[1])) {
+        returnValue = filterable.withLabelNotIn(keyAndOperator[0], values);
+      } else {
+        throw new IllegalArgumentException("Unsupported label selector operator: " + requirement);
+      }
+    } else if (requirement.indexOf(' ') < 0) {
+      returnValue = filterable.withLabel(requirement);
+    } else {
+      throw new IllegalArgumentException("Malformed label selector requirement: " + requirement);
+    }
+    return returnValue;
+  }
+
+  private static final Object applyFieldRequirement(final Filterable<?> filterable, final String requirement) {
+    final Object returnValue;
+    int index = requirement.indexOf("!=");
+    if (index > 0) {
+      throw new IllegalArgumentException("Unsupported field selector requirement: " + requirement);
+    } else if ((index = requirement.indexOf("==")) > 0) {
+      returnValue = filterable.withField(requirement.substring(0, index).trim(), requirement.substring(index + 2).trim());
+    } else if ((index = requirement.indexOf('=')) > 0) {
+      returnValue = filterable.withField(requirement.substring(0, index).trim(), requirement.substring(index + 1).trim());
+    } else {
+      throw new IllegalArgumentException("Malformed field selector requirement: " + requirement);
+    }
+    return returnValue;
+  }
+
+  private static final String[] values(final String values) {
+    final String[] returnValue = values.split(",");
+    for (int i = 0; i < returnValue.length; i++) {
+      returnValue[i] = returnValue[i].trim();
+    }
+    return returnValue;
+  }
+
+}
@@ -0,0 +1,151 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+/**
+ * One of a fixed number of shards of the key space of Kubernetes
+ * resources, to which keys are assigned by <a
+ * href="https://arxiv.org/abs/1406.2294">jump consistent hashing</a>.
+ *
+ * <p>Jump consistent hashing assigns keys to shards evenly and, when
+ * the number of shards grows from <em>n</em> to <em>n</em> + 1,
+ * moves only the 1/(<em>n</em> + 1) of keys that belong on the new
+ * shard.</p>
+ *
+ * <p>Instances of this class are immutable and safe for concurrent
+ * use by multiple threads.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+final class Shard implements KeyOwnership {
+
+  private final int index;
+
+  private final int count;
+
+  /**
+   * Creates a new {@link Shard}.
+   *
+   * @param index the zero-based index of this {@link Shard}; must
+   * not be negative and must be less than {@code count}
+   *
+   * @param count the total number of shards; must be greater than
+   * zero
+   *
+   * @exception IllegalArgumentException if either argument is out of
+   * range
+   */
+  Shard(final int index, final int count) {
+    super();
+    if (count <= 0) {
+      throw new IllegalArgumentException("count <= 0: " + count);
+    }
+    if (index < 0 || index >= count) {
+      throw new IllegalArgumentException("index < 0 || index >= count: " + index);
+    }
+    this.index = index;
+    this.count = count;
+  }
+
+  /**
+   * Returns the zero-based index of this {@link Shard}.
+   *
+   * @return the zero-based index of this {@link Shard}
+   */
+  final int getIndex() {
+    return this.index;
+  }
+
+  /**
+   * Returns the total number of shards.
+   *
+   * @return the total number of shards; always greater than zero
+   */
+  final int getCount() {
+    return this.count;
+  }
+
+  /**
+   * Returns {@code true} if the supplied key belongs to this {@link
+   * Shard}.
+   *
+   * @param key the key; may be {@code null} in which case {@code
+   * true} will be returned, since an unkeyed resource cannot be
+   * assigned elsewhere
+   *
+   * @return {@code true} if the supplied key belongs to this {@link
+   * Shard}; {@code false} otherwise
+   */
+  @Override
+  public final boolean owns(final Object key) {
+    return key == null || this.count == 1 || bucket(key, this.count) == this.index;
+  }
+
+  @Override
+  public final String toString() {
+    return new StringBuilder(this.getClass().getSimpleName())
+      .append(" ").append(this.index).append("/").append(this.count)
+      .toString();
+  }
+
+  /**
+   * Returns the zero-based index of the bucket, out of the supplied
+   * number of buckets, to which the supplied key belongs.
+   *
+   * <p>The result depends only on the {@linkplain Object#toString()
+   * string representation} of the key, so it is the same in every
+   * JVM.</p>
+   *
+   * @param key the key; must not be {@code null}
+   *
+   * @param buckets the number of buckets; must be greater than zero
+   *
+   * @return a bucket index greater than or equal to zero and less
+   * than {@code buckets}
+   *
+   * @exception NullPointerException if {@code key} is {@code null}
+   */
+  static final int bucket(final Object key, final int buckets) {
+    return jump(hash(key.toString()), buckets);
+  }
+
+  private static final int jump(long key, final int buckets) {
+    // See https://arxiv.org/abs/1406.2294, figure 1.
+    long b = -1L;
+    long j = 0L;
+    while (j < buckets) {
+      b = j;
+      key = key * 2862933555777941757L + 1L;
+      j = (long)((b + 1L) * ((double)(1L << 31) / (double)((key >>> 33) + 1L)));
+    }
+    return (int)b;
+  }
+
+  private static final long hash(final String s) {
+    // 64-bit FNV-1a, so that similar keys (e.g. "default/a" and
+    // "default/b") are well distributed; String#hashCode() is not.
+    long h = 0xCBF29CE484222325L;
+    final int length = s.length();
+    for (int i = 0; i < length; i++) {
+      h ^= s.charAt(i);
+      h *= 0x100000001B3L;
+    }
+    return h;
+  }
+
+}
@@ -0,0 +1,380 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import java.util.function.BiConsumer;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link KeyOwnership} that divides a fixed number of shards, or
+ * <em>slots</em>, of the Kubernetes resource key space among live
+ * replicas by means of {@link Lease}s held in a {@link LeaseStore}.
+ *
+ * <p>Each replica periodically {@linkplain #renew() renews} a
+ * membership lease named {@code member-}<em>holder</em> and a lease
+ * named {@code shard-}<em>n</em> for each slot it owns.  Live
+ * replicas are those whose membership leases have not expired.  Each
+ * replica aims to own its fair share of the slots, releasing slots
+ * beyond that share so that newly arrived replicas can claim them,
+ * and claiming unowned slots, including those whose leases expired
+ * because their previous owner died, up to that share.  A dead
+ * replica's keys are therefore picked up within one lease
+ * duration.</p>
+ *
+ * <p>Instances of this class are safe for concurrent use by multiple
+ * threads.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see LeaseStore
+ *
+ * @see Shard#bucket(Object, int)
+ */
+final class ShardLeaser implements KeyOwnership, Closeable {
+
+  private static final String MEMBER_PREFIX = "member-";
+
+  private static final String SHARD_PREFIX = "shard-";
+
+  private final LeaseStore leaseStore;
+
+  private final String holder;
+
+  private final int slots;
+
+  private final Duration leaseDuration;
+
+  private final Clock clock;
+
+  private final Logger logger;
+
+  private final TreeMap<Integer, Lease> heldLeases;
+
+  private volatile Set<Integer> ownedSlots;
+
+  private Lease membershipLease;
+
+  private Instant lastRenewal;
+
+  private ScheduledExecutorService executorService;
+
+  /**
+   * Creates a new {@link ShardLeaser}.
+   *
+   * @param leaseStore the {@link LeaseStore} to use; must not be
+   * {@code null}
+   *
+   * @param holder the identity of this replica; must not be {@code
+   * null}
+   *
+   * @param slots the number of slots to divide the key space into;
+   * must be greater than zero
+   *
+   * @param leaseDuration the {@link Duration} for which leases are
+   * valid; must not be {@code null} and must be positive
+   *
+   * @exception NullPointerException if any argument is {@code null}
+   *
+   * @exception IllegalArgumentException if {@code slots} or {@code
+   * leaseDuration} is out of range
+   */
+  ShardLeaser(final LeaseStore leaseStore, final String holder, final int slots, final Duration leaseDuration) {
+    this(leaseStore, holder, slots, leaseDuration, Clock.systemUTC());
+  }
+
+  ShardLeaser(final LeaseStore leaseStore, final String holder, final int slots, final Duration leaseDuration, final Clock clock) {
+    super();
+    this.logger = Logger.getLogger(this.getClass().getName());
+    this.leaseStore = Objects.requireNonNull(leaseStore);
+    this.holder = Objects.requireNonNull(holder);
+    if (slots <= 0) {
+      throw new IllegalArgumentException("slots <= 0: " + slots);
+    }
+    this.slots = slots;
+    if (leaseDuration.isNegative() || leaseDuration.isZero()) {
+      throw new IllegalArgumentException("leaseDuration <= 0: " + leaseDuration);
+    }
+    this.leaseDuration = leaseDuration;
+    this.clock = Objects.requireNonNull(clock);
+    this.heldLeases = new TreeMap<>();
+    this.ownedSlots = Collections.emptySet();
+  }
+
+  @Override
+  public final boolean owns(final Object key) {
+    return key == null || this.ownedSlots.contains(Integer.valueOf(this.getSlot(key)));
+  }
+
+  /**
+   * Returns the slot to which the supplied key belongs, whether or
+   * not it is owned by this {@link ShardLeaser}.
+   *
+   * @param key the key; must not be {@code null}
+   *
+   * @return a slot number greater than or equal to zero and less
+   * than the number of slots
+   *
+   * @exception NullPointerException if {@code key} is {@code null}
+   */
+  final int getSlot(final Object key) {
+    return Shard.bucket(key, this.slots);
+  }
+
+  /**
+   * Returns an unmodifiable snapshot of the slots currently owned by
+   * this {@link ShardLeaser}.
+   *
+   * @return a non-{@code null} unmodifiable {@link Set} of slot
+   * numbers
+   */
+  final Set<Integer> getOwnedSlots() {
+    return this.ownedSlots;
+  }
+
+  /**
+   * Performs one round of lease renewal, release and acquisition,
+   * and returns {@code true} if the slots owned by this {@link
+   * ShardLeaser} changed as a result.
+   *
+   * @return {@code true} if the owned slots changed; {@code false}
+   * otherwise
+   *
+   * @exception IOException if the {@link LeaseStore} could not be
+   * read or written
+   */
+  final synchronized boolean renew() throws IOException {
+    final Instant now = Instant.ofEpochMilli(this.clock.millis());
+    final Map<String, Lease> leases = this.leaseStore.getLeases();
+    assert leases != null;
+
+    final String memberName = MEMBER_PREFIX + this.holder;
+    final Lease membershipLease = new Lease(this.holder, now, this.leaseDuration);
+    if (this.leaseStore.compareAndSet(memberName, leases.get(memberName), membershipLease)) {
+      this.membershipLease = membershipLease;
+    }
+
+    // Work out this replica's fair share of the slots.  Replicas are
+    // ordered by identity so that they agree on who gets the
+    // remainder.
+    final List<String> members = new ArrayList<>();
+    for (final Map.Entry<String, Lease> entry : leases.entrySet()) {
+      final Lease lease = entry.getValue();
+      if (entry.getKey().startsWith(MEMBER_PREFIX) && lease != null && !lease.isExpired(now) && !this.holder.equals(lease.getHolder())) {
+        members.add(lease.getHolder());
+      }
+    }
+    members.add(this.holder);
+    Collections.sort(members);
+    final int memberCount = members.size();
+    final int target = this.slots / memberCount + (members.indexOf(this.holder) < this.slots % memberCount ? 1 : 0);
+
+    // Renew the slots this replica holds.  If a renewal fails, the
+    // lease it would have replaced has not expired, and no other
+    // replica may claim the slot until it does.  So the slot is kept
+    // unless that lease will expire before the next round.
+    final Instant nextRound = now.plus(this.leaseDuration.dividedBy(3L));
+    this.heldLeases.clear();
+    for (int slot = 0; slot < this.slots; slot++) {
+      final String name = SHARD_PREFIX + slot;
+      final Lease lease = leases.get(name);
+      if (lease != null && this.holder.equals(lease.getHolder()) && !lease.isExpired(now)) {
+        final Lease renewal = new Lease(this.holder, now, this.leaseDuration);
+        if (this.leaseStore.compareAndSet(name, lease, renewal)) {
+          this.heldLeases.put(Integer.valueOf(slot), renewal);
+        } else if (!lease.isExpired(nextRound)) {
+          this.heldLeases.put(Integer.valueOf(slot), lease);
+        }
+      }
+    }
+
+    // Release any slots beyond this replica's fair share.
+    while (this.heldLeases.size() > target) {
+      final Integer slot = this.heldLeases.lastKey();
+      this.leaseStore.compareAndSet(SHARD_PREFIX + slot, this.heldLeases.remove(slot), null);
+    }
+
+    // Claim unowned slots up to this replica's fair share.
+    for (int slot = 0; slot < this.slots && this.heldLeases.size() < target; slot++) {
+      final Integer slotInteger = Integer.valueOf(slot);
+      if (!this.heldLeases.containsKey(slotInteger)) {
+        final String name = SHARD_PREFIX + slot;
+        final Lease lease = leases.get(name);
+        if (lease == null || lease.isExpired(now)) {
+          final Lease acquisition = new Lease(this.holder, now, this.leaseDuration);
+          if (this.leaseStore.compareAndSet(name, lease, acquisition)) {
+            this.heldLeases.put(slotInteger, acquisition);
+          }
+        }
+      }
+    }
+
+    this.lastRenewal = now;
+    return this.setOwnedSlots(this.heldLeases.keySet());
+  }
+
+  private final boolean setOwnedSlots(final Set<Integer> slots) {
+    final Set<Integer> newOwnedSlots = Collections.unmodifiableSet(new TreeSet<>(slots));
+    final boolean returnValue = !newOwnedSlots.equals(this.ownedSlots);
+    this.ownedSlots = newOwnedSlots;
+    if (returnValue && this.logger.isLoggable(Level.INFO)) {
+      this.logger.logp(Level.INFO, this.getClass().getName(), "setOwnedSlots", "{0} now owns slots {1} of {2}", new Object[] { this.holder, newOwnedSlots, Integer.valueOf(this.slots) });
+    }
+    return returnValue;
+  }
+
+  /**
+   * Starts {@linkplain #renew() renewing} leases periodically on a
+   * background thread, three times per lease duration, notifying the
+   * supplied listener after every round.
+   *
+   * <p>The listener is supplied with the slots that were gained and
+   * the slots that were lost in that round, both of which are empty
+   * if the owned slots did not change, so that it may retry work
+   * left over from earlier rounds.  It is invoked on the background
+   * thread.</p>
+   *
+   * <p>If leases cannot be renewed for a full lease duration, this
+   * {@link ShardLeaser} gives up all of its slots, since other
+   * replicas may by then have claimed them.</p>
+   *
+   * @param listener the listener; must not be {@code null}
+   *
+   * @exception NullPointerException if {@code listener} is {@code
+   * null}
+   *
+   * @exception IllegalStateException if this method has already been
+   * called
+   */
+  final synchronized void start(final BiConsumer<? super Set<Integer>, ? super Set<Integer>> listener) {
+    Objects.requireNonNull(listener);
+    if (this.executorService != null) {
+      throw new IllegalStateException();
+    }
+    this.executorService = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "kubernetes-shard-leaser");
+        thread.setDaemon(true);
+        return thread;
+      });
+    final long period = Math.max(1L, this.leaseDuration.toMillis() / 3L);
+    this.executorService.scheduleWithFixedDelay(() -> {
+        final Set<Integer> before = this.ownedSlots;
+        try {
+          this.renew();
+        } catch (final IOException | RuntimeException exception) {
+          if (this.logger.isLoggable(Level.WARNING)) {
+            this.logger.logp(Level.WARNING, this.getClass().getName(), "renew", exception.getMessage(), exception);
+          }
+          synchronized (this) {
+            if (this.lastRenewal == null || !Instant.ofEpochMilli(this.clock.millis()).isBefore(this.lastRenewal.plus(this.leaseDuration))) {
+              this.heldLeases.clear();
+              this.setOwnedSlots(Collections.emptySet());
+            }
+          }
+        }
+        final Set<Integer> after = this.ownedSlots;
+        final Set<Integer> gained = new TreeSet<>(after);
+        gained.removeAll(before);
+        final Set<Integer> lost = new TreeSet<>(before);
+        lost.removeAll(after);
+        try {
+          listener.accept(gained, lost);
+        } catch (final RuntimeException runtimeException) {
+          if (this.logger.isLoggable(Level.SEVERE)) {
+            this.logger.logp(Level.SEVERE, this.getClass().getName(), "renew", runtimeException.getMessage(), runtimeException);
+          }
+        }
+      }, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops renewing leases and releases all leases held by this
+   * {@link ShardLeaser} so that other replicas may claim its slots
+   * immediately.
+   *
+   * @exception IOException if the leases could not be released
+   */
+  @Override
+  public final synchronized void close() throws IOException {
+    if (this.executorService != null) {
+      this.executorService.shutdownNow();
+      this.executorService = null;
+    }
+    this.setOwnedSlots(Collections.emptySet());
+    IOException exception = null;
+    for (final Map.Entry<Integer, Lease> entry : this.heldLeases.entrySet()) {
+      try {
+        this.leaseStore.compareAndSet(SHARD_PREFIX + entry.getKey(), entry.getValue(), null);
+      } catch (final IOException ioException) {
+        if (exception == null) {
+          exception = ioException;
+        } else {
+          exception.addSuppressed(ioException);
+        }
+      }
+    }
+    this.heldLeases.clear();
+    if (this.membershipLease != null) {
+      try {
+        this.leaseStore.compareAndSet(MEMBER_PREFIX + this.holder, this.membershipLease, null);
+      } catch (final IOException ioException) {
+        if (exception == null) {
+          exception = ioException;
+        } else {
+          exception.addSuppressed(ioException);
+        }
+      }
+      this.membershipLease = null;
+    }
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  @Override
+  public final String toString() {
+    return new StringBuilder(this.getClass().getSimpleName())
+      .append(" [holder=").append(this.holder)
+      .append(", ownedSlots=").append(this.ownedSlots)
+      .append(", slots=").append(this.slots)
+      .append("]")
+      .toString();
+  }
+
+}
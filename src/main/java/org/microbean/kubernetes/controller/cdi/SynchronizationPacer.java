@@ -0,0 +1,175 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.time.Duration;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A meter that releases synchronization events evenly over a window
+ * of time instead of all at once.
+ *
+ * <p>A resynchronization submits one event for every cached
+ * Kubernetes resource in quick succession.  The first such
+ * submission after a quiet period opens a window; each {@linkplain
+ * #tick() tick} thereafter releases as many pending events as are
+ * needed to keep pace with releasing them all by the end of the
+ * window.  This amounts to a token bucket whose refill rate adapts to
+ * the number of events pending.</p>
+ *
+ * <p>Pending events are keyed, so a newer event for the same key
+ * replaces an older one, and an event that has been superseded by a
+ * genuine change can be {@linkplain #cancel(Object) cancelled}.</p>
+ *
+ * <p>Instances of this class are safe for concurrent use by multiple
+ * threads.</p>
+ *
+ * @param <E> the type of event paced
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+final class SynchronizationPacer<E> {
+
+  /**
+   * The interval at which {@link #tick()} should be invoked.
+   */
+  static final Duration TICK = Duration.ofMillis(100L);
+
+  private static final long TICK_NANOS = TICK.toNanos();
+
+  private final long windowNanos;
+
+  private final Consumer<? super E> sink;
+
+  private final LongSupplier nanoTime;
+
+  private final Logger logger;
+
+  private final Map<Object, E> pending;
+
+  // Guarded by this.pending.
+  private long deadline;
+
+  /**
+   * Creates a new {@link SynchronizationPacer}.
+   *
+   * @param window the {@link Duration} over which a burst of events
+   * is spread; must not be {@code null}
+   *
+   * @param sink the {@link Consumer} to which events are released;
+   * must not be {@code null}
+   *
+   * @exception NullPointerException if either argument is {@code
+   * null}
+   */
+  SynchronizationPacer(final Duration window, final Consumer<? super E> sink) {
+    this(window, sink, System::nanoTime);
+  }
+
+  SynchronizationPacer(final Duration window, final Consumer<? super E> sink, final LongSupplier nanoTime) {
+    super();
+    this.logger = Logger.getLogger(this.getClass().getName());
+    this.windowNanos = window.toNanos();
+    this.sink = Objects.requireNonNull(sink);
+    this.nanoTime = Objects.requireNonNull(nanoTime);
+    this.pending = new LinkedHashMap<>();
+  }
+
+  /**
+   * Submits an event for paced release, replacing any event already
+   * pending for the same key.
+   *
+   * @param key the key of the Kubernetes resource the event concerns;
+   * may be {@code null}
+   *
+   * @param event the event; may be {@code null}
+   */
+  final void submit(final Object key, final E event) {
+    synchronized (this.pending) {
+      if (this.pending.isEmpty()) {
+        this.deadline = this.nanoTime.getAsLong() + this.windowNanos;
+      }
+      this.pending.put(key, event);
+    }
+  }
+
+  /**
+   * Discards any event pending for the supplied key.
+   *
+   * @param key the key; may be {@code null}
+   */
+  final void cancel(final Object key) {
+    synchronized (this.pending) {
+      this.pending.remove(key);
+    }
+  }
+
+  /**
+   * Releases as many pending events as are due, on the calling
+   * thread, and returns the number of events still pending.
+   *
+   * @return the number of events still pending; never negative
+   */
+  final int tick() {
+    final List<E> released;
+    final int returnValue;
+    synchronized (this.pending) {
+      final int size = this.pending.size();
+      if (size == 0) {
+        return 0;
+      }
+      final long remaining = this.deadline - this.nanoTime.getAsLong();
+      final int count;
+      if (remaining <= TICK_NANOS) {
+        count = size;
+      } else {
+        count = (int)Math.min(size, (long)Math.ceil(size * (double)TICK_NANOS / remaining));
+      }
+      released = new ArrayList<>(count);
+      final Iterator<E> iterator = this.pending.values().iterator();
+      for (int i = 0; i < count; i++) {
+        released.add(iterator.next());
+        iterator.remove();
+      }
+      returnValue = this.pending.size();
+    }
+    for (final E event : released) {
+      try {
+        this.sink.accept(event);
+      } catch (final RuntimeException runtimeException) {
+        if (this.logger.isLoggable(Level.SEVERE)) {
+          this.logger.logp(Level.SEVERE, this.getClass().getName(), "tick", runtimeException.getMessage(), runtimeException);
+        }
+      }
+    }
+    return returnValue;
+  }
+
+}
@@ -0,0 +1,112 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.lang.reflect.Type;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import java.util.function.Function;
+
+import javax.enterprise.inject.spi.BeanAttributes;
+
+/**
+ * A memoizing analyzer of the {@linkplain BeanAttributes#getTypes()
+ * type closures} of beans.
+ *
+ * <p>Results are remembered by the identity of the bean, so that the
+ * same bean observed in several container lifecycle phases is
+ * analyzed once.  Beans are never compared or hashed by their type
+ * closures, which would cost about as much as the analysis it
+ * saves.</p>
+ *
+ * <p>Instances of this class are safe for concurrent use by multiple
+ * threads.</p>
+ *
+ * @param <R> the type of the result of an analysis
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ */
+final class TypeAnalysis<R> {
+
+  private final Function<? super Set<Type>, ? extends R> analyzer;
+
+  // Guarded by itself.
+  private final Map<BeanAttributes<?>, Optional<R>> resultsByBean;
+
+  /**
+   * Creates a new {@link TypeAnalysis}.
+   *
+   * @param analyzer the {@link Function} performing the actual
+   * analysis of a type closure; must not be {@code null}; may return
+   * {@code null}
+   *
+   * @exception NullPointerException if {@code analyzer} is {@code
+   * null}
+   */
+  TypeAnalysis(final Function<? super Set<Type>, ? extends R> analyzer) {
+    super();
+    this.analyzer = Objects.requireNonNull(analyzer);
+    this.resultsByBean = new IdentityHashMap<>();
+  }
+
+  /**
+   * Returns the result of analyzing the type closure of the supplied
+   * {@link BeanAttributes}, computing it only if it has not been
+   * computed before for that very {@link BeanAttributes}.
+   *
+   * @param beanAttributes the {@link BeanAttributes} whose
+   * {@linkplain BeanAttributes#getTypes() types} should be analyzed;
+   * may be {@code null} in which case {@code null} will be returned
+   *
+   * @return the result of the analysis, or {@code null}
+   */
+  final R analyze(final BeanAttributes<?> beanAttributes) {
+    if (beanAttributes == null) {
+      return null;
+    }
+    Optional<R> result;
+    synchronized (this.resultsByBean) {
+      result = this.resultsByBean.get(beanAttributes);
+    }
+    if (result == null) {
+      // Analyze outside of the lock; at worst two threads analyze
+      // the same bean at the same time, and agree.
+      final Set<Type> types = beanAttributes.getTypes();
+      result = types == null ? Optional.empty() : Optional.ofNullable(this.analyzer.apply(types));
+      synchronized (this.resultsByBean) {
+        this.resultsByBean.put(beanAttributes, result);
+      }
+    }
+    return result.orElse(null);
+  }
+
+  /**
+   * Discards all remembered results.
+   */
+  final void clear() {
+    synchronized (this.resultsByBean) {
+      this.resultsByBean.clear();
+    }
+  }
+
+}
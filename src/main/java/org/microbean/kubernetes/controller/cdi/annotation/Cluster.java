@@ -0,0 +1,145 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import java.util.Objects;
+
+import javax.inject.Qualifier;
+
+import javax.enterprise.util.AnnotationLiteral;
+
+/**
+ * A {@link Qualifier} identifying the Kubernetes cluster that a
+ * bean, such as an event selector or the {@code KubernetesClient} it
+ * is produced from, is associated with.
+ *
+ * <p>An event selector qualified with {@link Cluster} is served by
+ * its own controller and cache, and its {@link Cluster} qualifier is
+ * among the qualifiers of every event it fires.  An observer method
+ * whose event parameter is additionally qualified with {@link
+ * Cluster} is therefore notified only of events concerning
+ * Kubernetes resources in that cluster, and one that is not is
+ * notified of events from all clusters.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see KubernetesEventSelector
+ */
+@Documented
+@Qualifier
+@Retention(value = RetentionPolicy.RUNTIME)
+@Target({ ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER, ElementType.TYPE })
+public @interface Cluster {
+
+  /**
+   * The identifier of the Kubernetes cluster.
+   *
+   * @return the identifier of the Kubernetes cluster
+   */
+  String value();
+
+
+  /*
+   * Inner and nested classes.
+   */
+
+
+  /**
+   * An {@link AnnotationLiteral} that implements {@link Cluster}.
+   *
+   * @author <a href="https://about.me/lairdnelson"
+   * target="_parent">Laird Nelson</a>
+   */
+  public static final class Literal extends AnnotationLiteral<Cluster> implements Cluster {
+
+
+    /*
+     * Static fields.
+     */
+
+
+    private static final long serialVersionUID = 1L;
+
+
+    /*
+     * Instance fields.
+     */
+
+
+    private final String value;
+
+
+    /*
+     * Constructors.
+     */
+
+
+    private Literal(final String value) {
+      super();
+      this.value = Objects.requireNonNull(value);
+    }
+
+
+    /*
+     * Instance methods.
+     */
+
+
+    /**
+     * The identifier of the Kubernetes cluster.
+     *
+     * @return the identifier of the Kubernetes cluster
+     */
+    @Override
+    public final String value() {
+      return this.value;
+    }
+
+
+    /*
+     * Static methods.
+     */
+
+
+    /**
+     * Returns a {@link Cluster} instance whose {@link #value() value}
+     * element is the supplied identifier.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @param value the identifier of the Kubernetes cluster; must not
+     * be {@code null}
+     *
+     * @return a non-{@code null} {@link Cluster}
+     *
+     * @exception NullPointerException if {@code value} is {@code
+     * null}
+     */
+    public static Cluster of(final String value) {
+      return new Literal(value);
+    }
+
+  }
+
+}
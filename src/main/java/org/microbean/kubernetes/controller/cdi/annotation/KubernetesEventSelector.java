@@ -33,6 +33,10 @@ import java.lang.annotation.Target;
  * {@code ConfigMap}s matching criteria <em>Y</em> are otherwise
  * indistinguishable.</p>
  *
+ * <p>The elements of this annotation, all of which are optional,
+ * tune how events selected by the annotated annotation are
+ * delivered.</p>
+ *
  * @author <a href="https://about.me/lairdnelson"
  * target="_parent">Laird Nelson</a>
  */
@@ -41,4 +45,153 @@ import java.lang.annotation.Target;
 @Target({ ElementType.ANNOTATION_TYPE })
 public @interface KubernetesEventSelector {
 
+  /**
+   * Whether non-synchronization <em>modification</em> events whose
+   * {@linkplain #significantPaths() significant paths} are unchanged
+   * from those of the prior state of the Kubernetes resource in
+   * question should be suppressed rather than delivered to
+   * {@link Modified}-qualified observer methods.
+   *
+   * <p>Many modifications reported by the Kubernetes API server
+   * change only a resource's {@code resourceVersion}, its {@code
+   * managedFields} timestamps or status heartbeats.  Setting this
+   * element to {@code true} causes a structural hash of the
+   * {@linkplain #significantPaths() significant paths} to be
+   * computed for each added or modified resource and compared with
+   * that of its predecessor.  Hashing costs time proportional to the
+   * size of the significant paths, on the thread delivering events,
+   * before any filtering; keep them narrow.</p>
+   *
+   * @return {@code true} if unchanged modifications should be
+   * suppressed; {@code false} otherwise
+   *
+   * @see #significantPaths()
+   */
+  boolean suppressUnchangedModifications() default false;
+
+  /**
+   * The paths, expressed either in dotted notation (e.g. {@code
+   * metadata.labels}) or as <a
+   * href="https://tools.ietf.org/html/rfc6901">JSON Pointers</a>
+   * (e.g. {@code /metadata/labels}), of the portions of a Kubernetes
+   * resource that are considered when {@linkplain
+   * #suppressUnchangedModifications() suppressing unchanged
+   * modifications}.
+   *
+   * <p>This element is ignored unless {@link
+   * #suppressUnchangedModifications()} is {@code true}.</p>
+   *
+   * @return a non-{@code null} array of paths
+   *
+   * @see #suppressUnchangedModifications()
+   */
+  String[] significantPaths() default { "spec", "data", "metadata.labels", "metadata.annotations" };
+
+  /**
+   * <a
+   * href="https://kubernetes.io/docs/concepts/overview/working-with-objects/labels/#label-selectors">Label
+   * selector</a> requirements that are applied to the event selector
+   * before it is used, so that the Kubernetes API server itself
+   * filters the Kubernetes resources that are listed, watched and
+   * cached.
+   *
+   * <p>Each element may contain one or more comma-separated
+   * requirements, and all requirements must be satisfied.  Supported
+   * requirements are of the forms {@code key=value}, {@code
+   * key==value}, {@code key!=value}, {@code key}, {@code !key}, {@code
+   * key in (value1, value2)} and {@code key notin (value1,
+   * value2)}.</p>
+   *
+   * <p>Applying selectors modifies the event selector in place, so
+   * the event selector must be produced by a {@code @Dependent}-scoped
+   * producer method, or implemented by a {@code @Dependent}-scoped
+   * managed bean, that returns a new operation every time.</p>
+   *
+   * @return a non-{@code null} array of label selector requirements
+   *
+   * @see #fieldSelector()
+   */
+  String[] labelSelector() default {};
+
+  /**
+   * <a
+   * href="https://kubernetes.io/docs/concepts/overview/working-with-objects/field-selectors/">Field
+   * selector</a> requirements that are applied to the event selector
+   * before it is used, so that the Kubernetes API server itself
+   * filters the Kubernetes resources that are listed, watched and
+   * cached.
+   *
+   * <p>Each element may contain one or more comma-separated
+   * requirements, and all requirements must be satisfied.  Supported
+   * requirements are of the forms {@code key=value} and {@code
+   * key==value}; for example, {@code metadata.namespace=default}.</p>
+   *
+   * <p>Applying selectors modifies the event selector in place, so
+   * the event selector must be produced by a {@code @Dependent}-scoped
+   * producer method, or implemented by a {@code @Dependent}-scoped
+   * managed bean, that returns a new operation every time.</p>
+   *
+   * @return a non-{@code null} array of field selector requirements
+   *
+   * @see #labelSelector()
+   */
+  String[] fieldSelector() default {};
+
+  /**
+   * The interval, expressed as an <a
+   * href="https://en.wikipedia.org/wiki/ISO_8601#Durations">ISO-8601
+   * duration</a> such as {@code PT5M}, at which the Kubernetes
+   * controller serving the event selector should synchronize, or the
+   * empty string if the {@code synchronizationInterval} configuration
+   * property should be used instead.
+   *
+   * <p>A {@code synchronizationInterval.}<em>annotationTypeName</em>
+   * configuration property, where <em>annotationTypeName</em> is the
+   * fully-qualified name of the annotated annotation, takes
+   * precedence over this element.</p>
+   *
+   * @return a non-{@code null} ISO-8601 duration, or the empty string
+   *
+   * @see java.time.Duration#parse(CharSequence)
+   */
+  String synchronizationInterval() default "";
+
+  /**
+   * The relative share of dispatch capacity that events selected by
+   * the event selector receive when events are dispatched by
+   * priority and several event selectors have events waiting.
+   *
+   * <p>An event selector with a weight of {@code 3} has three of its
+   * events dispatched for every one of an event selector with a
+   * weight of {@code 1}, no matter how many more events the latter
+   * has waiting.  A {@code dispatchWeight.}<em>annotationTypeName</em>
+   * configuration property, where <em>annotationTypeName</em> is the
+   * fully-qualified name of the annotated annotation, takes
+   * precedence over this element.</p>
+   *
+   * @return the weight; must be greater than zero
+   */
+  int dispatchWeight() default 1;
+
+  /**
+   * The time, expressed as an <a
+   * href="https://en.wikipedia.org/wiki/ISO_8601#Durations">ISO-8601
+   * duration</a> such as {@code PT0.5S}, within which a change
+   * selected by the event selector should be handled, or the empty
+   * string if there is no such target.
+   *
+   * <p>When events are dispatched by priority, changes with a target
+   * latency are dispatched earliest deadline first, ahead of other
+   * events; synchronization events have no deadline.  A {@code
+   * targetLatency.}<em>annotationTypeName</em> configuration property,
+   * where <em>annotationTypeName</em> is the fully-qualified name of
+   * the annotated annotation, takes precedence over this
+   * element.</p>
+   *
+   * @return a non-{@code null} ISO-8601 duration, or the empty string
+   *
+   * @see java.time.Duration#parse(CharSequence)
+   */
+  String targetLatency() default "";
+
 }
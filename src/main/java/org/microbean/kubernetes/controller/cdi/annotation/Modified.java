@@ -25,6 +25,7 @@ import java.lang.annotation.Target;
 import javax.inject.Qualifier;
 
 import javax.enterprise.util.AnnotationLiteral;
+import javax.enterprise.util.Nonbinding;
 
 /**
  * A {@link Qualifier} that can be used only on an observer method's
@@ -35,6 +36,14 @@ import javax.enterprise.util.AnnotationLiteral;
  * observer method is interested in being notified of the
  * <em>modification</em> of certain Kubernetes resources.
  *
+ * <p>An observer method may further restrict the modifications it is
+ * notified of to those that change certain parts of a Kubernetes
+ * resource by supplying {@linkplain #paths() paths}:</p>
+ *
+ * <blockquote><pre>private final void onSpecOrLabelChange(&#64;Observes &#64;AllConfigMapEvents &#64;Modified(paths = { "data", "metadata.labels" }) final ConfigMap configMap) {
+ *  // only called when data or labels change
+ *}</pre></blockquote>
+ *
  * @author <a href="https://about.me/lairdnelson"
  * target="_parent">Laird Nelson</a>
  *
@@ -55,6 +64,27 @@ public @interface Modified {
    */
   boolean synchronization() default false;
 
+  /**
+   * The paths, expressed either in dotted notation (e.g. {@code
+   * metadata.labels}) or as <a
+   * href="https://tools.ietf.org/html/rfc6901">JSON Pointers</a>
+   * (e.g. {@code /metadata/labels}), within a modified Kubernetes
+   * resource at least one of which must have changed from its prior
+   * state in order for the observer method to be notified.
+   *
+   * <p>An empty array, the default, means that the observer method
+   * will be notified of every modification.  This element is ignored
+   * if {@link #synchronization()} is {@code true}.</p>
+   *
+   * <p>The difference between a Kubernetes resource and its prior
+   * state is computed at most once per event no matter how many
+   * observer methods declare paths.</p>
+   *
+   * @return a non-{@code null} array of paths
+   */
+  @Nonbinding
+  String[] paths() default {};
+
 
   /*
    * Inner and nested classes.
@@ -77,6 +107,8 @@ public @interface Modified {
 
     private static final long serialVersionUID = 1L;
 
+    private static final String[] EMPTY_STRING_ARRAY = new String[0];
+
     private static final Modified WITH_SYNCHRONIZATION = new Literal(true);
 
     private static final Modified WITHOUT_SYNCHRONIZATION = new Literal(false);
@@ -118,6 +150,19 @@ public @interface Modified {
       return this.synchronization;
     }
 
+    /**
+     * Returns an empty array, indicating that all modifications are
+     * of interest.
+     *
+     * <p>This method never returns {@code null}.</p>
+     *
+     * @return a non-{@code null}, empty array
+     */
+    @Override
+    public final String[] paths() {
+      return EMPTY_STRING_ARRAY;
+    }
+
     /**
      * Returns an {@link Modified} instance whose {@link
      * #synchronization() synchronization} element is {@code true}.
@@ -0,0 +1,276 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi.processor;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+
+import javax.lang.model.SourceVersion;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import org.microbean.kubernetes.controller.cdi.annotation.KubernetesEventSelector; // for javadoc only
+
+/**
+ * An {@link AbstractProcessor} that writes, at compile time, an index
+ * of the annotation types that are annotated, directly or by way of
+ * other annotations, with {@link KubernetesEventSelector}, so that
+ * the {@link
+ * org.microbean.kubernetes.controller.cdi.KubernetesControllerExtension}
+ * need not establish that reflectively at startup.
+ *
+ * <p>The index is consulted only as a positive hint: an annotation
+ * type that is missing from it, perhaps because it was compiled
+ * without this processor, is still analyzed reflectively.</p>
+ *
+ * <p>This processor indexes the annotation types it finds on the
+ * annotation types, classes, producer methods, producer fields and
+ * observer method parameters being compiled.  It is not registered as
+ * a service, so it must be named explicitly, for example with {@code
+ * javac}'s {@code -processor} option or the {@code
+ * annotationProcessors} setting of the {@code
+ * maven-compiler-plugin}.</p>
+ *
+ * @author <a href="https://about.me/lairdnelson"
+ * target="_parent">Laird Nelson</a>
+ *
+ * @see KubernetesEventSelector
+ */
+@SupportedAnnotationTypes({
+  EventSelectorIndexProcessor.KUBERNETES_EVENT_SELECTOR,
+  EventSelectorIndexProcessor.PRODUCES,
+  EventSelectorIndexProcessor.OBSERVES,
+  EventSelectorIndexProcessor.OBSERVES_ASYNC
+})
+public class EventSelectorIndexProcessor extends AbstractProcessor {
+
+
+  /*
+   * Static fields.
+   */
+
+
+  /**
+   * The name of the resource this processor writes.
+   *
+   * <p>This must be kept in sync with the {@code
+   * org.microbean.kubernetes.controller.cdi.EventSelectorIndex}
+   * class that reads it.</p>
+   */
+  private static final String RESOURCE_NAME = "META-INF/microbean-kubernetes-controller-cdi.idx";
+
+  static final String KUBERNETES_EVENT_SELECTOR = "org.microbean.kubernetes.controller.cdi.annotation.KubernetesEventSelector";
+
+  static final String PRODUCES = "javax.enterprise.inject.Produces";
+
+  static final String OBSERVES = "javax.enterprise.event.Observes";
+
+  static final String OBSERVES_ASYNC = "javax.enterprise.event.ObservesAsync";
+
+
+  /*
+   * Instance fields.
+   */
+
+
+  private final Set<String> selectorAnnotationTypeNames;
+
+
+  /*
+   * Constructors.
+   */
+
+
+  /**
+   * Creates a new {@link EventSelectorIndexProcessor}.
+   */
+  public EventSelectorIndexProcessor() {
+    super();
+    this.selectorAnnotationTypeNames = new TreeSet<>();
+  }
+
+
+  /*
+   * Instance methods.
+   */
+
+
+  /**
+   * Returns {@link SourceVersion#latestSupported()} when invoked.
+   *
+   * @return the latest {@link SourceVersion} supported by the
+   * current compiler; never {@code null}
+   */
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  /**
+   * Indexes the root elements of the current round and, once
+   * processing is over, writes the index.
+   *
+   * @param annotations the annotation types requested to be
+   * processed; ignored
+   *
+   * @param roundEnvironment the {@link RoundEnvironment} describing
+   * the current round; may be {@code null}
+   *
+   * @return {@code false} in all cases, so that other processors may
+   * process the same annotations
+   */
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnvironment) {
+    if (roundEnvironment != null) {
+      if (roundEnvironment.processingOver()) {
+        this.write();
+      } else {
+        final Deque<TypeElement> typeElements = new ArrayDeque<>();
+        for (final Element rootElement : roundEnvironment.getRootElements()) {
+          if (rootElement instanceof TypeElement) {
+            typeElements.add((TypeElement)rootElement);
+          }
+        }
+        while (!typeElements.isEmpty()) {
+          final TypeElement typeElement = typeElements.poll();
+          assert typeElement != null;
+          this.index(typeElement);
+          for (final Element enclosedElement : typeElement.getEnclosedElements()) {
+            if (enclosedElement instanceof TypeElement) {
+              typeElements.add((TypeElement)enclosedElement);
+            }
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private final void index(final TypeElement typeElement) {
+    if (typeElement.getKind() == ElementKind.ANNOTATION_TYPE) {
+      if (this.isEventSelector(typeElement)) {
+        this.selectorAnnotationTypeNames.add(this.processingEnv.getElementUtils().getBinaryName(typeElement).toString());
+      }
+    } else {
+      // A managed bean that is itself an event selector.
+      this.indexAnnotationsOn(typeElement);
+    }
+    for (final Element member : typeElement.getEnclosedElements()) {
+      if (member.getKind() == ElementKind.METHOD) {
+        if (isAnnotatedWith(member, PRODUCES)) {
+          this.indexAnnotationsOn(member);
+        }
+        for (final VariableElement parameter : ((ExecutableElement)member).getParameters()) {
+          if (isAnnotatedWith(parameter, OBSERVES) || isAnnotatedWith(parameter, OBSERVES_ASYNC)) {
+            this.indexAnnotationsOn(parameter);
+          }
+        }
+      } else if (member.getKind() == ElementKind.FIELD && isAnnotatedWith(member, PRODUCES)) {
+        this.indexAnnotationsOn(member);
+      }
+    }
+  }
+
+  private final void indexAnnotationsOn(final Element element) {
+    for (final AnnotationMirror annotation : element.getAnnotationMirrors()) {
+      final Element annotationElement = annotation.getAnnotationType().asElement();
+      if (annotationElement instanceof TypeElement && this.isEventSelector((TypeElement)annotationElement)) {
+        this.selectorAnnotationTypeNames.add(this.processingEnv.getElementUtils().getBinaryName((TypeElement)annotationElement).toString());
+      }
+    }
+  }
+
+  /**
+   * Returns {@code true} if the supplied annotation type is annotated
+   * with {@link KubernetesEventSelector}, either directly or by way of
+   * any number of other annotations.
+   */
+  private final boolean isEventSelector(final TypeElement annotationType) {
+    final Deque<TypeElement> annotationTypes = new ArrayDeque<>();
+    final Set<TypeElement> seen = new HashSet<>();
+    annotationTypes.add(annotationType);
+    while (!annotationTypes.isEmpty()) {
+      final TypeElement candidate = annotationTypes.poll();
+      if (seen.add(candidate)) {
+        for (final AnnotationMirror metaAnnotation : candidate.getAnnotationMirrors()) {
+          final Element metaAnnotationElement = metaAnnotation.getAnnotationType().asElement();
+          if (metaAnnotationElement instanceof TypeElement) {
+            final TypeElement metaAnnotationType = (TypeElement)metaAnnotationElement;
+            if (KUBERNETES_EVENT_SELECTOR.contentEquals(metaAnnotationType.getQualifiedName())) {
+              return true;
+            }
+            annotationTypes.add(metaAnnotationType);
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private final void write() {
+    if (!this.selectorAnnotationTypeNames.isEmpty()) {
+      try {
+        final FileObject index = this.processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", RESOURCE_NAME);
+        try (final Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+          writer.write("# Generated by " + this.getClass().getName() + "; do not edit\n");
+          for (final String selectorAnnotationTypeName : this.selectorAnnotationTypeNames) {
+            writer.write("selector\t" + selectorAnnotationTypeName + "\n");
+          }
+        }
+      } catch (final IOException ioException) {
+        // An absent index only costs startup time, so don't fail the
+        // build.
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                                                      "Could not write " + RESOURCE_NAME + ": " + ioException.getMessage());
+      }
+    }
+  }
+
+  private static final boolean isAnnotatedWith(final Element element, final String annotationTypeName) {
+    for (final AnnotationMirror annotation : element.getAnnotationMirrors()) {
+      final Element annotationElement = annotation.getAnnotationType().asElement();
+      if (annotationElement instanceof TypeElement &&
+          annotationTypeName.contentEquals(((TypeElement)annotationElement).getQualifiedName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
@@ -0,0 +1,48 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+
+/**
+ * Fixtures shared by tests that work with {@link ConfigMap}s.
+ */
+final class ConfigMaps {
+
+  private ConfigMaps() {
+    super();
+  }
+
+  /**
+   * Returns a new {@link ConfigMap} named {@code default/test} with
+   * the supplied {@code resourceVersion}, an {@code app} label and a
+   * single data entry.
+   */
+  static final ConfigMap configMap(final String resourceVersion, final String app, final String key, final String value) {
+    return new ConfigMapBuilder()
+      .withNewMetadata()
+      .withNamespace("default")
+      .withName("test")
+      .withResourceVersion(resourceVersion)
+      .addToLabels("app", app)
+      .endMetadata()
+      .addToData(key, value)
+      .build();
+  }
+
+}
@@ -0,0 +1,83 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+
+import org.junit.Test;
+
+import org.microbean.kubernetes.controller.AbstractEvent;
+import org.microbean.kubernetes.controller.Event;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import static org.microbean.kubernetes.controller.cdi.ConfigMaps.configMap;
+
+public class TestChangeDetector {
+
+  public TestChangeDetector() {
+    super();
+  }
+
+  @Test
+  public void testResourceVersionOnlyModificationIsInsignificant() {
+    final ChangeDetector changeDetector = new ChangeDetector(new String[] { "data", "metadata.labels" });
+    final ConfigMap v1 = configMap("1", "test", "a", "b");
+    final ConfigMap v2 = configMap("2", "test", "a", "b");
+    assertTrue(changeDetector.isSignificant(new Event<>(this, AbstractEvent.Type.ADDITION, null, v1)));
+    assertFalse(changeDetector.isSignificant(new Event<>(this, AbstractEvent.Type.MODIFICATION, v1, v2)));
+  }
+
+  @Test
+  public void testDataModificationIsSignificant() {
+    final ChangeDetector changeDetector = new ChangeDetector(new String[] { "data", "metadata.labels" });
+    final ConfigMap v1 = configMap("1", "test", "a", "b");
+    final ConfigMap v2 = configMap("2", "test", "a", "c");
+    assertTrue(changeDetector.isSignificant(new Event<>(this, AbstractEvent.Type.ADDITION, null, v1)));
+    assertTrue(changeDetector.isSignificant(new Event<>(this, AbstractEvent.Type.MODIFICATION, v1, v2)));
+  }
+
+  @Test
+  public void testPathsAreFollowedIntoMaps() {
+    final ChangeDetector changeDetector = new ChangeDetector(new String[] { "/metadata/labels/app" });
+    final ConfigMap v1 = configMap("1", "test", "a", "b");
+    final ConfigMap v2 = configMap("2", "test", "a", "c");
+    final ConfigMap v3 = configMap("3", "other", "a", "c");
+    assertTrue(changeDetector.isSignificant(new Event<>(this, AbstractEvent.Type.ADDITION, null, v1)));
+    assertFalse(changeDetector.isSignificant(new Event<>(this, AbstractEvent.Type.MODIFICATION, v1, v2)));
+    assertTrue(changeDetector.isSignificant(new Event<>(this, AbstractEvent.Type.MODIFICATION, v2, v3)));
+  }
+
+  @Test
+  public void testRootPathMakesEverythingSignificant() {
+    final ChangeDetector changeDetector = new ChangeDetector(null);
+    final ConfigMap v1 = configMap("1", "test", "a", "b");
+    final ConfigMap v2 = configMap("2", "test", "a", "b");
+    assertTrue(changeDetector.isSignificant(new Event<>(this, AbstractEvent.Type.ADDITION, null, v1)));
+    assertTrue(changeDetector.isSignificant(new Event<>(this, AbstractEvent.Type.MODIFICATION, v1, v2)));
+  }
+
+  @Test
+  public void testPriorIsHashedWhenNothingIsRemembered() {
+    final ChangeDetector changeDetector = new ChangeDetector(new String[] { "data" });
+    final ConfigMap v1 = configMap("1", "test", "a", "b");
+    final ConfigMap v2 = configMap("2", "test", "a", "b");
+    assertFalse(changeDetector.isSignificant(new Event<>(this, AbstractEvent.Type.MODIFICATION, v1, v2)));
+  }
+
+}
@@ -0,0 +1,104 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestConcurrencyLimit {
+
+  private long now;
+
+  public TestConcurrencyLimit() {
+    super();
+  }
+
+  private final void complete(final ConcurrencyLimit limit, final long latencyNanos, final boolean failed, final boolean saturated) {
+    final long start = this.now;
+    this.now += latencyNanos;
+    limit.update(start, this.now, failed, saturated);
+  }
+
+  @Test
+  public void testAdditiveIncrease() {
+    final ConcurrencyLimit limit = new ConcurrencyLimit(4, 1, 8);
+    for (int i = 0; i < 1000; i++) {
+      complete(limit, 1000L, false, false);
+    }
+    assertEquals(4, limit.get());
+    for (int i = 0; i < 1000; i++) {
+      complete(limit, 1000L, false, true);
+    }
+    assertEquals(8, limit.get());
+  }
+
+  @Test
+  public void testMultiplicativeDecrease() {
+    final ConcurrencyLimit limit = new ConcurrencyLimit(100, 1, 100);
+    complete(limit, 1000L, false, true);
+    complete(limit, 10000L, false, true);
+    assertEquals(90, limit.get());
+    complete(limit, 1000L, true, true);
+    assertEquals(81, limit.get());
+    for (int i = 0; i < 1000; i++) {
+      complete(limit, 1000L, true, true);
+    }
+    assertEquals(1, limit.get());
+  }
+
+  @Test
+  public void testOneDecreasePerRoundTrip() {
+    final ConcurrencyLimit limit = new ConcurrencyLimit(100, 1, 100);
+    complete(limit, 1000L, false, true);
+    // Fifty events dispatched at the same moment all complete slowly
+    // or fail.  They shrink the limit once, not fifty times.
+    final long start = this.now;
+    for (int i = 0; i < 50; i++) {
+      limit.update(start, start + 10000L + i, i % 2 == 0, true);
+    }
+    assertEquals(90, limit.get());
+    // An event dispatched after that decrease may shrink it again.
+    this.now = start + 20000L;
+    complete(limit, 1000L, true, true);
+    assertEquals(81, limit.get());
+  }
+
+  @Test
+  public void testBaselineDrift() {
+    final ConcurrencyLimit limit = new ConcurrencyLimit(50, 1, 100);
+    complete(limit, 1000L, false, true);
+    // Observers that become permanently slower eventually stop
+    // shrinking the limit.
+    for (int i = 0; i < 1000; i++) {
+      complete(limit, 5000L, false, true);
+    }
+    final int settled = limit.get();
+    assertTrue(settled > 1);
+    complete(limit, 5000L, false, true);
+    assertTrue(limit.get() >= settled);
+  }
+
+  @Test
+  public void testFixed() {
+    final ConcurrencyLimit limit = new ConcurrencyLimit(3);
+    complete(limit, 1000L, true, true);
+    assertEquals(3, limit.get());
+  }
+
+}
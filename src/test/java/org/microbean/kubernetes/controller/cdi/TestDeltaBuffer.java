@@ -0,0 +1,73 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.time.Duration;
+
+import java.util.Arrays;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestDeltaBuffer {
+
+  public TestDeltaBuffer() {
+    super();
+  }
+
+  @Test
+  public void testCoalescingAndOrder() {
+    final DeltaBuffer<String> buffer = new DeltaBuffer<>(Duration.ofSeconds(10L), e -> false, () -> 0L);
+    buffer.put("a", "a1");
+    buffer.put("b", "b1");
+    buffer.put("a", "a2");
+    assertEquals(Arrays.asList("b1", "a2"), buffer.drain());
+    assertTrue(buffer.isEmpty());
+  }
+
+  @Test
+  public void testWindow() {
+    final AtomicLong now = new AtomicLong();
+    final DeltaBuffer<String> buffer = new DeltaBuffer<>(Duration.ofSeconds(10L), e -> false, now::get);
+    buffer.put("a", "a1");
+    now.addAndGet(Duration.ofSeconds(6L).toNanos());
+    buffer.put("b", "b1");
+    assertFalse(buffer.hasOverflowed());
+    now.addAndGet(Duration.ofSeconds(6L).toNanos());
+    assertTrue(buffer.hasOverflowed());
+    assertEquals(Arrays.asList("b1"), buffer.drain());
+    assertFalse(buffer.hasOverflowed());
+  }
+
+  @Test
+  public void testRetention() {
+    final AtomicLong now = new AtomicLong();
+    final DeltaBuffer<String> buffer = new DeltaBuffer<>(Duration.ofSeconds(10L), e -> e.startsWith("deleted"), now::get);
+    buffer.put("a", "deleted a");
+    buffer.put("b", "b1");
+    now.addAndGet(Duration.ofSeconds(6L).toNanos());
+    buffer.put("c", "c1");
+    now.addAndGet(Duration.ofSeconds(6L).toNanos());
+    assertEquals(Arrays.asList("deleted a", "c1"), buffer.drain());
+  }
+
+}
@@ -0,0 +1,178 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.time.Duration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import java.util.concurrent.CompletableFuture;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestEventDispatcher {
+
+  public TestEventDispatcher() {
+    super();
+  }
+
+  @Test
+  public void testLanes() {
+    final AtomicLong now = new AtomicLong();
+    final EventDispatcher dispatcher = new EventDispatcher(1, 1, Duration.ofSeconds(1L), now::get);
+    final List<String> dispatched = new ArrayList<>();
+    final EventDispatcher.DispatchQueue<String> queue = dispatcher.register(e -> {
+        dispatched.add(e);
+        return null;
+      }, new EventSelectorMetrics(), true, 1, null);
+    queue.submit("a", "sync a", DispatchLane.SYNCHRONIZATION, now.get());
+    queue.submit("b", "sync b", DispatchLane.SYNCHRONIZATION, now.get());
+    queue.submit("c", "sync c", DispatchLane.SYNCHRONIZATION, now.get());
+    queue.submit("d", "change d", DispatchLane.CHANGE, now.get());
+    queue.submit("b", "change b", DispatchLane.CHANGE, now.get());
+    queue.submit("e", "change e", DispatchLane.CHANGE, now.get());
+    queue.submit("e", "delete e", DispatchLane.DELETION, now.get());
+    queue.submit("c", "sync c2", DispatchLane.SYNCHRONIZATION, now.get());
+    Runnable dispatch;
+    while ((dispatch = dispatcher.poll()) != null) {
+      dispatch.run();
+    }
+    assertEquals(Arrays.asList("change e", "delete e", "change d", "change b", "sync a", "sync c2"), dispatched);
+  }
+
+  @Test
+  public void testStarvationGuard() {
+    final AtomicLong now = new AtomicLong();
+    final EventDispatcher dispatcher = new EventDispatcher(1, 1, Duration.ofSeconds(1L), now::get);
+    final List<String> dispatched = new ArrayList<>();
+    final EventDispatcher.DispatchQueue<String> queue = dispatcher.register(e -> {
+        dispatched.add(e);
+        return null;
+      }, new EventSelectorMetrics(), true, 1, null);
+    queue.submit("a", "sync a", DispatchLane.SYNCHRONIZATION, now.get());
+    now.addAndGet(Duration.ofSeconds(2L).toNanos());
+    queue.submit("b", "change b", DispatchLane.CHANGE, now.get());
+    dispatcher.poll().run();
+    dispatcher.poll().run();
+    assertEquals(Arrays.asList("sync a", "change b"), dispatched);
+  }
+
+  @Test
+  public void testPerKeyExclusion() {
+    final AtomicLong now = new AtomicLong();
+    final EventDispatcher dispatcher = new EventDispatcher(2, 2, Duration.ofSeconds(1L), now::get);
+    final List<String> dispatched = new ArrayList<>();
+    final List<CompletableFuture<Void>> stages = new ArrayList<>();
+    final EventDispatcher.DispatchQueue<String> queue = dispatcher.register(e -> {
+        dispatched.add(e);
+        final CompletableFuture<Void> stage = new CompletableFuture<>();
+        stages.add(stage);
+        return stage;
+      }, new EventSelectorMetrics(), false, 1, null);
+    queue.submit("a", "change a1", DispatchLane.CHANGE, now.get());
+    queue.submit("a", "change a2", DispatchLane.CHANGE, now.get());
+    queue.submit("b", "change b", DispatchLane.CHANGE, now.get());
+    dispatcher.poll().run();
+    dispatcher.poll().run();
+    assertNull(dispatcher.poll());
+    assertEquals(Arrays.asList("change a1", "change b"), dispatched);
+    stages.get(0).complete(null);
+    dispatcher.poll().run();
+    assertEquals(Arrays.asList("change a1", "change b", "change a2"), dispatched);
+  }
+
+  @Test
+  public void testWeightedFairness() {
+    final AtomicLong now = new AtomicLong();
+    final EventDispatcher dispatcher = new EventDispatcher(1, 1, Duration.ofSeconds(1L), now::get);
+    final List<String> dispatched = new ArrayList<>();
+    final EventDispatcher.DispatchQueue<String> noisy = dispatcher.register(e -> {
+        dispatched.add(e);
+        return null;
+      }, new EventSelectorMetrics(), true, 1, null);
+    final EventDispatcher.DispatchQueue<String> important = dispatcher.register(e -> {
+        dispatched.add(e);
+        return null;
+      }, new EventSelectorMetrics(), true, 3, null);
+    for (int i = 0; i < 100; i++) {
+      noisy.submit("n" + i, "n", DispatchLane.CHANGE, now.get());
+    }
+    // The noisy queue has been served alone for a while; the
+    // important queue earns no credit for having been idle.
+    for (int i = 0; i < 10; i++) {
+      dispatcher.poll().run();
+    }
+    for (int i = 0; i < 100; i++) {
+      important.submit("i" + i, "i", DispatchLane.CHANGE, now.get());
+    }
+    dispatched.clear();
+    for (int i = 0; i < 40; i++) {
+      dispatcher.poll().run();
+    }
+    int count = 0;
+    for (final String e : dispatched) {
+      if (e.equals("i")) {
+        count++;
+      }
+    }
+    assertEquals(30, count);
+  }
+
+  @Test
+  public void testEarliestDeadlineFirst() {
+    final AtomicLong now = new AtomicLong();
+    final EventDispatcher dispatcher = new EventDispatcher(1, 1, Duration.ofSeconds(10L), now::get);
+    final EventSelectorMetrics metrics = new EventSelectorMetrics();
+    final List<String> dispatched = new ArrayList<>();
+    final EventDispatcher.DispatchQueue<String> unhurried = dispatcher.register(e -> {
+        dispatched.add(e);
+        now.addAndGet(Duration.ofMillis(100L).toNanos());
+        return null;
+      }, new EventSelectorMetrics(), true, 10, null);
+    final EventDispatcher.DispatchQueue<String> slow = dispatcher.register(e -> {
+        dispatched.add(e);
+        now.addAndGet(Duration.ofMillis(100L).toNanos());
+        return null;
+      }, metrics, true, 1, Duration.ofSeconds(1L));
+    final EventDispatcher.DispatchQueue<String> fast = dispatcher.register(e -> {
+        dispatched.add(e);
+        now.addAndGet(Duration.ofMillis(100L).toNanos());
+        return null;
+      }, metrics, true, 1, Duration.ofMillis(150L));
+    unhurried.submit("u", "u", DispatchLane.CHANGE, now.get());
+    slow.submit("s", "s", DispatchLane.CHANGE, now.get());
+    slow.submit("s2", "s2 sync", DispatchLane.SYNCHRONIZATION, now.get());
+    fast.submit("f1", "f1", DispatchLane.CHANGE, now.get());
+    fast.submit("f2", "f2", DispatchLane.CHANGE, now.get());
+    Runnable dispatch;
+    while ((dispatch = dispatcher.poll()) != null) {
+      dispatch.run();
+    }
+    assertEquals(Arrays.asList("f1", "f2", "s", "u", "s2 sync"), dispatched);
+    assertEquals(3L, metrics.getTargetLatencyEventCount());
+    // f2 was handled 200 ms after it arrived.
+    assertEquals(1L, metrics.getTargetLatencyMissCount());
+  }
+
+}
@@ -0,0 +1,159 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+
+import org.junit.Test;
+
+import org.microbean.kubernetes.controller.AbstractEvent;
+import org.microbean.kubernetes.controller.Event;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestEventPublisher {
+
+  public TestEventPublisher() {
+    super();
+  }
+
+  @Test
+  public void testDemand() {
+    final EventPublisher<ConfigMap> publisher = new EventPublisher<>(Runnable::run);
+    final Recorder recorder = new Recorder();
+    publisher.subscribe(recorder);
+    assertEquals(1, publisher.getSubscriberCount());
+    for (int i = 0; i < 5; i++) {
+      publisher.publish(event());
+    }
+    assertEquals(0, recorder.events.size());
+    recorder.subscription.request(2L);
+    assertEquals(2, recorder.events.size());
+    recorder.subscription.request(Long.MAX_VALUE);
+    assertEquals(5, recorder.events.size());
+    publisher.publish(event());
+    assertEquals(6, recorder.events.size());
+    publisher.close();
+    assertTrue(recorder.completed);
+    assertEquals(0, publisher.getSubscriberCount());
+  }
+
+  @Test
+  public void testCompletionAwaitsBufferedEvents() {
+    final EventPublisher<ConfigMap> publisher = new EventPublisher<>(Runnable::run);
+    final Recorder recorder = new Recorder();
+    publisher.subscribe(recorder);
+    publisher.publish(event());
+    publisher.close();
+    assertFalse(recorder.completed);
+    recorder.subscription.request(1L);
+    assertEquals(1, recorder.events.size());
+    assertTrue(recorder.completed);
+
+    final Recorder late = new Recorder();
+    publisher.subscribe(late);
+    assertTrue(late.completed);
+  }
+
+  @Test
+  public void testOverflow() {
+    final EventPublisher<ConfigMap> publisher = new EventPublisher<>(Runnable::run);
+    final Recorder recorder = new Recorder();
+    publisher.subscribe(recorder, 3);
+    for (int i = 0; i < 4; i++) {
+      publisher.publish(event());
+    }
+    assertTrue(recorder.error instanceof IllegalStateException);
+    assertEquals(0, publisher.getSubscriberCount());
+    recorder.subscription.request(10L);
+    assertEquals(0, recorder.events.size());
+  }
+
+  @Test
+  public void testNonPositiveRequest() {
+    final EventPublisher<ConfigMap> publisher = new EventPublisher<>(Runnable::run);
+    final Recorder recorder = new Recorder();
+    publisher.subscribe(recorder);
+    recorder.subscription.request(0L);
+    assertTrue(recorder.error instanceof IllegalArgumentException);
+    assertFalse(publisher.hasSubscribers());
+  }
+
+  @Test
+  public void testCancel() {
+    final EventPublisher<ConfigMap> publisher = new EventPublisher<>(Runnable::run);
+    final Recorder recorder = new Recorder();
+    publisher.subscribe(recorder);
+    recorder.subscription.request(Long.MAX_VALUE);
+    publisher.publish(event());
+    recorder.subscription.cancel();
+    publisher.publish(event());
+    publisher.close();
+    assertEquals(1, recorder.events.size());
+    assertFalse(recorder.completed);
+  }
+
+  private final Event<ConfigMap> event() {
+    return new Event<>(this, AbstractEvent.Type.ADDITION, null, new ConfigMap());
+  }
+
+  private static final class Recorder implements Subscriber<AbstractEvent<? extends ConfigMap>> {
+
+    private final List<AbstractEvent<? extends ConfigMap>> events;
+
+    private Subscription subscription;
+
+    private boolean completed;
+
+    private Throwable error;
+
+    private Recorder() {
+      super();
+      this.events = new ArrayList<>();
+    }
+
+    @Override
+    public final void onSubscribe(final Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public final void onNext(final AbstractEvent<? extends ConfigMap> event) {
+      this.events.add(event);
+    }
+
+    @Override
+    public final void onError(final Throwable error) {
+      this.error = error;
+    }
+
+    @Override
+    public final void onComplete() {
+      this.completed = true;
+    }
+
+  }
+
+}
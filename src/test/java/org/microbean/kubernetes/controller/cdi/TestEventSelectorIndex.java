@@ -0,0 +1,122 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Test;
+
+import org.microbean.kubernetes.controller.cdi.annotation.Changes;
+import org.microbean.kubernetes.controller.cdi.annotation.Prior;
+
+import org.microbean.kubernetes.controller.cdi.processor.EventSelectorIndexProcessor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestEventSelectorIndex {
+
+  public TestEventSelectorIndex() {
+    super();
+  }
+
+  @Test
+  public void testRead() throws IOException {
+    final EventSelectorIndex index =
+      EventSelectorIndex.read(new StringReader("# comment\n" +
+                                               "\n" +
+                                               "selector\t" + Prior.class.getName() + "\n" +
+                                               "future\t" + Changes.class.getName() + "\n"));
+    assertTrue(index.isEventSelector(Prior.class));
+    assertFalse(index.isEventSelector(Changes.class));
+    assertFalse(index.isEventSelector(null));
+  }
+
+  @Test
+  public void testEmpty() {
+    assertFalse(EventSelectorIndex.EMPTY.isEventSelector(Prior.class));
+  }
+
+  @Test
+  public void testProcessor() throws IOException {
+    final Path directory = Files.createTempDirectory(this.getClass().getSimpleName());
+    try {
+      final Path source = directory.resolve("Selectors.java");
+      Files.write(source, Collections.singleton(
+        "package selectors;\n" +
+        "import java.lang.annotation.Retention;\n" +
+        "import java.lang.annotation.RetentionPolicy;\n" +
+        "import javax.enterprise.event.Observes;\n" +
+        "import javax.enterprise.inject.Produces;\n" +
+        "import javax.inject.Qualifier;\n" +
+        "import org.microbean.kubernetes.controller.cdi.annotation.KubernetesEventSelector;\n" +
+        "@KubernetesEventSelector @Qualifier @Retention(RetentionPolicy.RUNTIME) @interface Direct {}\n" +
+        "@Direct @Qualifier @Retention(RetentionPolicy.RUNTIME) @interface Indirect {}\n" +
+        "@Qualifier @Retention(RetentionPolicy.RUNTIME) @interface Plain {}\n" +
+        "class Beans {\n" +
+        "  @Produces @Indirect @Plain static Object produce() { return null; }\n" +
+        "  void observe(@Observes @Direct @Plain Object event) {}\n" +
+        "}\n"), StandardCharsets.UTF_8);
+      final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+      assertNotNull("A JDK is required to run the processor", compiler);
+      assertEquals(0, compiler.run(null, null, null,
+                                   "-proc:only",
+                                   "-processor", EventSelectorIndexProcessor.class.getName(),
+                                   "-classpath", System.getProperty("java.class.path"),
+                                   "-d", directory.toString(),
+                                   source.toString()));
+      final Set<String> selectors = new HashSet<>();
+      for (final String line : Files.readAllLines(directory.resolve(EventSelectorIndex.RESOURCE_NAME), StandardCharsets.UTF_8)) {
+        if (line.startsWith("selector\t")) {
+          selectors.add(line.substring("selector\t".length()));
+        }
+      }
+      // Indirect is an event selector by way of Direct.
+      assertEquals(new HashSet<>(Arrays.asList("selectors.Direct", "selectors.Indirect")), selectors);
+    } finally {
+      delete(directory.toFile());
+    }
+  }
+
+  private static final void delete(final File file) {
+    final File[] children = file.listFiles();
+    if (children != null) {
+      for (final File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+}
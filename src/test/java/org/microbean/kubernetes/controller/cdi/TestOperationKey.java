@@ -0,0 +1,101 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.time.Duration;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+
+import io.fabric8.kubernetes.client.ConfigBuilder;
+import io.fabric8.kubernetes.client.DefaultKubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestOperationKey {
+
+  private KubernetesClient client;
+
+  public TestOperationKey() {
+    super();
+  }
+
+  @Before
+  public void createClient() {
+    this.client = new DefaultKubernetesClient(new ConfigBuilder().withMasterUrl("https://kubernetes.example.com/").build());
+  }
+
+  @After
+  public void closeClient() {
+    if (this.client != null) {
+      this.client.close();
+    }
+  }
+
+  @Test
+  public void testEquivalentOperations() {
+    final OperationKey a = new OperationKey(ConfigMap.class, this.client.configMaps().inNamespace("a").withLabel("app", "x").withLabelIn("tier", "web", "db"));
+    final OperationKey b = new OperationKey(ConfigMap.class, this.client.configMaps().inNamespace("a").withLabelIn("tier", "db", "web").withLabel("app", "x"));
+    assertTrue(a.isShareable());
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+  }
+
+  @Test
+  public void testDifferentOperations() {
+    final OperationKey a = new OperationKey(ConfigMap.class, this.client.configMaps().inNamespace("a"));
+    assertNotEquals(a, new OperationKey(ConfigMap.class, this.client.configMaps().inNamespace("b")));
+    assertNotEquals(a, new OperationKey(ConfigMap.class, this.client.configMaps().inNamespace("a").withLabel("app")));
+    assertNotEquals(a, new OperationKey(ConfigMap.class, this.client.configMaps().inAnyNamespace()));
+  }
+
+  @Test
+  public void testSameSelectionInAnyNamespace() {
+    final OperationKey a = new OperationKey(ConfigMap.class, this.client.configMaps().inNamespace("a").withLabel("app", "x"));
+    final OperationKey b = new OperationKey(ConfigMap.class, this.client.configMaps().inNamespace("b").withLabel("app", "x"));
+    assertEquals("a", a.getNamespace());
+    assertNotEquals(a, b);
+    assertTrue(a.isSameSelectionInAnyNamespace(b));
+    assertFalse(a.isSameSelectionInAnyNamespace(new OperationKey(ConfigMap.class, this.client.configMaps().inNamespace("b").withLabel("app", "y"))));
+  }
+
+  @Test
+  public void testSynchronizationIntervals() {
+    final OperationKey a = new OperationKey(ConfigMap.class, this.client.configMaps().inNamespace("a"), Duration.ofMinutes(5L));
+    assertEquals(a, new OperationKey(ConfigMap.class, this.client.configMaps().inNamespace("a"), Duration.ofMinutes(5L)));
+    assertNotEquals(a, new OperationKey(ConfigMap.class, this.client.configMaps().inNamespace("a"), Duration.ofMinutes(1L)));
+    assertNotEquals(a, new OperationKey(ConfigMap.class, this.client.configMaps().inNamespace("a")));
+    assertFalse(a.isSameSelectionInAnyNamespace(new OperationKey(ConfigMap.class, this.client.configMaps().inNamespace("b"))));
+  }
+
+  @Test
+  public void testOpaqueOperations() {
+    final Object operation = new Object();
+    final OperationKey a = new OperationKey(ConfigMap.class, operation);
+    assertFalse(a.isShareable());
+    assertEquals(a, new OperationKey(ConfigMap.class, operation));
+    assertNotEquals(a, new OperationKey(ConfigMap.class, new Object()));
+  }
+
+}
@@ -0,0 +1,58 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.util.Optional;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import static org.microbean.kubernetes.controller.cdi.ConfigMaps.configMap;
+
+public class TestResourceDiff {
+
+  public TestResourceDiff() {
+    super();
+  }
+
+  @Test
+  public void testAffects() {
+    final ConfigMap prior = configMap("1", "app", "a", "b");
+    final ConfigMap current = configMap("2", "app", "a", "c");
+    final ResourceDiff<ConfigMap> diff = new ResourceDiff<>(current, Optional.of(prior));
+    assertTrue(diff.affects(JsonPaths.segments(new String[] { "data" })));
+    assertTrue(diff.affects(JsonPaths.segments(new String[] { "data.a" })));
+    assertTrue(diff.affects(JsonPaths.segments(new String[] { "/metadata/resourceVersion" })));
+    assertFalse(diff.affects(JsonPaths.segments(new String[] { "metadata.labels" })));
+    assertFalse(diff.affects(JsonPaths.segments(new String[] { "data.b" })));
+    assertTrue(diff.hasChanged("metadata.labels", "data"));
+    assertFalse(diff.hasChanged("spec"));
+  }
+
+  @Test
+  public void testChangedPathsAreComputedOnce() {
+    final ResourceDiff<ConfigMap> diff = new ResourceDiff<>(configMap("2", "app", "a", "c"), Optional.empty());
+    assertSame(diff.getChangedPaths(), diff.getChangedPaths());
+    assertTrue(diff.affects(JsonPaths.segments(new String[] { "metadata.labels" })));
+  }
+
+}
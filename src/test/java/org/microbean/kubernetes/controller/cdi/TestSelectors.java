@@ -0,0 +1,79 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.lang.reflect.Proxy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.fabric8.kubernetes.client.dsl.Filterable;
+import io.fabric8.kubernetes.client.dsl.Listable;
+import io.fabric8.kubernetes.client.dsl.VersionWatchable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestSelectors {
+
+  public TestSelectors() {
+    super();
+  }
+
+  @Test
+  public void testRequirements() {
+    assertEquals(Arrays.asList("a=b", "c in (d, e)", "!f"),
+                 Selectors.requirements(new String[] { "a=b, c in (d, e)", " !f " }));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnbalancedParentheses() {
+    Selectors.requirements(new String[] { "c in (d, e" });
+  }
+
+  @Test
+  @SuppressWarnings("rawtypes")
+  public void testApply() {
+    final List<String> invocations = new ArrayList<>();
+    final Object operation =
+      Proxy.newProxyInstance(Thread.currentThread().getContextClassLoader(),
+                             new Class<?>[] { Filterable.class, Listable.class, VersionWatchable.class },
+                             (proxy, method, args) -> {
+                               if (method.getDeclaringClass().equals(Object.class)) {
+                                 return method.getName().equals("toString") ? "operation" : null;
+                               }
+                               invocations.add(method.getName() + (args == null ? "[]" : Arrays.deepToString(args)));
+                               return proxy;
+                             });
+    apply(operation, new String[] { "a=b,c!=d", "e in (f, g)" }, new String[] { "metadata.name==x" });
+    assertEquals(Arrays.asList("withLabel[a, b]",
+                               "withoutLabel[c, d]",
+                               "withLabelIn[e, [f, g]]",
+                               "withField[metadata.name, x]"),
+                 invocations);
+  }
+
+  @SuppressWarnings({ "rawtypes", "unchecked" })
+  private static final <X extends Listable & VersionWatchable> X apply(final Object operation,
+                                                                       final String[] labelSelector,
+                                                                       final String[] fieldSelector) {
+    return Selectors.apply((X)operation, labelSelector, fieldSelector);
+  }
+
+}
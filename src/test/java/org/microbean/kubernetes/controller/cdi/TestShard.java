@@ -0,0 +1,78 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestShard {
+
+  private static final int KEYS = 10000;
+
+  public TestShard() {
+    super();
+  }
+
+  @Test
+  public void testEachKeyHasExactlyOneOwner() {
+    final Shard[] shards = new Shard[5];
+    for (int i = 0; i < shards.length; i++) {
+      shards[i] = new Shard(i, shards.length);
+    }
+    final int[] counts = new int[shards.length];
+    for (int k = 0; k < KEYS; k++) {
+      final String key = "default/pod-" + k;
+      int owners = 0;
+      for (int i = 0; i < shards.length; i++) {
+        if (shards[i].owns(key)) {
+          owners++;
+          counts[i]++;
+        }
+      }
+      assertEquals(1, owners);
+    }
+    final int expected = KEYS / shards.length;
+    for (final int count : counts) {
+      assertTrue(String.valueOf(count), Math.abs(count - expected) < expected / 10);
+    }
+  }
+
+  @Test
+  public void testResharding() {
+    int moved = 0;
+    for (int k = 0; k < KEYS; k++) {
+      final String key = "default/pod-" + k;
+      final int before = Shard.bucket(key, 4);
+      final int after = Shard.bucket(key, 5);
+      if (before != after) {
+        // Keys only ever move to the new shard.
+        assertEquals(4, after);
+        moved++;
+      }
+    }
+    final int expected = KEYS / 5;
+    assertTrue(String.valueOf(moved), Math.abs(moved - expected) < expected / 10);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIndexOutOfRange() {
+    new Shard(3, 3);
+  }
+
+}
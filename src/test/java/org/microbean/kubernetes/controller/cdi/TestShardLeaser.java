@@ -0,0 +1,192 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.io.IOException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestShardLeaser {
+
+  private static final int SLOTS = 8;
+
+  private static final Duration LEASE_DURATION = Duration.ofSeconds(15L);
+
+  public TestShardLeaser() {
+    super();
+  }
+
+  @Test
+  public void testRebalancing() throws IOException {
+    final LeaseStore leaseStore = new InMemoryLeaseStore();
+    final TestClock clock = new TestClock();
+    final ShardLeaser a = new ShardLeaser(leaseStore, "a", SLOTS, LEASE_DURATION, clock);
+    final ShardLeaser b = new ShardLeaser(leaseStore, "b", SLOTS, LEASE_DURATION, clock);
+
+    assertTrue(a.renew());
+    assertEquals(SLOTS, a.getOwnedSlots().size());
+
+    // b joins, but everything is taken until a gives up its excess.
+    b.renew();
+    assertEquals(0, b.getOwnedSlots().size());
+    clock.advance(Duration.ofSeconds(5L));
+    assertTrue(a.renew());
+    assertTrue(b.renew());
+    assertEquals(SLOTS / 2, a.getOwnedSlots().size());
+    assertEquals(SLOTS / 2, b.getOwnedSlots().size());
+    assertExactlyOneOwner(a, b);
+
+    // b dies; a picks up its slots once b's leases expire.
+    clock.advance(Duration.ofSeconds(5L));
+    a.renew();
+    assertEquals(SLOTS / 2, a.getOwnedSlots().size());
+    clock.advance(LEASE_DURATION);
+    assertTrue(a.renew());
+    assertEquals(SLOTS, a.getOwnedSlots().size());
+  }
+
+  @Test
+  public void testClose() throws IOException {
+    final LeaseStore leaseStore = new InMemoryLeaseStore();
+    final TestClock clock = new TestClock();
+    final ShardLeaser a = new ShardLeaser(leaseStore, "a", SLOTS, LEASE_DURATION, clock);
+    final ShardLeaser b = new ShardLeaser(leaseStore, "b", SLOTS, LEASE_DURATION, clock);
+    a.renew();
+    b.renew();
+    a.close();
+    assertEquals(0, a.getOwnedSlots().size());
+    assertEquals(1, leaseStore.getLeases().size());
+    // b claims everything immediately rather than waiting for
+    // leases to expire.
+    b.renew();
+    assertEquals(SLOTS, b.getOwnedSlots().size());
+  }
+
+  @Test
+  public void testConflictingRenewals() throws IOException {
+    final ConflictingLeaseStore leaseStore = new ConflictingLeaseStore();
+    final TestClock clock = new TestClock();
+    final ShardLeaser a = new ShardLeaser(leaseStore, "a", SLOTS, LEASE_DURATION, clock);
+    assertTrue(a.renew());
+    assertEquals(SLOTS, a.getOwnedSlots().size());
+
+    // Every write of a round loses a race, as when another replica
+    // updates the same ConfigMap; a keeps its unexpired slots.
+    clock.advance(Duration.ofSeconds(5L));
+    leaseStore.conflicts = Integer.MAX_VALUE;
+    assertFalse(a.renew());
+    assertEquals(SLOTS, a.getOwnedSlots().size());
+
+    // The next round succeeds and renews every slot.
+    clock.advance(Duration.ofSeconds(5L));
+    leaseStore.conflicts = 0;
+    assertFalse(a.renew());
+    assertEquals(SLOTS, a.getOwnedSlots().size());
+
+    // If writes keep failing, the slots are given up before their
+    // leases expire.
+    leaseStore.conflicts = Integer.MAX_VALUE;
+    clock.advance(Duration.ofSeconds(5L));
+    assertFalse(a.renew());
+    clock.advance(Duration.ofSeconds(5L));
+    assertTrue(a.renew());
+    assertEquals(0, a.getOwnedSlots().size());
+  }
+
+  private static final void assertExactlyOneOwner(final KeyOwnership... ownerships) {
+    for (int k = 0; k < 1000; k++) {
+      final String key = "default/pod-" + k;
+      int owners = 0;
+      for (final KeyOwnership ownership : ownerships) {
+        if (ownership.owns(key)) {
+          owners++;
+        }
+      }
+      assertEquals(key, 1, owners);
+    }
+  }
+
+  private static final class ConflictingLeaseStore implements LeaseStore {
+
+    private final LeaseStore delegate;
+
+    private int conflicts;
+
+    private ConflictingLeaseStore() {
+      super();
+      this.delegate = new InMemoryLeaseStore();
+    }
+
+    @Override
+    public final Map<String, Lease> getLeases() throws IOException {
+      return this.delegate.getLeases();
+    }
+
+    @Override
+    public final boolean compareAndSet(final String name, final Lease expected, final Lease update) throws IOException {
+      if (this.conflicts > 0) {
+        this.conflicts--;
+        return false;
+      }
+      return this.delegate.compareAndSet(name, expected, update);
+    }
+
+  }
+
+  private static final class TestClock extends Clock {
+
+    private Instant now;
+
+    private TestClock() {
+      super();
+      this.now = Instant.ofEpochMilli(0L);
+    }
+
+    private final void advance(final Duration duration) {
+      this.now = this.now.plus(duration);
+    }
+
+    @Override
+    public final ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public final Clock withZone(final ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final Instant instant() {
+      return this.now;
+    }
+
+  }
+
+}
@@ -0,0 +1,298 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import java.lang.reflect.Proxy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Priority;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+
+import javax.enterprise.event.Observes;
+
+import javax.enterprise.inject.Alternative;
+import javax.enterprise.inject.Produces;
+
+import javax.inject.Inject;
+import javax.inject.Qualifier;
+import javax.inject.Singleton;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.ConfigMapList;
+import io.fabric8.kubernetes.api.model.ConfigMapListBuilder;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+
+import io.fabric8.kubernetes.client.dsl.Listable;
+import io.fabric8.kubernetes.client.dsl.VersionWatchable;
+
+import org.jboss.weld.environment.se.Weld;
+import org.jboss.weld.environment.se.WeldContainer;
+
+import org.junit.Test;
+
+import org.microbean.configuration.api.Configurations;
+
+import org.microbean.kubernetes.controller.cdi.annotation.Added;
+import org.microbean.kubernetes.controller.cdi.annotation.KubernetesEventSelector;
+
+import static javax.interceptor.Interceptor.Priority.APPLICATION;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Boots two {@link KubernetesControllerExtension}s in the same JVM,
+ * each serving a different shard of the same stubbed Kubernetes
+ * resources, and checks that between them they dispatch and cache
+ * every resource exactly once.
+ */
+@Alternative
+@ApplicationScoped
+@Priority(APPLICATION)
+public class TestShardedReplicas {
+
+  private static final int SHARDS = 2;
+
+  private static final int KEYS = 200;
+
+  private static final BlockingQueue<TestShardedReplicas> replicas = new LinkedBlockingQueue<>();
+
+  private final Set<String> dispatched;
+
+  @Inject
+  @ShardedConfigMaps
+  private InitialSynchronization synchronization;
+
+  @Inject
+  @ShardedConfigMaps
+  private Map<Object, ConfigMap> cache;
+
+  public TestShardedReplicas() {
+    super();
+    this.dispatched = ConcurrentHashMap.newKeySet();
+  }
+
+  @Produces
+  @ApplicationScoped
+  @ShardedConfigMaps
+  private static final StubOperation<ConfigMap, ConfigMapList> produceOperation() {
+    final List<ConfigMap> items = new ArrayList<>();
+    for (int i = 0; i < KEYS; i++) {
+      items.add(new ConfigMapBuilder()
+                .withNewMetadata()
+                .withNamespace("default")
+                .withName("test-" + i)
+                .withResourceVersion("1")
+                .endMetadata()
+                .build());
+    }
+    final ConfigMapList list = new ConfigMapListBuilder()
+      .withNewMetadata()
+      .withResourceVersion("1")
+      .endMetadata()
+      .withItems(items)
+      .build();
+    final Watch watch = () -> {};
+    @SuppressWarnings("unchecked")
+    final StubOperation<ConfigMap, ConfigMapList> returnValue =
+      (StubOperation<ConfigMap, ConfigMapList>)Proxy.newProxyInstance(StubOperation.class.getClassLoader(),
+                                                                      new Class<?>[] { StubOperation.class },
+                                                                      (proxy, method, arguments) -> {
+                                                                        switch (method.getName()) {
+                                                                        case "list":
+                                                                          return list;
+                                                                        case "withResourceVersion":
+                                                                          return proxy;
+                                                                        case "watch":
+                                                                          // Nothing ever changes.
+                                                                          return watch;
+                                                                        case "hashCode":
+                                                                          return System.identityHashCode(proxy);
+                                                                        case "equals":
+                                                                          return proxy == arguments[0];
+                                                                        case "toString":
+                                                                          return "StubOperation";
+                                                                        default:
+                                                                          throw new UnsupportedOperationException(method.toString());
+                                                                        }
+                                                                      });
+    return returnValue;
+  }
+
+  @Produces
+  @ApplicationScoped
+  @ShardedConfigMaps
+  private static final Map<Object, ConfigMap> produceCache() {
+    return new HashMap<>();
+  }
+
+  @Produces
+  @Singleton
+  private static final Configurations produceConfigurations() {
+    // Read the shard properties set by boot() below.
+    return new org.microbean.configuration.Configurations();
+  }
+
+  private final void onConfigMapSynchronizationAddition(@Observes @ShardedConfigMaps @Added(synchronization = true) final ConfigMap configMap) {
+    assertNotNull(configMap);
+    this.dispatched.add(key(configMap));
+  }
+
+  private final void onStartup(@Observes @Initialized(ApplicationScoped.class) final Object event) {
+    replicas.add(this);
+  }
+
+  @Test
+  public void testReplicasPartitionKeys() throws Exception {
+    final CountDownLatch shutdown = new CountDownLatch(1);
+    final List<Thread> threads = new ArrayList<>();
+    try {
+      final List<TestShardedReplicas> running = new ArrayList<>();
+      for (int i = 0; i < SHARDS; i++) {
+        running.add(boot(i, shutdown, threads));
+      }
+
+      final Set<String> allKeys = new HashSet<>();
+      for (int i = 0; i < KEYS; i++) {
+        allKeys.add("default/test-" + i);
+      }
+
+      // Observers may still be running after the initial
+      // synchronization has completed.
+      final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30L);
+      Set<String> union = new HashSet<>();
+      while (union.size() < KEYS && System.nanoTime() - deadline < 0L) {
+        Thread.sleep(10L);
+        union = new HashSet<>();
+        for (final TestShardedReplicas replica : running) {
+          union.addAll(replica.dispatched);
+        }
+      }
+      assertEquals(allKeys, union);
+
+      final Set<String> dispatched = new HashSet<>();
+      final Set<String> cached = new HashSet<>();
+      for (final TestShardedReplicas replica : running) {
+        final Set<String> replicaDispatched = new HashSet<>(replica.dispatched);
+        assertTrue(replicaDispatched.toString(), !replicaDispatched.isEmpty());
+        final Set<String> replicaCached = new HashSet<>();
+        for (final ConfigMap configMap : replica.cache.values()) {
+          replicaCached.add(key(configMap));
+        }
+        // Each replica caches just what it dispatches...
+        assertEquals(replicaDispatched, replicaCached);
+        // ...and no key is dispatched or cached by two replicas.
+        for (final String key : replicaDispatched) {
+          assertTrue(key, dispatched.add(key));
+          assertTrue(key, cached.add(key));
+        }
+      }
+      assertEquals(allKeys, dispatched);
+      assertEquals(allKeys, cached);
+    } finally {
+      shutdown.countDown();
+      for (final Thread thread : threads) {
+        thread.join(TimeUnit.SECONDS.toMillis(10L));
+      }
+      System.clearProperty("shardCount");
+      System.clearProperty("shardIndex");
+      System.clearProperty("shardCaches");
+    }
+  }
+
+  /**
+   * Boots a CDI container serving the shard with the supplied index
+   * on a new {@link Thread}, which keeps it running until {@code
+   * shutdown} is counted down, and returns the {@link
+   * TestShardedReplicas} bean in it once its initial synchronization
+   * has completed.
+   */
+  private static final TestShardedReplicas boot(final int shardIndex, final CountDownLatch shutdown, final List<? super Thread> threads) throws InterruptedException {
+    // Containers read their configuration while starting, so each
+    // one must be done with it before the next one is booted.
+    System.setProperty("shardCount", String.valueOf(SHARDS));
+    System.setProperty("shardIndex", String.valueOf(shardIndex));
+    System.setProperty("shardCaches", "true");
+    final Thread thread = new Thread(() -> {
+        final Weld weld = new Weld("shard-" + shardIndex)
+          .disableDiscovery()
+          .addExtension(new KubernetesControllerExtension(shutdown))
+          .addBeanClass(TestShardedReplicas.class);
+        try (final WeldContainer container = weld.initialize()) {
+          shutdown.await();
+        } catch (final InterruptedException interruptedException) {
+          Thread.currentThread().interrupt();
+        }
+      }, "shard-" + shardIndex);
+    threads.add(thread);
+    thread.start();
+    final TestShardedReplicas replica = replicas.poll(30L, TimeUnit.SECONDS);
+    assertNotNull(replica);
+    assertTrue(replica.synchronization.await(30L, TimeUnit.SECONDS));
+    return replica;
+  }
+
+  private static final String key(final ConfigMap configMap) {
+    return configMap.getMetadata().getNamespace() + "/" + configMap.getMetadata().getName();
+  }
+
+  /**
+   * The kind of event selector produced by {@link
+   * #produceOperation()}: just enough of a fabric8 operation for the
+   * {@link KubernetesControllerExtension} to list and watch.
+   */
+  public interface StubOperation<T extends HasMetadata, L extends KubernetesResourceList>
+    extends Listable<L>, VersionWatchable<Watch, Watcher<T>> {
+
+  }
+
+  @Documented
+  @KubernetesEventSelector
+  @Qualifier
+  @Retention(value = RetentionPolicy.RUNTIME)
+  @Target({ ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER })
+  private @interface ShardedConfigMaps {
+
+  }
+
+}
@@ -0,0 +1,185 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import java.util.concurrent.CountDownLatch;
+
+import java.util.logging.Logger;
+
+import javax.enterprise.inject.se.SeContainer;
+import javax.enterprise.inject.se.SeContainerInitializer;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assume.assumeFalse;
+
+/**
+ * Measures how much the {@link KubernetesControllerExtension} adds to
+ * the time it takes to boot a CDI container holding a few thousand
+ * beans, none of which select Kubernetes events.
+ *
+ * <p>Each generated bean class has a producer method whose type is
+ * both {@link io.fabric8.kubernetes.client.dsl.Listable} and {@link
+ * io.fabric8.kubernetes.client.dsl.VersionWatchable}, and an observer
+ * method for a Kubernetes resource, so that all of them go through
+ * the extension's reflective analysis.</p>
+ *
+ * <p>This benchmark is skipped unless the {@code skipBenchmarks}
+ * system property is {@code false}.</p>
+ */
+public class TestStartupBenchmark {
+
+  private static final int BEAN_CLASSES = 2000;
+
+  private static final int WARMUPS = 2;
+
+  private static final int ITERATIONS = 5;
+
+  private static final String PACKAGE = "org.microbean.kubernetes.controller.cdi.generated";
+
+  private final Logger logger;
+
+  public TestStartupBenchmark() {
+    super();
+    this.logger = Logger.getLogger(this.getClass().getName());
+  }
+
+  @Test
+  public void testStartup() throws Exception {
+    assumeFalse(Boolean.getBoolean("skipBenchmarks"));
+    final Path directory = Files.createTempDirectory(this.getClass().getSimpleName());
+    try (final URLClassLoader classLoader = new URLClassLoader(new URL[] { directory.toUri().toURL() }, Thread.currentThread().getContextClassLoader())) {
+      final Class<?>[] beanClasses = generateBeanClasses(directory, classLoader);
+      for (int i = 0; i < WARMUPS; i++) {
+        boot(classLoader, beanClasses, false);
+        boot(classLoader, beanClasses, true);
+      }
+      final long[] without = new long[ITERATIONS];
+      final long[] with = new long[ITERATIONS];
+      for (int i = 0; i < ITERATIONS; i++) {
+        without[i] = boot(classLoader, beanClasses, false);
+        with[i] = boot(classLoader, beanClasses, true);
+      }
+      final long withoutMedian = median(without);
+      final long withMedian = median(with);
+      this.logger.info(String.format("Median boot time for %d bean classes: %d ms without the extension, %d ms with it (%d microseconds per bean class)",
+                                     BEAN_CLASSES,
+                                     withoutMedian / 1000000L,
+                                     withMedian / 1000000L,
+                                     (withMedian - withoutMedian) / 1000L / BEAN_CLASSES));
+    } finally {
+      delete(directory.toFile());
+    }
+  }
+
+  private static final long boot(final ClassLoader classLoader, final Class<?>[] beanClasses, final boolean withExtension) {
+    final SeContainerInitializer initializer = SeContainerInitializer.newInstance()
+      .disableDiscovery()
+      .setClassLoader(classLoader)
+      .addBeanClasses(beanClasses);
+    if (withExtension) {
+      // A latch that is already open keeps the extension from
+      // blocking once the container has started.
+      initializer.addExtensions(new KubernetesControllerExtension(new CountDownLatch(0)));
+    }
+    final long start = System.nanoTime();
+    try (final SeContainer container = initializer.initialize()) {
+      assertNotNull(container);
+      return System.nanoTime() - start;
+    }
+  }
+
+  private static final Class<?>[] generateBeanClasses(final Path directory, final ClassLoader classLoader) throws IOException, ClassNotFoundException {
+    final Path packageDirectory = directory.resolve(PACKAGE.replace('.', File.separatorChar));
+    Files.createDirectories(packageDirectory);
+    final List<String> arguments = new ArrayList<>(Arrays.asList("-classpath", System.getProperty("java.class.path"), "-d", directory.toString()));
+    for (int i = 0; i < BEAN_CLASSES; i++) {
+      final Path source = packageDirectory.resolve("Bean" + i + ".java");
+      Files.write(source, Collections.singleton(generateSource(i)), StandardCharsets.UTF_8);
+      arguments.add(source.toString());
+    }
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    assertNotNull("A JDK is required to generate bean classes", compiler);
+    assertEquals(0, compiler.run(null, null, null, arguments.toArray(new String[arguments.size()])));
+    final Class<?>[] returnValue = new Class<?>[BEAN_CLASSES];
+    for (int i = 0; i < BEAN_CLASSES; i++) {
+      returnValue[i] = classLoader.loadClass(PACKAGE + ".Bean" + i);
+    }
+    return returnValue;
+  }
+
+  private static final String generateSource(final int i) {
+    return
+      "package " + PACKAGE + ";\n" +
+      "import io.fabric8.kubernetes.api.model.ConfigMap;\n" +
+      "import io.fabric8.kubernetes.api.model.ConfigMapList;\n" +
+      "import io.fabric8.kubernetes.api.model.DoneableConfigMap;\n" +
+      "import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;\n" +
+      "import io.fabric8.kubernetes.client.dsl.Resource;\n" +
+      "import javax.enterprise.context.ApplicationScoped;\n" +
+      "import javax.enterprise.event.Observes;\n" +
+      "import javax.enterprise.inject.Produces;\n" +
+      "import javax.inject.Named;\n" +
+      "@ApplicationScoped\n" +
+      "public class Bean" + i + " {\n" +
+      "  @Produces @Named(\"operation" + i + "\")\n" +
+      "  static NonNamespaceOperation<ConfigMap, ConfigMapList, DoneableConfigMap, Resource<ConfigMap, DoneableConfigMap>> operation() {\n" +
+      "    return null;\n" +
+      "  }\n" +
+      "  void onConfigMap(@Observes @Named(\"configMap" + i + "\") ConfigMap configMap) {\n" +
+      "  }\n" +
+      "}\n";
+  }
+
+  private static final long median(final long[] values) {
+    final long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2];
+  }
+
+  private static final void delete(final File file) {
+    final File[] children = file.listFiles();
+    if (children != null) {
+      for (final File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+}
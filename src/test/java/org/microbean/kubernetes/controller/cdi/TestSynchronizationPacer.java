@@ -0,0 +1,78 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.time.Duration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestSynchronizationPacer {
+
+  public TestSynchronizationPacer() {
+    super();
+  }
+
+  @Test
+  public void testPacing() {
+    final AtomicLong now = new AtomicLong();
+    final List<Integer> released = new ArrayList<>();
+    final SynchronizationPacer<Integer> pacer = new SynchronizationPacer<>(Duration.ofSeconds(10L), released::add, now::get);
+    for (int i = 0; i < 1000; i++) {
+      pacer.submit(Integer.valueOf(i), Integer.valueOf(i));
+    }
+    int ticks = 0;
+    int pending = 1000;
+    while (pending > 0) {
+      now.addAndGet(SynchronizationPacer.TICK.toNanos());
+      final int before = released.size();
+      pending = pacer.tick();
+      // Releases are spread evenly over the window's 100 ticks.
+      assertTrue(released.size() - before <= 11);
+      ticks++;
+    }
+    assertTrue(ticks >= 90 && ticks <= 100);
+    assertEquals(1000, released.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(Integer.valueOf(i), released.get(i));
+    }
+  }
+
+  @Test
+  public void testReplacementAndCancellation() {
+    final AtomicLong now = new AtomicLong();
+    final List<String> released = new ArrayList<>();
+    final SynchronizationPacer<String> pacer = new SynchronizationPacer<>(Duration.ofSeconds(1L), released::add, now::get);
+    pacer.submit("a", "a1");
+    pacer.submit("b", "b1");
+    pacer.submit("c", "c1");
+    pacer.submit("a", "a2");
+    pacer.cancel("b");
+    now.addAndGet(Duration.ofSeconds(1L).toNanos());
+    assertEquals(0, pacer.tick());
+    assertEquals(Arrays.asList("a2", "c1"), released);
+  }
+
+}
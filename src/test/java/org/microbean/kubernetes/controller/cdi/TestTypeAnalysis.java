@@ -0,0 +1,110 @@
+/* -*- mode: Java; c-basic-offset: 2; indent-tabs-mode: nil; coding: utf-8-unix -*-
+ *
+ * Copyright © 2018 microBean.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package org.microbean.kubernetes.controller.cdi;
+
+import java.lang.annotation.Annotation;
+
+import java.lang.reflect.Type;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.enterprise.context.Dependent;
+
+import javax.enterprise.inject.spi.BeanAttributes;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestTypeAnalysis {
+
+  public TestTypeAnalysis() {
+    super();
+  }
+
+  @Test
+  public void testMemoization() {
+    final AtomicInteger invocations = new AtomicInteger();
+    final TypeAnalysis<Integer> analysis = new TypeAnalysis<>(types -> {
+        invocations.incrementAndGet();
+        return types.contains(String.class) ? Integer.valueOf(types.size()) : null;
+      });
+    final BeanAttributes<?> a = new Attributes(String.class, Object.class);
+    final BeanAttributes<?> b = new Attributes(Object.class, String.class);
+    final BeanAttributes<?> c = new Attributes(Object.class);
+    assertEquals(Integer.valueOf(2), analysis.analyze(a));
+    assertEquals(Integer.valueOf(2), analysis.analyze(a));
+    assertEquals(1, invocations.get());
+    // Beans are remembered by identity, not by type closure.
+    assertEquals(Integer.valueOf(2), analysis.analyze(b));
+    assertEquals(2, invocations.get());
+    assertNull(analysis.analyze(c));
+    assertNull(analysis.analyze(c));
+    assertEquals(3, invocations.get());
+    analysis.clear();
+    assertEquals(Integer.valueOf(2), analysis.analyze(b));
+    assertEquals(4, invocations.get());
+  }
+
+  private static final class Attributes implements BeanAttributes<Object> {
+
+    private final Set<Type> types;
+
+    private Attributes(final Type... types) {
+      super();
+      this.types = new HashSet<>(Arrays.asList(types));
+    }
+
+    @Override
+    public final Set<Type> getTypes() {
+      return this.types;
+    }
+
+    @Override
+    public final Set<Annotation> getQualifiers() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public final Class<? extends Annotation> getScope() {
+      return Dependent.class;
+    }
+
+    @Override
+    public final String getName() {
+      return null;
+    }
+
+    @Override
+    public final Set<Class<? extends Annotation>> getStereotypes() {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public final boolean isAlternative() {
+      return false;
+    }
+
+  }
+
+}